@@ -0,0 +1,33 @@
+package com.example.library.benchmark;
+
+import com.example.library.LibraryManagementApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// BenchmarkContext.java
+
+// Starts the application against its in-memory H2 database, without the web server
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    // Properties are passed as command-line arguments; default properties would lose to application.properties
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                // A fresh database per fork, so runs don't see each other's rows
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;LOCK_TIMEOUT=10000",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--logging.level.root=warn"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.library.benchmark;
+
+import com.example.library.entity.Book;
+import com.example.library.response.BulkImportResponse;
+import com.example.library.service.BookImportService;
+import com.example.library.service.CatalogService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// BookImportBenchmark.java
+
+/**
+ * Time to load 10,000 NDJSON rows: {@link BookImportService} (chunked
+ * transactions, JDBC batches) against the loop a client runs without it, one
+ * {@link CatalogService#addBook} call and transaction per row, as behind
+ * POST /api/books. Both parse and validate the same rows, so the difference
+ * is in the writes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BookImportBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private BookImportService bookImportService;
+    private CatalogService catalogService;
+    private ObjectMapper objectMapper;
+    private Validator validator;
+    private byte[] rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        bookImportService = context.getBean(BookImportService.class);
+        catalogService = context.getBean(CatalogService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        validator = context.getBean(Validator.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ROWS * 120);
+        for (int i = 0; i < ROWS; i++) {
+            String line = "{\"title\":\"Imported Title " + i + "\",\"author\":\"Author " + (i % 500)
+                    + "\",\"isbn\":\"978" + String.format("%010d", i) + "\",\"publicationYear\":" + (1900 + i % 125)
+                    + ",\"totalCopies\":" + (1 + i % 3) + "}\n";
+            out.writeBytes(line.getBytes(StandardCharsets.UTF_8));
+        }
+        rows = out.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BulkImportResponse bulkImport() throws IOException {
+        return bookImportService.importBooks(new ByteArrayInputStream(rows));
+    }
+
+    @Benchmark
+    public int savePerRow() throws IOException {
+        int saved = 0;
+        try (MappingIterator<Book> books = objectMapper.readerFor(Book.class).readValues(new ByteArrayInputStream(rows))) {
+            while (books.hasNextValue()) {
+                Book book = books.nextValue();
+                // What @Valid does for each POST
+                if (validator.validate(book).isEmpty()) {
+                    catalogService.addBook(book);
+                    saved++;
+                }
+            }
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.library.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.example.library.config.MeteredAsyncAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// LoggingThroughputBenchmark.java
+
+/**
+ * Logging throughput of many request threads with the old synchronous
+ * appender and with the async appender from logback.xml, both writing
+ * through the same encoder to a file. With "async" the score includes only
+ * the enqueue cost; the dropped-event count is printed at the end of each
+ * trial so throughput can be weighed against what was lost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class LoggingThroughputBenchmark {
+
+    @Param({"sync", "async"})
+    private String appender;
+
+    private LoggerContext context;
+    private Logger logger;
+    private MeteredAsyncAppender async;
+    private File logFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new LoggerContext();
+        logFile = File.createTempFile("logging-benchmark", ".log");
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setName("FILE");
+        file.setFile(logFile.getAbsolutePath());
+        file.setAppend(false);
+        file.setEncoder(encoder);
+        file.start();
+
+        Appender<ILoggingEvent> target = file;
+        if ("async".equals(appender)) {
+            // Same settings as ASYNC_CONSOLE in logback.xml
+            async = new MeteredAsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC");
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(1638);
+            async.addAppender(file);
+            async.start();
+            target = async;
+        }
+
+        logger = context.getLogger("com.example.library.controller.LibraryController");
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(target);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (async != null) {
+            System.out.println("Dropped events: " + async.getDiscardedCount());
+        }
+        context.stop();
+        logFile.delete();
+    }
+
+    // What getAllBooks used to do on every call
+    @Benchmark
+    public void twoInfoLines() {
+        logger.info("Fetching books");
+        logger.info("Fetched books successfully");
+    }
+
+    // What it does now, with DEBUG disabled
+    @Benchmark
+    public void disabledDebugLine() {
+        logger.debug("Fetched {} books after cursor {}", 50, "aWQ6MTAw");
+    }
+
+    @Benchmark
+    public void errorWithException() {
+        logger.error("An error occurred while retrieving all books", new IllegalStateException("benchmark"));
+    }
+}
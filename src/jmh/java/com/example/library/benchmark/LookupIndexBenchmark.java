@@ -0,0 +1,102 @@
+package com.example.library.benchmark;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import com.example.library.response.BookSearchHit;
+import com.example.library.response.PatronSuggestion;
+import com.example.library.search.CatalogSearchIndex;
+import com.example.library.search.PatronNameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// LookupIndexBenchmark.java
+
+/**
+ * Query latency of the in-memory indexes behind /books/search and /patrons/suggest,
+ * over synthetic catalogs of production size. Both indexes are filled directly,
+ * without a Spring context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LookupIndexBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+    private static final int PATRONS = 200_000;
+    private static final String[] WORDS = {
+            "history", "garden", "river", "winter", "empire", "shadow", "ocean", "machine",
+            "letters", "night", "silver", "mountain", "journey", "house", "science", "forest"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Ada", "Alan", "Grace", "Edsger", "Barbara", "Donald", "Margaret", "Ken", "Frances", "Niklaus"
+    };
+
+    private CatalogSearchIndex catalogSearchIndex;
+    private PatronNameIndex patronNameIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        catalogSearchIndex = new CatalogSearchIndex();
+        for (int i = 1; i <= BOOKS; i++) {
+            Book book = new Book();
+            book.setId((long) i);
+            book.setTitle(WORDS[random.nextInt(WORDS.length)] + " of the " + WORDS[random.nextInt(WORDS.length)] + " " + i);
+            book.setAuthor("Author" + random.nextInt(50_000));
+            book.setIsbn(String.format("978%010d", i));
+            book.setPublicationYear(1900 + random.nextInt(125));
+            catalogSearchIndex.add(book);
+        }
+
+        patronNameIndex = new PatronNameIndex();
+        patronNameIndex.loadAll(IntStream.rangeClosed(1, PATRONS).mapToObj(i -> {
+            Patron patron = new Patron();
+            patron.setId((long) i);
+            patron.setName(FIRST_NAMES[i % FIRST_NAMES.length] + " Surname" + random.nextInt(100_000));
+            return patron;
+        }));
+    }
+
+    // Two common terms: intersects large posting lists
+    @Benchmark
+    public List<BookSearchHit> searchCommonTerms() {
+        return catalogSearchIndex.search("river winter", 20);
+    }
+
+    // A prefix that expands to many index terms
+    @Benchmark
+    public List<BookSearchHit> searchPrefix() {
+        return catalogSearchIndex.search("author123", 20);
+    }
+
+    @Benchmark
+    public List<BookSearchHit> searchIsbn() {
+        return catalogSearchIndex.search("978-0000123456", 20);
+    }
+
+    @Benchmark
+    public List<PatronSuggestion> suggestPatron() {
+        return patronNameIndex.suggest("gra", 10);
+    }
+
+    @Benchmark
+    public List<PatronSuggestion> suggestPatronTwoWords() {
+        return patronNameIndex.suggest("grace surname12", 10);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.library.benchmark;
+
+import com.example.library.controller.LibraryController;
+import com.example.library.entity.Book;
+import com.example.library.entity.BorrowingRecord;
+import com.example.library.entity.Patron;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.PatronRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// RepositoryBenchmark.java
+
+/**
+ * Database round trips against H2: the primary-key lookup, the open-loan query
+ * run on every borrow and return, and the complete borrow/return flow through
+ * the controller (service, transaction, conditional updates and events).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    private static final int BOOKS = 1_000;
+    private static final int PATRONS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private BorrowingRecordRepository borrowingRecordRepository;
+    private LibraryController libraryController;
+
+    private long[] bookIds;
+    private Book loanedBook;
+    private Patron borrower;
+    private Long flowBookId;
+    private Long flowPatronId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        bookRepository = context.getBean(BookRepository.class);
+        borrowingRecordRepository = context.getBean(BorrowingRecordRepository.class);
+        libraryController = context.getBean(LibraryController.class);
+
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Benchmark Title " + i);
+            book.setAuthor("Author " + (i % 100));
+            book.setPublicationYear(1900 + i % 120);
+            book.setIsbn("978-0-00-" + String.format("%06d", i));
+            book.setTotalCopies(1_000_000);
+            book.setAvailableCopies(1_000_000);
+            books.add(book);
+        }
+        books = bookRepository.saveAll(books);
+        bookIds = books.stream().mapToLong(Book::getId).toArray();
+
+        List<Patron> patrons = new ArrayList<>(PATRONS);
+        for (int i = 0; i < PATRONS; i++) {
+            Patron patron = new Patron();
+            patron.setName("Patron " + i);
+            patron.setContactInformation("patron" + i + "@example.com");
+            patrons.add(patron);
+        }
+        patrons = context.getBean(PatronRepository.class).saveAll(patrons);
+
+        // One open loan per patron, so the open-loan lookup searches a realistically sized table
+        List<BorrowingRecord> loans = new ArrayList<>(PATRONS);
+        for (int i = 0; i < PATRONS; i++) {
+            BorrowingRecord loan = new BorrowingRecord();
+            loan.setBook(books.get(i % BOOKS));
+            loan.setPatron(patrons.get(i));
+            loan.setBorrowDate(LocalDate.now());
+            loans.add(loan);
+        }
+        borrowingRecordRepository.saveAll(loans);
+
+        loanedBook = books.get(PATRONS / 2 % BOOKS);
+        borrower = patrons.get(PATRONS / 2);
+        flowBookId = books.get(BOOKS - 1).getId();
+        flowPatronId = patrons.get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Book> findById() {
+        return bookRepository.findById(bookIds[ThreadLocalRandom.current().nextInt(BOOKS)]);
+    }
+
+    @Benchmark
+    public Optional<BorrowingRecord> findOpenLoan() {
+        return borrowingRecordRepository.findByBookAndPatronAndReturnDateIsNull(loanedBook, borrower);
+    }
+
+    // Borrow then return the same copy, leaving the database as it was
+    @Benchmark
+    public ResponseEntity<?> borrowAndReturn() {
+        ResponseEntity<?> borrowed = libraryController.borrowBook(flowBookId, flowPatronId);
+        if (!borrowed.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Borrow failed: " + borrowed.getBody());
+        }
+        return libraryController.returnBook(flowBookId, flowPatronId);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.library.benchmark;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.BorrowingRecord;
+import com.example.library.entity.Patron;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// SerializationBenchmark.java
+
+/**
+ * JSON serialization of the entities returned by the API, using an ObjectMapper
+ * configured the way Spring MVC configures its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectWriter writer;
+    private ObjectMapper mapper;
+    private Book book;
+    private BorrowingRecord borrowingRecord;
+    private byte[] bookJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = mapper.writer();
+
+        book = new Book();
+        book.setId(42L);
+        book.setTitle("The Structure and Interpretation of Computer Programs");
+        book.setAuthor("Harold Abelson");
+        book.setPublicationYear(1985);
+        book.setIsbn("978-0-262-51087-5");
+        book.setTotalCopies(3);
+        book.setAvailableCopies(2);
+
+        Patron patron = new Patron();
+        patron.setId(7L);
+        patron.setName("Ada Lovelace");
+        patron.setContactInformation("ada@example.com");
+
+        borrowingRecord = new BorrowingRecord();
+        borrowingRecord.setId(1001L);
+        borrowingRecord.setBook(book);
+        borrowingRecord.setPatron(patron);
+        borrowingRecord.setBorrowDate(LocalDate.of(2024, 1, 15));
+
+        bookJson = writer.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] serializeBook() throws Exception {
+        return writer.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] serializeBorrowingRecord() throws Exception {
+        return writer.writeValueAsBytes(borrowingRecord);
+    }
+
+    @Benchmark
+    public Book deserializeBook() throws Exception {
+        return mapper.readValue(bookJson, Book.class);
+    }
+}
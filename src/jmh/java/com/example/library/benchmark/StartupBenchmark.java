@@ -0,0 +1,126 @@
+package com.example.library.benchmark;
+
+import com.example.library.service.BookImportService;
+import com.example.library.snapshot.CatalogSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// StartupBenchmark.java
+
+/**
+ * Time from launch until the application is ready with a 1M-book catalog:
+ * <ul>
+ *   <li>EMPTY: cold start with nothing to load (the lower bound)</li>
+ *   <li>SNAPSHOT: start that loads the catalog from a snapshot file</li>
+ *   <li>IMPORT: start empty, then load the catalog through the bulk import
+ *       endpoint's service, the only way to restore it without a snapshot</li>
+ * </ul>
+ * The in-memory indexes are built in every case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class StartupBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+
+    @Param({"EMPTY", "SNAPSHOT", "IMPORT"})
+    private String start;
+
+    private Path snapshotDirectory;
+    private byte[] catalog;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if ("EMPTY".equals(start)) {
+            return;
+        }
+        catalog = catalogNdjson();
+        if ("SNAPSHOT".equals(start)) {
+            snapshotDirectory = Files.createTempDirectory("startup-benchmark");
+            ConfigurableApplicationContext seed = BenchmarkContext.start(snapshotProperties());
+            seed.getBean(BookImportService.class).importBooks(new ByteArrayInputStream(catalog));
+            seed.getBean(CatalogSnapshot.class).write();
+            seed.close();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        if (snapshotDirectory != null) {
+            try (var files = Files.list(snapshotDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(snapshotDirectory);
+        }
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext startUntilReady() throws IOException {
+        if ("SNAPSHOT".equals(start)) {
+            context = BenchmarkContext.start(snapshotProperties());
+        } else {
+            context = BenchmarkContext.start();
+            if ("IMPORT".equals(start)) {
+                context.getBean(BookImportService.class).importBooks(new ByteArrayInputStream(catalog));
+            }
+        }
+        return context;
+    }
+
+    private String[] snapshotProperties() {
+        return new String[]{
+                "library.snapshot.enabled=true",
+                "library.snapshot.file=" + snapshotDirectory.resolve("catalog.snapshot"),
+                // Only the explicit write in setUp and the one on shutdown
+                "library.snapshot.interval=24h"
+        };
+    }
+
+    private static byte[] catalogNdjson() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BOOKS * 120);
+        StringBuilder line = new StringBuilder(128);
+        for (int i = 0; i < BOOKS; i++) {
+            line.setLength(0);
+            line.append("{\"title\":\"Benchmark Title ").append(i)
+                    .append("\",\"author\":\"Author ").append(i % 50_000)
+                    .append("\",\"isbn\":\"978").append(String.format("%010d", i))
+                    .append("\",\"publicationYear\":").append(1900 + i % 125)
+                    .append(",\"totalCopies\":").append(1 + i % 3)
+                    .append("}\n");
+            out.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.library.benchmark;
+
+import com.example.library.aspect.LogExecutionTime;
+import com.example.library.aspect.LogExecutionTimeAspect;
+import com.example.library.aspect.LogExecutionTimeEnum;
+import com.example.library.aspect.OperationMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// TimingOverheadBenchmark.java
+
+/**
+ * Cost per call of the @LogExecutionTime instrumentation. The difference
+ * between {@code instrumented} and {@code direct} is the overhead added to every
+ * timed endpoint; {@code recordOnly} is the histogram write alone, without the
+ * proxy. Run with several threads to see contention, if any, on the recorders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class TimingOverheadBenchmark {
+
+    public static class Operation {
+        @LogExecutionTime(LogExecutionTimeEnum.BORROW_BOOK)
+        public long run(long value) {
+            return value * 31 + 7;
+        }
+    }
+
+    private Operation direct;
+    private Operation instrumented;
+    private OperationMetrics operationMetrics;
+    private long value = 42;
+
+    @Setup
+    public void setUp() {
+        // Production registry, and a threshold no call reaches so nothing is logged
+        operationMetrics = new OperationMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), Duration.ofSeconds(10), 10);
+
+        direct = new Operation();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new Operation());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new LogExecutionTimeAspect(operationMetrics));
+        instrumented = proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public long direct() {
+        return direct.run(value);
+    }
+
+    @Benchmark
+    public long instrumented() {
+        return instrumented.run(value);
+    }
+
+    @Benchmark
+    public void recordOnly() {
+        operationMetrics.record(LogExecutionTimeEnum.BORROW_BOOK, 1_234_567);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.library.benchmark;
+
+import com.example.library.entity.Book;
+import com.example.library.response.ValidationErrors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+
+import java.util.concurrent.TimeUnit;
+
+// ValidationErrorsBenchmark.java
+
+/**
+ * Building the 400 Bad Request message from a BindingResult: the loop that used
+ * to be repeated in every controller method against {@link ValidationErrors}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationErrorsBenchmark {
+
+    @Param({"1", "4"})
+    private int errorCount;
+
+    private BindingResult bindingResult;
+
+    @Setup
+    public void setUp() {
+        bindingResult = new BeanPropertyBindingResult(new Book(), "book");
+        String[] fields = {"title", "author", "isbn", "totalCopies"};
+        for (int i = 0; i < errorCount; i++) {
+            bindingResult.addError(new FieldError("book", fields[i], "must not be blank"));
+        }
+    }
+
+    // The original inline version from LibraryController
+    @Benchmark
+    public String inlineLoop() {
+        StringBuilder errorMessage = new StringBuilder("Validation error(s): ");
+        bindingResult.getAllErrors().forEach(error -> {
+            if (error instanceof FieldError) {
+                errorMessage.append(((FieldError) error).getField()).append(": ").append(error.getDefaultMessage()).append("; ");
+            } else {
+                errorMessage.append(error.getDefaultMessage()).append("; ");
+            }
+        });
+        return errorMessage.toString();
+    }
+
+    @Benchmark
+    public String describe() {
+        return ValidationErrors.describe(bindingResult);
+    }
+}
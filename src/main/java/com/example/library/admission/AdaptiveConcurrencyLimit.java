@@ -0,0 +1,137 @@
+package com.example.library.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleUnaryOperator;
+
+// AdaptiveConcurrencyLimit.java
+
+/**
+ * Bounds the requests in flight with a limit that follows observed latency
+ * (additive increase, multiplicative decrease). A request that completes
+ * within {@code targetLatency} while the limit is at least half used raises
+ * the limit by {@code 1/limit}, so roughly by one per limit's worth of
+ * completions; a slower one cuts it by {@code backoff}, at most once per
+ * target latency so a burst of slow completions counts as one signal.
+ *
+ * <p>At the limit, up to {@code maxQueued} callers wait for a slot for at most
+ * {@code maxQueueWait}; everyone else is turned away immediately. Waiting
+ * uses a {@link ReentrantLock} condition, which parks virtual threads without
+ * pinning them.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoff;
+    private final int maxQueued;
+    private final long maxQueueWaitNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    // Double bits of the current limit
+    private final AtomicLong limit;
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos,
+                                    double backoff, int maxQueued, long maxQueueWaitNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoff = backoff;
+        this.maxQueued = maxQueued;
+        this.maxQueueWaitNanos = maxQueueWaitNanos;
+        this.limit = new AtomicLong(Double.doubleToLongBits(Math.max(minLimit, Math.min(maxLimit, initialLimit))));
+    }
+
+    public enum Admission {
+        ADMITTED,
+        QUEUED,
+        REJECTED
+    }
+
+    /**
+     * Takes a slot, waiting briefly if none is free. Every admitted or queued
+     * caller must call {@link #release} once it is done.
+     */
+    public Admission acquire() {
+        if (tryTake()) {
+            return Admission.ADMITTED;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return Admission.REJECTED;
+        }
+        lock.lock();
+        try {
+            long remaining = maxQueueWaitNanos;
+            while (!tryTake()) {
+                if (remaining <= 0) {
+                    return Admission.REJECTED;
+                }
+                remaining = slotFreed.awaitNanos(remaining);
+            }
+            return Admission.QUEUED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Admission.REJECTED;
+        } finally {
+            lock.unlock();
+            queued.decrementAndGet();
+        }
+    }
+
+    public void release(long latencyNanos) {
+        int wasInFlight = inFlight.getAndDecrement();
+        long now = System.nanoTime();
+        if (latencyNanos > targetLatencyNanos) {
+            long last = lastDecrease.get();
+            if (now - last >= targetLatencyNanos && lastDecrease.compareAndSet(last, now)) {
+                update(current -> Math.max(minLimit, current * backoff));
+            }
+        } else if (wasInFlight * 2 >= getLimit()) {
+            update(current -> Math.min(maxLimit, current + 1.0 / current));
+        }
+        if (queued.get() > 0) {
+            lock.lock();
+            try {
+                slotFreed.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    private boolean tryTake() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void update(DoubleUnaryOperator change) {
+        limit.getAndUpdate(bits -> Double.doubleToLongBits(change.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+}
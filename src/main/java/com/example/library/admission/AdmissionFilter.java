@@ -0,0 +1,252 @@
+package com.example.library.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// AdmissionFilter.java
+
+/**
+ * Admission control in front of the {@code /api} endpoints, applied before a
+ * request reaches a controller or asks for a connection:
+ *
+ * <ol>
+ *   <li>each patron's borrows and returns draw from their own
+ *       {@link TokenBucket}; an empty one answers 429;</li>
+ *   <li>circulation, list and export requests draw from one bucket per class
+ *       that caps the rate the database sees; an empty one answers 503;</li>
+ *   <li>everything except exports then needs a slot of the
+ *       {@link AdaptiveConcurrencyLimit}, which shrinks when latency rises;
+ *       without one the request is shed with 503.</li>
+ * </ol>
+ *
+ * Rejections carry {@code Retry-After}. Outcomes are counted in
+ * {@code library.admission.requests} tagged with the class and
+ * {@code outcome=admitted|queued|throttled|shed}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.admission.enabled", havingValue = "true")
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    enum EndpointClass {
+        CIRCULATION,
+        LIST,
+        EXPORT,
+        OTHER
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(AdmissionFilter.class);
+
+    @Value("${library.admission.patron-rate:2}")
+    private double patronRate;
+
+    @Value("${library.admission.patron-burst:10}")
+    private int patronBurst;
+
+    @Value("${library.admission.circulation-rate:500}")
+    private double circulationRate;
+
+    @Value("${library.admission.circulation-burst:1000}")
+    private int circulationBurst;
+
+    @Value("${library.admission.list-rate:200}")
+    private double listRate;
+
+    @Value("${library.admission.list-burst:400}")
+    private int listBurst;
+
+    @Value("${library.admission.export-rate:1}")
+    private double exportRate;
+
+    @Value("${library.admission.export-burst:4}")
+    private int exportBurst;
+
+    @Value("${library.admission.initial-limit:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int initialLimit;
+
+    @Value("${library.admission.min-limit:4}")
+    private int minLimit;
+
+    @Value("${library.admission.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${library.admission.target-latency:250ms}")
+    private Duration targetLatency;
+
+    @Value("${library.admission.backoff:0.9}")
+    private double backoff;
+
+    @Value("${library.admission.max-queued:100}")
+    private int maxQueued;
+
+    @Value("${library.admission.max-queue-wait:100ms}")
+    private Duration maxQueueWait;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, TokenBucket> patronBuckets;
+    private final Map<EndpointClass, TokenBucket> classBuckets = new EnumMap<>(EndpointClass.class);
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Map<EndpointClass, Map<String, Counter>> outcomes = new EnumMap<>(EndpointClass.class);
+
+    @PostConstruct
+    void init() {
+        long now = System.nanoTime();
+        // Idle patrons drop out; a returning patron starts with a full bucket, as a new one would
+        patronBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos((long) (TimeUnit.SECONDS.toNanos(1) * patronBurst / patronRate)))
+                .maximumSize(100_000)
+                .build();
+        classBuckets.put(EndpointClass.CIRCULATION, new TokenBucket(circulationRate, circulationBurst, now));
+        classBuckets.put(EndpointClass.LIST, new TokenBucket(listRate, listBurst, now));
+        classBuckets.put(EndpointClass.EXPORT, new TokenBucket(exportRate, exportBurst, now));
+        concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, targetLatency.toNanos(),
+                backoff, maxQueued, maxQueueWait.toNanos());
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            Map<String, Counter> counters = new HashMap<>();
+            for (String outcome : new String[]{"admitted", "queued", "throttled", "shed"}) {
+                counters.put(outcome, Counter.builder("library.admission.requests")
+                        .description("API requests by admission outcome")
+                        .tag("class", endpointClass.name().toLowerCase())
+                        .tag("outcome", outcome)
+                        .register(meterRegistry));
+            }
+            outcomes.put(endpointClass, counters);
+        }
+        Gauge.builder("library.admission.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("library.admission.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Requests holding a concurrency slot")
+                .register(meterRegistry);
+        Gauge.builder("library.admission.queued", concurrencyLimit, AdaptiveConcurrencyLimit::getQueued)
+                .description("Requests waiting for a concurrency slot")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !path(request).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = path(request);
+        EndpointClass endpointClass = classify(request.getMethod(), path);
+        long now = System.nanoTime();
+
+        Long patronId = endpointClass == EndpointClass.CIRCULATION ? patronId(path) : null;
+        if (patronId != null) {
+            long wait = patronBuckets.get(patronId, id -> new TokenBucket(patronRate, patronBurst, now)).tryAcquire(now);
+            if (wait > 0) {
+                reject(response, endpointClass, "throttled", HttpStatus.TOO_MANY_REQUESTS, wait,
+                        "Too many borrow and return requests for patron " + patronId + ", please retry later.");
+                return;
+            }
+        }
+        TokenBucket classBucket = classBuckets.get(endpointClass);
+        if (classBucket != null) {
+            long wait = classBucket.tryAcquire(now);
+            if (wait > 0) {
+                reject(response, endpointClass, "shed", HttpStatus.SERVICE_UNAVAILABLE, wait,
+                        "The library is busy, please retry later.");
+                return;
+            }
+        }
+
+        // Exports stream for minutes; their latency says nothing about load, so they bypass the limit
+        if (endpointClass == EndpointClass.EXPORT) {
+            count(endpointClass, "admitted");
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimit.Admission admission = concurrencyLimit.acquire();
+        if (admission == AdaptiveConcurrencyLimit.Admission.REJECTED) {
+            reject(response, endpointClass, "shed", HttpStatus.SERVICE_UNAVAILABLE, targetLatency.toNanos(),
+                    "The library is busy, please retry later.");
+            return;
+        }
+        count(endpointClass, admission == AdaptiveConcurrencyLimit.Admission.QUEUED ? "queued" : "admitted");
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimit.release(System.nanoTime() - started);
+        }
+    }
+
+    static EndpointClass classify(String method, String path) {
+        if (path.startsWith("/api/borrow/") || path.startsWith("/api/return/")) {
+            return EndpointClass.CIRCULATION;
+        }
+        if (path.startsWith("/api/export/")) {
+            return EndpointClass.EXPORT;
+        }
+        if ("GET".equals(method) && (path.equals("/api/books") || path.equals("/api/patrons")
+                || path.equals("/api/loans/overdue")
+                || (path.matches("/api/(books|patrons)/[^/]+/loans")))) {
+            return EndpointClass.LIST;
+        }
+        return EndpointClass.OTHER;
+    }
+
+    // The patron of /api/borrow/{bookId}/patron/{patronId} and /api/return/...; null for batches
+    static Long patronId(String path) {
+        String[] segments = path.split("/");
+        if (segments.length != 6 || !"patron".equals(segments[4])) {
+            return null;
+        }
+        try {
+            return Long.valueOf(segments[5]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, EndpointClass endpointClass, String outcome,
+                        HttpStatus status, long retryAfterNanos, String message) throws IOException {
+        count(endpointClass, outcome);
+        logger.debug("Rejected {} request with {}", endpointClass, status.value());
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+
+    private void count(EndpointClass endpointClass, String outcome) {
+        outcomes.get(endpointClass).get(outcome).increment();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
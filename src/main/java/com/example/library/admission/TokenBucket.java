@@ -0,0 +1,50 @@
+package com.example.library.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// TokenBucket.java
+
+/**
+ * Lock-free token bucket, kept as the generic cell rate algorithm: instead of
+ * a token count refilled by a timer, one {@link AtomicLong} holds the
+ * theoretical arrival time (TAT) of the next request at the sustained rate.
+ * A request is admitted while the TAT is no more than {@code burst - 1}
+ * intervals ahead of now, and pushes it one interval further. Taking a token
+ * is a single compare-and-set, retried only when another thread took one in
+ * between.
+ *
+ * <p>Times are {@link System#nanoTime()} values passed in by the caller.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise how many nanoseconds until one is available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            // Compare by difference; nanoTime values may wrap
+            long ahead = current - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            long next = (ahead > 0 ? current : nowNanos) + intervalNanos;
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -1,19 +1,18 @@
 
 package com.example.library.aspect;
 
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Inherited;
-
 // LogExecutionTime.java
 
 import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+// Times the annotated method as the given operation (see OperationMetrics)
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 @Inherited
 public @interface LogExecutionTime {
-    String value() default "";
+    LogExecutionTimeEnum value();
 }
@@ -3,26 +3,28 @@ package com.example.library.aspect;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Aspect
 @Component
 public class LogExecutionTimeAspect {
 
-    private static final Logger logger = LoggerFactory.getLogger(LogExecutionTimeAspect.class);
+    private final OperationMetrics operationMetrics;
 
-    @Around("@annotation(com.example.library.aspect.LogExecutionTime)")
-    public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
-
-        Object proceed = joinPoint.proceed();
-
-        long executionTime = System.currentTimeMillis() - startTime;
-
-        logger.info(joinPoint.getSignature() + " executed in " + executionTime + "ms");
+    @Autowired
+    public LogExecutionTimeAspect(OperationMetrics operationMetrics) {
+        this.operationMetrics = operationMetrics;
+    }
 
-        return proceed;
+    // Failed calls are timed too; their latency matters as much as that of successful ones
+    @Around("@annotation(logExecutionTime)")
+    public Object logExecutionTime(ProceedingJoinPoint joinPoint, LogExecutionTime logExecutionTime) throws Throwable {
+        long startTime = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            operationMetrics.record(logExecutionTime.value(), System.nanoTime() - startTime);
+        }
     }
 }
@@ -2,14 +2,20 @@
 package com.example.library.aspect;
 
 public enum LogExecutionTimeEnum {
+    LIST_BOOKS("List Books"),
+    SEARCH_BOOKS("Search Books"),
     ADD_BOOK("Add Book"),
+    IMPORT_BOOKS("Import Books"),
     UPDATE_BOOK("Update Book"),
     DELETE_BOOK("Delete Book"),
+    SUGGEST_PATRONS("Suggest Patrons"),
     ADD_PATRON("Add Patron"),
     UPDATE_PATRON("Update Patron"),
     DELETE_PATRON("Delete Patron"),
     BORROW_BOOK("Borrow Book"),
-    RETURN_BOOK("Return Book");
+    BORROW_BOOKS("Borrow Books"),
+    RETURN_BOOK("Return Book"),
+    RETURN_BOOKS("Return Books");
 
     private final String operation;
 
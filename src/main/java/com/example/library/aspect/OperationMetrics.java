@@ -0,0 +1,72 @@
+package com.example.library.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// OperationMetrics.java
+
+/**
+ * Latency of the {@link LogExecutionTimeEnum} operations, published as the
+ * {@code library.operation.duration} timer tagged {@code operation=<name>}
+ * with count, total, max and the p50/p99/p999 percentiles.
+ *
+ * <p>All timers are registered up front, so recording a call is an EnumMap
+ * (array) lookup plus a write into Micrometer's HdrHistogram recorder: no locks, no
+ * allocation and no string building. Calls at or above the slow threshold
+ * are logged, but only one in every {@code slowLogSampleEvery} per operation
+ * so a slow database cannot flood the log.
+ */
+@Component
+public class OperationMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationMetrics.class);
+
+    private final Map<LogExecutionTimeEnum, Timer> timers = new EnumMap<>(LogExecutionTimeEnum.class);
+    private final AtomicLongArray slowCalls;
+    private final long slowThresholdNanos;
+    private final int slowLogSampleEvery;
+
+    @Autowired
+    public OperationMetrics(MeterRegistry meterRegistry,
+                            @Value("${library.timing.slow-threshold:500ms}") Duration slowThreshold,
+                            @Value("${library.timing.slow-log-sample-every:10}") int slowLogSampleEvery) {
+        LogExecutionTimeEnum[] operations = LogExecutionTimeEnum.values();
+        this.slowCalls = new AtomicLongArray(operations.length);
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowLogSampleEvery = Math.max(1, slowLogSampleEvery);
+
+        for (LogExecutionTimeEnum operation : operations) {
+            Timer timer = Timer.builder("library.operation.duration")
+                    .description("Execution time of " + operation.getOperation())
+                    .tag("operation", operation.name())
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .register(meterRegistry);
+            timers.put(operation, timer);
+        }
+    }
+
+    public void record(LogExecutionTimeEnum operation, long durationNanos) {
+        timers.get(operation).record(durationNanos, TimeUnit.NANOSECONDS);
+
+        if (durationNanos >= slowThresholdNanos
+                && slowCalls.getAndIncrement(operation.ordinal()) % slowLogSampleEvery == 0) {
+            logger.warn("{} took {} ms ({} slow calls so far)", operation.getOperation(),
+                    durationNanos / 1_000_000, slowCalls.get(operation.ordinal()));
+        }
+    }
+
+    public Timer timer(LogExecutionTimeEnum operation) {
+        return timers.get(operation);
+    }
+}
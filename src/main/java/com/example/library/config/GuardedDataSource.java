@@ -0,0 +1,113 @@
+package com.example.library.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// GuardedDataSource.java
+
+/**
+ * Caps how many threads may hold or wait for a JDBC connection at once. With
+ * virtual threads every request gets its own thread, so thousands can reach
+ * the pool at the same moment; beyond {@code permits} callers wait on a
+ * {@link Semaphore} (which parks a virtual thread without pinning it) and give
+ * up after {@code maxWaitMillis} instead of piling up inside the pool.
+ *
+ * <p>One guard belongs in front of each physical pool, sized to that pool;
+ * closing the guard closes the pool.
+ */
+public class GuardedDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    // Shared by every place that guards a pool
+    static final String PERMITS = "${library.virtual-threads.max-db-connections:${spring.datasource.hikari.maximum-pool-size:10}}";
+    static final String MAX_WAIT = "${library.virtual-threads.max-db-wait:2s}";
+
+    private final Semaphore permits;
+    private final long maxWaitMillis;
+
+    public GuardedDataSource(DataSource targetDataSource, int permits, long maxWaitMillis) {
+        super(targetDataSource);
+        this.permits = new Semaphore(permits);
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No database connection available within " + maxWaitMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    // Hands the permit back exactly once, when the caller closes the connection
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
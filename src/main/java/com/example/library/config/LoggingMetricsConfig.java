@@ -0,0 +1,50 @@
+package com.example.library.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Iterator;
+
+// LoggingMetricsConfig.java
+
+// Publishes queue depth and dropped events of the async appenders configured in logback.xml
+@Configuration
+public class LoggingMetricsConfig {
+
+    @Bean
+    MeterBinder asyncLoggingMetrics() {
+        return registry -> {
+            if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+                return;
+            }
+            Logger root = ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(Logger.ROOT_LOGGER_NAME);
+            for (Iterator<Appender<ILoggingEvent>> appenders = root.iteratorForAppenders(); appenders.hasNext(); ) {
+                Appender<ILoggingEvent> appender = appenders.next();
+                if (!(appender instanceof MeteredAsyncAppender)) {
+                    continue;
+                }
+                MeteredAsyncAppender async = (MeteredAsyncAppender) appender;
+                Gauge.builder("logback.async.queued", async, MeteredAsyncAppender::getNumberOfElementsInQueue)
+                        .description("Log events waiting to be written")
+                        .tag("appender", async.getName())
+                        .register(registry);
+                Gauge.builder("logback.async.capacity", async, MeteredAsyncAppender::getQueueSize)
+                        .description("Size of the async log queue")
+                        .tag("appender", async.getName())
+                        .register(registry);
+                FunctionCounter.builder("logback.async.dropped", async, MeteredAsyncAppender::getDiscardedCount)
+                        .description("TRACE/DEBUG/INFO events dropped because the queue was nearly full")
+                        .tag("appender", async.getName())
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.library.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// MeteredAsyncAppender.java
+
+/**
+ * Logback's {@link AsyncAppender} with a count of the events it discarded.
+ *
+ * <p>Events go into a bounded array queue drained by one worker thread that
+ * writes to the wrapped appender, so request threads never wait on the
+ * console. Once less than {@code discardingThreshold} slots are free, TRACE,
+ * DEBUG and INFO events are dropped instead of queued; WARN and ERROR are
+ * always kept. The counts are published by {@link LoggingMetricsConfig}.
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    private final LongAdder discarded = new LongAdder();
+
+    // Only consulted when the queue is nearly full, so every true answer is a dropped event
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        boolean discardable = super.isDiscardable(event);
+        if (discardable) {
+            discarded.increment();
+        }
+        return discardable;
+    }
+
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+}
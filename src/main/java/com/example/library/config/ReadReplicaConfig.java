@@ -0,0 +1,119 @@
+package com.example.library.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// ReadReplicaConfig.java
+
+/**
+ * Replaces the auto-configured pool with a primary and one pool per entry in
+ * {@code library.datasource.replica-urls}, routed by
+ * {@link ReadWriteRoutingDataSource}. Every pool takes its credentials and
+ * {@code spring.datasource.hikari.*} settings from the primary's configuration.
+ * In virtual-thread mode each pool gets its own {@link GuardedDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.datasource.replica-urls")
+public class ReadReplicaConfig {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    @Bean
+    RoutingDataSource dataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            TaskScheduler taskScheduler,
+            @Value("${library.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${library.datasource.replica-check-interval:5s}") Duration checkInterval,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value(GuardedDataSource.PERMITS) int guardPermits,
+            @Value(GuardedDataSource.MAX_WAIT) Duration guardMaxWait) {
+        PoolGuard guard = new PoolGuard(virtualThreads, guardPermits, guardMaxWait, meterRegistry);
+        DataSource primary = guard.apply(pool(properties, properties.determineUrl(), "primary", environment, meterRegistry));
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + i;
+            replicas.put(name, guard.apply(pool(properties, replicaUrls.get(i).trim(), name, environment, meterRegistry)));
+        }
+
+        ReadWriteRoutingDataSource router = new ReadWriteRoutingDataSource(primary, replicas, VALIDATION_TIMEOUT_SECONDS);
+        taskScheduler.scheduleWithFixedDelay(router::checkReplicas, checkInterval);
+        Gauge.builder("library.db.replicas.healthy", router, ReadWriteRoutingDataSource::getHealthyReplicas)
+                .description("Read replicas currently in rotation")
+                .register(meterRegistry);
+        return new RoutingDataSource(router);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String url, String name,
+                                         Environment environment, MeterRegistry meterRegistry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+
+    // In virtual-thread mode, caps the threads at each pool separately; otherwise leaves the pools as they are
+    private static final class PoolGuard {
+        private final boolean virtualThreads;
+        private final int permits;
+        private final Duration maxWait;
+        private final MeterRegistry meterRegistry;
+
+        private PoolGuard(boolean virtualThreads, int permits, Duration maxWait, MeterRegistry meterRegistry) {
+            this.virtualThreads = virtualThreads;
+            this.permits = permits;
+            this.maxWait = maxWait;
+            this.meterRegistry = meterRegistry;
+        }
+
+        private DataSource apply(HikariDataSource pool) {
+            if (!virtualThreads) {
+                return pool;
+            }
+            GuardedDataSource guarded = new GuardedDataSource(pool, permits, maxWait.toMillis());
+            VirtualThreadConfig.registerWaiting(meterRegistry, guarded, pool.getPoolName());
+            return guarded;
+        }
+    }
+
+    /**
+     * The lazy proxy in front of the router; closing it closes the pools.
+     */
+    static class RoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final ReadWriteRoutingDataSource router;
+
+        RoutingDataSource(ReadWriteRoutingDataSource router) {
+            super(router);
+            this.router = router;
+        }
+
+        @Override
+        public void close() throws Exception {
+            router.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.library.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// VirtualThreadConfig.java
+
+/**
+ * Extra wiring for the virtual-thread mode ({@code spring.threads.virtual.enabled=true}).
+ * Spring Boot itself moves Tomcat request handling and the task executors onto
+ * virtual threads; this adds the guard in front of the connection pool and
+ * the pinning report.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    // Guards the auto-configured pool only. With read replicas the pools are not beans: ReadReplicaConfig
+    // guards each one itself, and the routing data source in front of them is left unguarded.
+    @Bean
+    static BeanPostProcessor guardedDataSourcePostProcessor(
+            @Value(GuardedDataSource.PERMITS) int permits,
+            @Value(GuardedDataSource.MAX_WAIT) Duration maxWait) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (!(bean instanceof HikariDataSource)) {
+                    return bean;
+                }
+                return new GuardedDataSource((DataSource) bean, permits, maxWait.toMillis());
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder guardedDataSourceMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(GuardedDataSource.class::isInstance)
+                .map(GuardedDataSource.class::cast)
+                .forEach(guarded -> registerWaiting(registry, guarded, "primary"));
+    }
+
+    static void registerWaiting(MeterRegistry registry, GuardedDataSource guarded, String pool) {
+        Gauge.builder("library.db.guard.waiting", guarded, GuardedDataSource::getQueueLength)
+                .description("Threads waiting for a database connection permit")
+                .tag("pool", pool)
+                .register(registry);
+    }
+
+    @Bean
+    VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${library.virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        return new VirtualThreadPinningMonitor(meterRegistry, threshold);
+    }
+}
@@ -3,24 +3,49 @@ package com.example.library.controller;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import com.example.library.aspect.LogExecutionTime;
+import com.example.library.aspect.LogExecutionTimeEnum;
 import com.example.library.repository.*;
 import com.example.library.entity.*;
 import com.example.library.response.*;
+import com.example.library.feed.BookChangeFeed;
+import com.example.library.request.BatchCirculationRequest;
+import com.example.library.search.CatalogSearchIndex;
+import com.example.library.search.PatronNameIndex;
+import com.example.library.search.RelatedBooksIndex;
+import com.example.library.service.AvailabilityIndex;
+import com.example.library.service.BookImportService;
+import com.example.library.service.CatalogService;
+import com.example.library.service.CirculationResult;
+import com.example.library.service.CirculationService;
+import com.example.library.service.EntityCache;
+import com.example.library.service.LoanHistoryService;
+import com.example.library.service.PatronService;
+import com.example.library.service.ReadYourWrites;
+import com.example.library.service.ResponseBodyCache;
+import com.example.library.service.ResponseBodyCache.SerializedBody;
+import com.example.library.service.SingleFlight;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.validation.BindingResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import io.micrometer.core.annotation.Timed;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 // LibraryController.java
 
@@ -29,6 +54,12 @@ import java.util.Optional;
 @RequestMapping("/api")
 public class LibraryController {
 
+    // Listing endpoints are keyset-paginated; size is capped to bound each response
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final Logger logger = LoggerFactory.getLogger(LibraryController.class);
 
     @Autowired
@@ -43,15 +74,75 @@ public class LibraryController {
     @Autowired
     private MeterRegistry meterRegistry;
 
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private CirculationService circulationService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private PatronService patronService;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    private LoanHistoryService loanHistoryService;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private CatalogSearchIndex catalogSearchIndex;
+
+    @Autowired
+    private PatronNameIndex patronNameIndex;
+
+    @Autowired
+    private RelatedBooksIndex relatedBooksIndex;
+
+    @Autowired
+    private BookChangeFeed bookChangeFeed;
+
     // Book management endpoints
     @GetMapping("/books")
-    @Timed("getAllBooks")
-    public ResponseEntity<?> getAllBooks() {
+    @LogExecutionTime(LogExecutionTimeEnum.LIST_BOOKS)
+    public ResponseEntity<?> getAllBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo
+    ) {
+        long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor provided.");
+        }
+        if (size <= 0) {
+            return ResponseEntity.badRequest().body("Page size must be positive.");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+
         try {
-            logger.info("Fetching all books");
-            List<Book> books = bookRepository.findAll();
-            logger.info("Fetched all books successfully");
-            return ResponseEntity.ok(books);
+            // Fetch one extra row to learn whether a next page exists
+            List<Book> books = bookRepository.findPageAfter(afterId, author, yearFrom, yearTo,
+                    PageRequest.of(0, pageSize + 1));
+            logger.debug("Fetched {} books after cursor {}", books.size(), cursor);
+            CursorPage<Book> page = CursorPage.of(books, pageSize, Book::getId);
+            return ResponseEntity.ok()
+                    .eTag(responseBodyCache.pageEtag(page.getItems(), Book::getId, Book::getVersion, page.getNextCursor()))
+                    .body(page);
         } catch (Exception e) {
             // Log the exception for further investigation
             logger.error("An error occurred while retrieving all books", e);
@@ -59,6 +150,35 @@ public class LibraryController {
         }
     }
 
+    // Server-Sent Events stream of committed book and availability changes, instead of polling /books
+    @GetMapping(value = "/books/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> getBookChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = bookChangeFeed.subscribe(lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body("Too many change feed subscribers, please retry later.");
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Full-text search over title, author and ISBN, answered from the in-memory index
+    @GetMapping("/books/search")
+    @LogExecutionTime(LogExecutionTimeEnum.SEARCH_BOOKS)
+    public ResponseEntity<?> searchBooks(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body("Search query must not be blank.");
+        }
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Limit must be positive.");
+        }
+        List<BookSearchHit> hits = catalogSearchIndex.search(q, Math.min(limit, MAX_SEARCH_RESULTS));
+        return ResponseEntity.ok(hits);
+    }
+
     @GetMapping("/books/{id}")
     public ResponseEntity<?> getBookById(@PathVariable Long id) {
         if (id == null || id <= 0) {
@@ -68,30 +188,40 @@ public class LibraryController {
             return ResponseEntity.badRequest().body(errorMessage);
         }
 
-        Optional<Book> optionalBook = bookRepository.findById(id);
-        return optionalBook.map(ResponseEntity::ok)
+        // If-None-Match is checked by Spring against the ETag before the cached bytes are written
+        Optional<SerializedBody> body;
+        try {
+            body = responseBodyCache.findBook(id);
+        } catch (SingleFlight.WaitTimeoutException e) {
+            return loadBusy("Book", id);
+        }
+        return body.<ResponseEntity<?>>map(cached -> ResponseEntity.ok()
+                        .eTag(cached.getEtag())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(cached.getJson()))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // Requests that queued behind a slow load of the same id are turned away rather than held
+    private ResponseEntity<?> loadBusy(String entity, Long id) {
+        logger.warn("{} {} is still loading, asking the client to retry", entity, id);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(entity + " " + id + " is busy, please retry.");
+    }
+
     @PostMapping("/books")
+    @LogExecutionTime(LogExecutionTimeEnum.ADD_BOOK)
     public ResponseEntity<?> addBook(@Valid @RequestBody Book book, BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
             // If there are validation errors, log and return a 400 Bad Request with the error message
-            StringBuilder errorMessage = new StringBuilder("Validation error(s): ");
-            bindingResult.getAllErrors().forEach(error -> {
-                if (error instanceof FieldError) {
-                    errorMessage.append(((FieldError) error).getField()).append(": ").append(error.getDefaultMessage()).append("; ");
-                } else {
-                    errorMessage.append(error.getDefaultMessage()).append("; ");
-                }
-            });
-
-            logger.error(errorMessage.toString());
-            return ResponseEntity.badRequest().body(errorMessage.toString());
+            String errorMessage = ValidationErrors.describe(bindingResult);
+            logger.error("Rejected new book: {}", errorMessage);
+            return ResponseEntity.badRequest().body(errorMessage);
         }
 
         try {
-            Book savedBook = bookRepository.save(book);
+            Book savedBook = catalogService.addBook(book);
             return ResponseEntity.status(HttpStatus.CREATED).body("Book added successfully");
         } catch (Exception e) {
             // Log the exception for further investigation
@@ -102,37 +232,38 @@ public class LibraryController {
         }
     }
 
+    @PostMapping(value = "/books/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @LogExecutionTime(LogExecutionTimeEnum.IMPORT_BOOKS)
+    public ResponseEntity<?> importBooks(InputStream body) {
+        try {
+            // Rows are validated individually; the response reports every rejected row
+            BulkImportResponse result = bookImportService.importBooks(body);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            // Log the exception for further investigation
+            logger.error("An error occurred while importing books", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while processing the request");
+        }
+    }
+
     @PutMapping("/books/{id}")
+    @LogExecutionTime(LogExecutionTimeEnum.UPDATE_BOOK)
     public ResponseEntity<?> updateBook(@PathVariable Long id, @RequestBody @Valid Book updatedBook, BindingResult bindingResult) {
         try {
-            Optional<Book> optionalBook = bookRepository.findById(id);
-
-            if (optionalBook.isPresent()) {
-                Book existingBook = optionalBook.get();
-
-                // Validate the updatedBook using the provided BindingResult
-                if (bindingResult.hasErrors()) {
-                    StringBuilder errorMessage = new StringBuilder("Validation error(s): ");
-                    bindingResult.getAllErrors().forEach(error -> {
-                        if (error instanceof FieldError) {
-                            errorMessage.append(((FieldError) error).getField()).append(": ").append(error.getDefaultMessage()).append("; ");
-                        } else {
-                            errorMessage.append(error.getDefaultMessage()).append("; ");
-                        }
-                    });
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage.toString());
-                }
-
-                // Perform your additional validation or business logic here before updating
-                // ...
-
-                updatedBook.setId(id);  // Set the ID from the path variable
-                Book savedBook = bookRepository.save(updatedBook);
-                return ResponseEntity.ok(savedBook);
-            } else {
-                // Book with the specified ID not found
-                return ResponseEntity.notFound().build();
+            // Validate the updatedBook using the provided BindingResult
+            if (bindingResult.hasErrors()) {
+                String errorMessage = ValidationErrors.describe(bindingResult);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
             }
+
+            Optional<Book> savedBook = catalogService.updateBook(id, updatedBook);
+            // Book with the specified ID not found if empty
+            return savedBook.<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            // The new copy count conflicts with the loans in progress
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (Exception e) {
             // Log the exception for further investigation
             logger.error("An error occurred while updating the book", e);
@@ -141,21 +272,18 @@ public class LibraryController {
     }
 
     @DeleteMapping("/books/{id}")
+    @LogExecutionTime(LogExecutionTimeEnum.DELETE_BOOK)
     public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
         try {
-            Optional<Book> optionalBook = bookRepository.findById(id);
-
-            if (optionalBook.isPresent()) {
-                Book book = optionalBook.get();
-
-                // Perform any additional checks or validations before deleting
-
-                bookRepository.deleteById(id);
+            if (catalogService.deleteBook(id)) {
                 return ResponseEntity.noContent().build();
             } else {
                 // Book with the specified ID not found
                 return ResponseEntity.notFound().build();
             }
+        } catch (OptimisticLockingFailureException e) {
+            // Changed by another request between our read and our write
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             // Log the exception for further investigation
             logger.error("An error occurred while deleting the book", e);
@@ -163,15 +291,53 @@ public class LibraryController {
         }
     }
 
+    // Answered from the in-memory availability index, without a database query
+    @GetMapping("/books/{id}/availability")
+    public ResponseEntity<?> getBookAvailability(@PathVariable Long id) {
+        OptionalInt availableCopies = availabilityIndex.availableCopies(id);
+        if (!availableCopies.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new AvailabilityResponse(id, availableCopies.getAsInt()));
+    }
+
+    // "Patrons who borrowed this also borrowed", from the in-memory co-occurrence index
+    @GetMapping("/books/{id}/related")
+    public ResponseEntity<?> getRelatedBooks(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Limit must be positive.");
+        }
+        if (!availabilityIndex.availableCopies(id).isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(relatedBooksIndex.related(id, Math.min(limit, relatedBooksIndex.capacity())));
+    }
+
     // Patron management endpoints
     // Implement similar methods for patrons
     @GetMapping("/patrons")
-    public ResponseEntity<List<Patron>> getAllPatrons() {
+    public ResponseEntity<?> getAllPatrons(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+    ) {
+        long afterId;
         try {
-            // Perform any additional checks or validations before fetching all patrons
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor provided.");
+        }
+        if (size <= 0) {
+            return ResponseEntity.badRequest().body("Page size must be positive.");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
 
-            List<Patron> patrons = patronRepository.findAll();
-            return ResponseEntity.ok(patrons);
+        try {
+            List<Patron> patrons = patronRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                    PageRequest.of(0, pageSize + 1));
+            CursorPage<Patron> page = CursorPage.of(patrons, pageSize, Patron::getId);
+            return ResponseEntity.ok()
+                    .eTag(responseBodyCache.pageEtag(page.getItems(), Patron::getId, Patron::getVersion, page.getNextCursor()))
+                    .body(page);
         } catch (Exception e) {
             // Log the exception for further investigation
             logger.error("An error occurred while fetching all patrons", e);
@@ -179,14 +345,36 @@ public class LibraryController {
         }
     }
 
+    // Name autocomplete for the front desk, answered from the in-memory name index
+    @GetMapping("/patrons/suggest")
+    @LogExecutionTime(LogExecutionTimeEnum.SUGGEST_PATRONS)
+    public ResponseEntity<?> suggestPatrons(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        if (prefix.isBlank()) {
+            return ResponseEntity.badRequest().body("Prefix must not be blank.");
+        }
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Limit must be positive.");
+        }
+        List<PatronSuggestion> suggestions = patronNameIndex.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
+        return ResponseEntity.ok(suggestions);
+    }
+
     @GetMapping("/patrons/{id}")
-    public ResponseEntity<Patron> getPatronById(@PathVariable Long id) {
+    public ResponseEntity<?> getPatronById(@PathVariable Long id) {
         try {
             // Perform any additional checks or validations before fetching the patron by ID
 
-            Optional<Patron> optionalPatron = patronRepository.findById(id);
-            return optionalPatron.map(ResponseEntity::ok)
+            Optional<SerializedBody> body = responseBodyCache.findPatron(id);
+            return body.<ResponseEntity<?>>map(cached -> ResponseEntity.ok()
+                            .eTag(cached.getEtag())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(cached.getJson()))
                     .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (SingleFlight.WaitTimeoutException e) {
+            return loadBusy("Patron", id);
         } catch (Exception e) {
             // Log the exception for further investigation
             logger.error("An error occurred while fetching a patron by ID", e);
@@ -195,22 +383,16 @@ public class LibraryController {
     }
 
     @PostMapping("/patrons")
+    @LogExecutionTime(LogExecutionTimeEnum.ADD_PATRON)
     public ResponseEntity<?> addPatron(@Valid @RequestBody Patron patron, BindingResult bindingResult) {
         try {
             if (bindingResult.hasErrors()) {
                 // If there are validation errors, construct a more detailed error message
-                StringBuilder errorMessage = new StringBuilder("Validation error(s): ");
-                bindingResult.getAllErrors().forEach(error -> {
-                    if (error instanceof FieldError) {
-                        errorMessage.append(((FieldError) error).getField()).append(": ").append(error.getDefaultMessage()).append("; ");
-                    } else {
-                        errorMessage.append(error.getDefaultMessage()).append("; ");
-                    }
-                });
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage.toString());
+                String errorMessage = ValidationErrors.describe(bindingResult);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
             }
 
-            Patron savedPatron = patronRepository.save(patron);
+            Patron savedPatron = patronService.addPatron(patron);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedPatron);
         } catch (Exception e) {
             // Log the exception for further investigation
@@ -220,27 +402,20 @@ public class LibraryController {
     }
 
     @PutMapping("/patrons/{id}")
+    @LogExecutionTime(LogExecutionTimeEnum.UPDATE_PATRON)
     public ResponseEntity<?> updatePatron(@PathVariable Long id, @Valid @RequestBody Patron updatedPatron, BindingResult bindingResult) {
         try {
             if (bindingResult.hasErrors()) {
                 // If there are validation errors, construct a more detailed error message
-                StringBuilder errorMessage = new StringBuilder("Validation error(s): ");
-                bindingResult.getAllErrors().forEach(error -> {
-                    if (error instanceof FieldError) {
-                        errorMessage.append(((FieldError) error).getField()).append(": ").append(error.getDefaultMessage()).append("; ");
-                    } else {
-                        errorMessage.append(error.getDefaultMessage()).append("; ");
-                    }
-                });
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage.toString());
+                String errorMessage = ValidationErrors.describe(bindingResult);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
             }
 
-            Optional<Patron> optionalPatron = patronRepository.findById(id);
-            return optionalPatron.map(patron -> {
-                updatedPatron.setId(id);  // Set the ID from the path variable
-                Patron savedPatron = patronRepository.save(updatedPatron);
-                return ResponseEntity.ok(savedPatron);
-            }).orElseGet(() -> ResponseEntity.notFound().build());
+            Optional<Patron> savedPatron = patronService.updatePatron(id, updatedPatron);
+            return savedPatron.<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The patron was changed by another request; try again.");
         } catch (Exception e) {
             // Log the exception for further investigation
             logger.error("An error occurred while updating a patron", e);
@@ -249,15 +424,16 @@ public class LibraryController {
     }
 
     @DeleteMapping("/patrons/{id}")
+    @LogExecutionTime(LogExecutionTimeEnum.DELETE_PATRON)
     public ResponseEntity<?> deletePatron(@PathVariable Long id) {
         try {
-            Optional<Patron> optionalPatron = patronRepository.findById(id);
-            if (optionalPatron.isPresent()) {
-                patronRepository.deleteById(id);
+            if (patronService.deletePatron(id)) {
                 return ResponseEntity.noContent().build();
             } else {
                 return ResponseEntity.notFound().build();
             }
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The patron was changed by another request; try again.");
         } catch (Exception e) {
             // Log the exception for further investigation
             logger.error("An error occurred while deleting a patron", e);
@@ -269,80 +445,190 @@ public class LibraryController {
     // Implement methods for borrowing and returning books
 
     @PostMapping("/borrow/{bookId}/patron/{patronId}")
+    @LogExecutionTime(LogExecutionTimeEnum.BORROW_BOOK)
     public ResponseEntity<?> borrowBook(
             @PathVariable Long bookId,
             @PathVariable Long patronId
     ) {
-        Optional<Book> optionalBook = bookRepository.findById(bookId);
-        Optional<Patron> optionalPatron = patronRepository.findById(patronId);
-
-        if (!optionalBook.isPresent()) {
-            // Book not found
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Book with ID " + bookId + " not found.");
+        // Copy counts and the one-open-loan-per-patron rule are enforced atomically by the service
+        CirculationResult result = circulationService.borrow(bookId, patronId);
+
+        switch (result.getStatus()) {
+            case BOOK_NOT_FOUND:
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Book with ID " + bookId + " not found.");
+            case PATRON_NOT_FOUND:
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Patron with ID " + patronId + " not found.");
+            case ALREADY_BORROWED:
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Book is already borrowed.");
+            case NO_COPIES_AVAILABLE:
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("No copies of book with ID " + bookId + " are available.");
+            default:
+                return ResponseEntity.status(HttpStatus.CREATED).body(result.getBorrowingRecord());
         }
+    }
 
-        if (!optionalPatron.isPresent()) {
-            // Patron not found
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Patron with ID " + patronId + " not found.");
+    // Borrow a stack of books for one patron in a single transaction
+    @PostMapping("/borrow/batch")
+    @LogExecutionTime(LogExecutionTimeEnum.BORROW_BOOKS)
+    public ResponseEntity<?> borrowBooks(@Valid @RequestBody BatchCirculationRequest request, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            String errorMessage = ValidationErrors.describe(bindingResult);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
         }
 
-        Book book = optionalBook.get();
-        Patron patron = optionalPatron.get();
-
-        // Implement your business logic for borrowing here
-
-        Optional<BorrowingRecord> ongoingBorrowingRecord =
-                borrowingRecordRepository.findByBookAndPatronAndReturnDateIsNull(book, patron);
-
-        if (!ongoingBorrowingRecord.isPresent()) {
-            // Book is available for borrowing
-
-            BorrowingRecord borrowingRecord = new BorrowingRecord();
-            borrowingRecord.setBook(book);
-            borrowingRecord.setPatron(patron);
-            borrowingRecord.setBorrowDate(LocalDate.now());
-
-            borrowingRecordRepository.save(borrowingRecord);
-
-            return ResponseEntity.status(HttpStatus.CREATED).body(borrowingRecord);
-        } else {
-            // Book is already borrowed
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Book is already borrowed.");
+        try {
+            Optional<BatchCirculationResponse> result =
+                    circulationService.borrowBatch(request.getPatronId(), request.getBookIds());
+            if (!result.isPresent()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Patron with ID " + request.getPatronId() + " not found.");
+            }
+            return ResponseEntity.ok(result.get());
+        } catch (Exception e) {
+            // Log the exception for further investigation
+            logger.error("An error occurred while borrowing a batch of books", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while processing the request");
         }
     }
 
     // Record the return of a borrowed book
     @PutMapping("/return/{bookId}/patron/{patronId}")
+    @LogExecutionTime(LogExecutionTimeEnum.RETURN_BOOK)
     public ResponseEntity<String> returnBook(
             @PathVariable Long bookId,
             @PathVariable Long patronId
     ) {
-        Optional<Book> optionalBook = bookRepository.findById(bookId);
-        Optional<Patron> optionalPatron = patronRepository.findById(patronId);
+        CirculationResult result = circulationService.giveBack(bookId, patronId);
+
+        switch (result.getStatus()) {
+            case BOOK_NOT_FOUND:
+            case PATRON_NOT_FOUND:
+                // Book or Patron not found
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("Book or Patron not found. Book ID: " + bookId + ", Patron ID: " + patronId);
+            case NOT_BORROWED:
+                // Borrowing record not found
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("Borrowing record not found for Book ID: " + bookId + ", Patron ID: " + patronId);
+            default:
+                return ResponseEntity.ok("Book returned successfully. Borrowing Record ID: " + result.getBorrowingRecord().getId());
+        }
+    }
 
-        if (!optionalBook.isPresent() || !optionalPatron.isPresent()) {
-            // Book or Patron not found
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body("Book or Patron not found. Book ID: " + bookId + ", Patron ID: " + patronId);
+    // Return a stack of books for one patron in a single transaction
+    @PutMapping("/return/batch")
+    @LogExecutionTime(LogExecutionTimeEnum.RETURN_BOOKS)
+    public ResponseEntity<?> returnBooks(@Valid @RequestBody BatchCirculationRequest request, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            String errorMessage = ValidationErrors.describe(bindingResult);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
         }
 
-        Book book = optionalBook.get();
-        Patron patron = optionalPatron.get();
+        try {
+            Optional<BatchCirculationResponse> result =
+                    circulationService.returnBatch(request.getPatronId(), request.getBookIds());
+            if (!result.isPresent()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Patron with ID " + request.getPatronId() + " not found.");
+            }
+            return ResponseEntity.ok(result.get());
+        } catch (Exception e) {
+            // Log the exception for further investigation
+            logger.error("An error occurred while returning a batch of books", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while processing the request");
+        }
+    }
 
-        // Implement your business logic for returning here
+    // Loan endpoints
 
-        Optional<BorrowingRecord> optionalBorrowingRecord =
-                borrowingRecordRepository.findByBookAndPatronAndReturnDateIsNull(book, patron);
+    // Open loans past their due date, in loan id order
+    @GetMapping("/loans/overdue")
+    public ResponseEntity<?> getOverdueLoans(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+    ) {
+        long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor provided.");
+        }
+        if (size <= 0) {
+            return ResponseEntity.badRequest().body("Page size must be positive.");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+
+        try {
+            List<OverdueLoan> loans = borrowingRecordRepository.findOverduePage(LocalDate.now(), afterId,
+                    PageRequest.of(0, pageSize + 1));
+            return ResponseEntity.ok(CursorPage.of(loans, pageSize, OverdueLoan::getId));
+        } catch (Exception e) {
+            // Log the exception for further investigation
+            logger.error("An error occurred while fetching overdue loans", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Loan history of one patron, archived loans included, oldest first; activeOnly keeps the loans not yet returned
+    @GetMapping("/patrons/{id}/loans")
+    public ResponseEntity<?> getPatronLoans(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = "false") boolean activeOnly
+    ) {
+        long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor provided.");
+        }
+        if (size <= 0) {
+            return ResponseEntity.badRequest().body("Page size must be positive.");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+
+        try {
+            if (entityCache.findPatron(id).isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            List<LoanSummary> loans = readYourWrites.forPatron(id,
+                    () -> loanHistoryService.patronLoans(id, afterId, pageSize + 1, activeOnly));
+            return ResponseEntity.ok(CursorPage.of(loans, pageSize, LoanSummary::getId));
+        } catch (Exception e) {
+            // Log the exception for further investigation
+            logger.error("An error occurred while fetching the loans of a patron", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 
-        if (optionalBorrowingRecord.isPresent()) {
-            BorrowingRecord borrowingRecord = optionalBorrowingRecord.get();
-            borrowingRecord.setReturnDate(LocalDate.now());
-            borrowingRecordRepository.save(borrowingRecord);
-            return ResponseEntity.ok("Book returned successfully. Borrowing Record ID: " + borrowingRecord.getId());
-        } else {
-            // Borrowing record not found
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body("Borrowing record not found for Book ID: " + bookId + ", Patron ID: " + patronId);
+    // Loan history of one book, oldest first
+    @GetMapping("/books/{id}/loans")
+    public ResponseEntity<?> getBookLoans(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = "false") boolean activeOnly
+    ) {
+        long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor provided.");
+        }
+        if (size <= 0) {
+            return ResponseEntity.badRequest().body("Page size must be positive.");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+
+        try {
+            if (entityCache.findBook(id).isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            List<LoanSummary> loans = loanHistoryService.bookLoans(id, afterId, pageSize + 1, activeOnly);
+            return ResponseEntity.ok(CursorPage.of(loans, pageSize, LoanSummary::getId));
+        } catch (Exception e) {
+            // Log the exception for further investigation
+            logger.error("An error occurred while fetching the loans of a book", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 }
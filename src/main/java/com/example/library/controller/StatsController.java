@@ -0,0 +1,73 @@
+package com.example.library.controller;
+
+import com.example.library.response.HotKey;
+import com.example.library.service.ResponseBodyCache;
+import com.example.library.stats.CirculationStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// StatsController.java
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private static final int MAX_TOP = 100;
+
+    @Autowired
+    private CirculationStats circulationStats;
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    // All answers come from in-memory counters; none of them queries the database
+
+    @GetMapping("/loans")
+    public ResponseEntity<?> getLoanTotals() {
+        return ResponseEntity.ok(circulationStats.totals());
+    }
+
+    @GetMapping("/top-books")
+    public ResponseEntity<?> getTopBooks(@RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Limit must be positive.");
+        }
+        return ResponseEntity.ok(circulationStats.topBooks(Math.min(limit, MAX_TOP)));
+    }
+
+    @GetMapping("/top-authors")
+    public ResponseEntity<?> getTopAuthors(@RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Limit must be positive.");
+        }
+        return ResponseEntity.ok(circulationStats.topAuthors(Math.min(limit, MAX_TOP)));
+    }
+
+    @GetMapping("/borrows-per-day")
+    public ResponseEntity<?> getBorrowsPerDay(@RequestParam(defaultValue = "30") int days) {
+        if (days <= 0) {
+            return ResponseEntity.badRequest().body("Days must be positive.");
+        }
+        return ResponseEntity.ok(circulationStats.borrowsPerDay(days));
+    }
+
+    // Single-book and single-patron ids whose cache misses were most often shared by concurrent requests
+    @GetMapping("/hot-keys")
+    public ResponseEntity<?> getHotKeys(@RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Limit must be positive.");
+        }
+        Map<String, List<HotKey>> hotKeys = new LinkedHashMap<>();
+        hotKeys.put("books", responseBodyCache.hotBooks(Math.min(limit, MAX_TOP)));
+        hotKeys.put("patrons", responseBodyCache.hotPatrons(Math.min(limit, MAX_TOP)));
+        return ResponseEntity.ok(hotKeys);
+    }
+}
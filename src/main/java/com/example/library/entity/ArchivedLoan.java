@@ -0,0 +1,61 @@
+package com.example.library.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// ArchivedLoan.java
+
+/**
+ * A returned loan moved out of {@link BorrowingRecord} by the archiver, so
+ * the table the circulation hot path queries holds only open and recent
+ * loans. Rows keep their original id and are never modified.
+ */
+@Entity
+@Table(name = "loan_history", indexes = {
+        // History pages are keyset-paginated on id within one patron or book
+        @Index(name = "idx_loan_history_patron_id", columnList = "patron_id, id"),
+        @Index(name = "idx_loan_history_book_id", columnList = "book_id, id"),
+        @Index(name = "idx_loan_history_borrow_date", columnList = "borrow_date")
+})
+public class ArchivedLoan {
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patron_id")
+    private Patron patron;
+
+    private LocalDate borrowDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public Patron getPatron() {
+        return patron;
+    }
+
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+}
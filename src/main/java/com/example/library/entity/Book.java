@@ -1,15 +1,32 @@
 package com.example.library.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Check;
 
 @Entity
+@Table(indexes = {
+        // Support the keyset listing filters without losing the id ordering
+        @Index(name = "idx_book_author_id", columnList = "author, id"),
+        @Index(name = "idx_book_publication_year_id", columnList = "publication_year, id")
+})
+// Last line of defence for the conditional updates in BookRepository
+@Check(constraints = "available_copies >= 0 AND available_copies <= total_copies")
 public class Book {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
     @NotBlank(message = "Title is required")
     private String title;
@@ -17,6 +34,17 @@ public class Book {
     private String author;
     private int publicationYear;
     private String isbn;
+    // Null only on input: left out of a new book it means one copy, left out of an update it means unchanged
+    @Min(value = 1, message = "Total copies must be at least 1")
+    @Column(nullable = false)
+    private Integer totalCopies;
+    // Changed only by checkout/checkin queries in BookRepository, never by clients
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int availableCopies = 1;
+    // Bumped on every change, including checkouts and checkins; the ETag of GET /api/books/{id}
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
     // other fields, getters, setters
     public Long getId() {
         return id;
@@ -57,4 +85,29 @@ public class Book {
     public void setIsbn(String isbn) {
         this.isbn = isbn;
     }
+
+    public Integer getTotalCopies() {
+        return totalCopies;
+    }
+
+    public void setTotalCopies(Integer totalCopies) {
+        this.totalCopies = totalCopies;
+    }
+
+    public int getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public void setAvailableCopies(int availableCopies) {
+        this.availableCopies = availableCopies;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Only for rows read without JPA, by the reactive API
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -4,20 +4,30 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = {
+        // Open loans (return_date IS NULL) in due-date order, for the overdue scan and listing
+        @Index(name = "idx_borrowing_record_return_due", columnList = "return_date, due_date"),
+        // Loan history of a patron or a book, optionally only the open loans
+        @Index(name = "idx_borrowing_record_patron_return", columnList = "patron_id, return_date"),
+        @Index(name = "idx_borrowing_record_book_return", columnList = "book_id, return_date")
+})
 public class BorrowingRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "borrowing_record_seq")
+    @SequenceGenerator(name = "borrowing_record_seq", sequenceName = "borrowing_record_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    // Lazy: most reads need only the ids; queries that need more fetch-join or project
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id")
     private Book book;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patron_id")
     private Patron patron;
 
     private LocalDate borrowDate;
+    private LocalDate dueDate;
     private LocalDate returnDate;
 
     // Getter and Setter for 'id'
@@ -56,6 +66,15 @@ public class BorrowingRecord {
         this.borrowDate = borrowDate;
     }
 
+    // Getter and Setter for 'dueDate'
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDate = dueDate;
+    }
+
     // Getter and Setter for 'returnDate'
     public LocalDate getReturnDate() {
         return returnDate;
@@ -1,21 +1,29 @@
 // Patron.java
 package com.example.library.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 
 @Entity
 public class Patron {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patron_seq")
+    @SequenceGenerator(name = "patron_seq", sequenceName = "patron_seq", allocationSize = 50)
     private Long id;
     @NotBlank(message = "Name is required")
     private String name;
     @NotBlank(message = "Contact information is required")
     private String contactInformation;
+    // The ETag of GET /api/patrons/{id}
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
     // other fields, getters, setters
 
     // Getter and Setter for 'id'
@@ -46,4 +54,13 @@ public class Patron {
     }
 
     // Other getter and setter methods for additional fields if needed
+
+    // Getter and Setter for 'version'; the setter is only for rows read without JPA
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
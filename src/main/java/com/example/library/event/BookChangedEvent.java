@@ -0,0 +1,46 @@
+package com.example.library.event;
+
+import com.example.library.entity.Book;
+
+// BookChangedEvent.java
+
+/**
+ * Published by {@code CatalogService} inside the transaction that adds,
+ * updates or deletes a book. {@code previous} is the state before the change
+ * (null on CREATED) and {@code current} the state after it (null on DELETED).
+ */
+public class BookChangedEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Book previous;
+    private final Book current;
+
+    public BookChangedEvent(Type type, Book previous, Book current) {
+        this.type = type;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public Long getBookId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+
+    // Getters
+
+    public Type getType() {
+        return type;
+    }
+
+    public Book getPrevious() {
+        return previous;
+    }
+
+    public Book getCurrent() {
+        return current;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.library.event;
+
+import java.time.LocalDate;
+
+// CirculationEvent.java
+
+/**
+ * Published by {@code CirculationService} inside the borrowing transaction.
+ * Listeners that keep in-memory state should use
+ * {@code @TransactionalEventListener} so they only see committed changes.
+ */
+public class CirculationEvent {
+    public enum Type {
+        BORROWED,
+        RETURNED
+    }
+
+    private final Type type;
+    private final Long borrowingRecordId;
+    private final Long bookId;
+    private final Long patronId;
+    private final LocalDate date;
+
+    public CirculationEvent(Type type, Long borrowingRecordId, Long bookId, Long patronId, LocalDate date) {
+        this.type = type;
+        this.borrowingRecordId = borrowingRecordId;
+        this.bookId = bookId;
+        this.patronId = patronId;
+        this.date = date;
+    }
+
+    // Getters
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getBorrowingRecordId() {
+        return borrowingRecordId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Long getPatronId() {
+        return patronId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+}
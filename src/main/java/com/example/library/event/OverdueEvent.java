@@ -0,0 +1,41 @@
+package com.example.library.event;
+
+import java.time.LocalDate;
+
+// OverdueEvent.java
+
+/**
+ * Published by {@code OverdueMonitor} once for each open loan whose due date
+ * has passed. After a restart, loans that are still overdue are announced again.
+ */
+public class OverdueEvent {
+    private final Long borrowingRecordId;
+    private final Long bookId;
+    private final Long patronId;
+    private final LocalDate dueDate;
+
+    public OverdueEvent(Long borrowingRecordId, Long bookId, Long patronId, LocalDate dueDate) {
+        this.borrowingRecordId = borrowingRecordId;
+        this.bookId = bookId;
+        this.patronId = patronId;
+        this.dueDate = dueDate;
+    }
+
+    // Getters
+
+    public Long getBorrowingRecordId() {
+        return borrowingRecordId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Long getPatronId() {
+        return patronId;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.library.event;
+
+import com.example.library.entity.Patron;
+
+// PatronChangedEvent.java
+
+/**
+ * Published by {@code PatronService} inside the transaction that adds,
+ * updates or deletes a patron; same shape as {@link BookChangedEvent}.
+ */
+public class PatronChangedEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Patron previous;
+    private final Patron current;
+
+    public PatronChangedEvent(Type type, Patron previous, Patron current) {
+        this.type = type;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public Long getPatronId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+
+    // Getters
+
+    public Type getType() {
+        return type;
+    }
+
+    public Patron getPrevious() {
+        return previous;
+    }
+
+    public Patron getCurrent() {
+        return current;
+    }
+}
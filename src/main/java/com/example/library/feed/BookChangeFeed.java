@@ -0,0 +1,397 @@
+package com.example.library.feed;
+
+import com.example.library.entity.Book;
+import com.example.library.event.BookChangedEvent;
+import com.example.library.event.CirculationEvent;
+import com.example.library.response.BookChange;
+import com.example.library.service.AvailabilityIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// BookChangeFeed.java
+
+/**
+ * Server-Sent Events feed of committed catalog and availability changes,
+ * behind {@code GET /api/books/changes}.
+ *
+ * <p>Each change is serialized once and appended to a {@link ChangeRing} of
+ * the last {@code library.feed.buffer-size} events; the commit thread does
+ * nothing else, so publishers never wait for subscribers. A dispatcher thread
+ * wakes on new events and hands every subscriber that is behind to a small
+ * pool of sender threads, which write its events from its own cursor in the
+ * ring. A subscriber is scheduled at most once at a time, so a slow one holds
+ * one sender and only falls further behind; once its next event has been
+ * overwritten it gets a {@code reset} event and continues from the newest.
+ *
+ * <p>Emitter writes block, and a blocked write cannot be cancelled: the
+ * emitter's own lock is held until the container gives up on the socket. A
+ * watchdog therefore drops any subscriber whose write has taken longer than
+ * {@code library.feed.write-timeout} and adds a spare sender for as long as
+ * the write stays blocked, so other subscribers keep their senders. The
+ * emitter is completed as soon as the write returns.
+ *
+ * <p>Event ids are {@code <start time>-<sequence>}. A reconnect with a
+ * {@code Last-Event-ID} still in the ring resumes right after it; one from an
+ * earlier run of the server, or too old, starts with {@code reset}.
+ */
+@Component
+public class BookChangeFeed {
+
+    private final Logger logger = LoggerFactory.getLogger(BookChangeFeed.class);
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @Value("${library.feed.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${library.feed.senders:8}")
+    private int senders;
+
+    @Value("${library.feed.batch-size:256}")
+    private int batchSize;
+
+    @Value("${library.feed.max-subscribers:50000}")
+    private int maxSubscribers;
+
+    @Value("${library.feed.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${library.feed.heartbeat:20s}")
+    private Duration heartbeat;
+
+    @Value("${library.feed.write-timeout:10s}")
+    private Duration writeTimeout;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ChangeRing ring;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile boolean running = true;
+    private ThreadPoolExecutor senderPool;
+    // Senders currently stuck in a timed-out write, each replaced by a spare
+    private int stalledSenders;
+    private Thread dispatcher;
+    private ScheduledFuture<?> heartbeats;
+    private ScheduledFuture<?> watchdog;
+    private Counter resets;
+    private Counter stalls;
+
+    @PostConstruct
+    void start() {
+        ring = new ChangeRing(bufferSize);
+        AtomicInteger threads = new AtomicInteger();
+        senderPool = new ThreadPoolExecutor(senders, senders, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "book-feed-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher = new Thread(this::dispatch, "book-feed-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        heartbeats = taskScheduler.scheduleWithFixedDelay(this::heartbeat, heartbeat);
+        watchdog = taskScheduler.scheduleWithFixedDelay(this::dropStalled, writeTimeout.dividedBy(2));
+
+        Gauge.builder("library.feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open change feed connections")
+                .register(meterRegistry);
+        Gauge.builder("library.feed.sequence", ring, ChangeRing::head)
+                .description("Sequence number of the newest change feed event")
+                .register(meterRegistry);
+        resets = Counter.builder("library.feed.resets")
+                .description("Subscribers told to reload because their events were no longer buffered")
+                .register(meterRegistry);
+        stalls = Counter.builder("library.feed.stalls")
+                .description("Subscribers dropped because a write blocked longer than the write timeout")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        heartbeats.cancel(false);
+        watchdog.cancel(false);
+        LockSupport.unpark(dispatcher);
+        senderPool.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Opens a feed connection, or returns null when the subscriber limit is reached.
+     *
+     * @param lastEventId the {@code Last-Event-ID} of a reconnecting client, or null
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(timeout.toMillis()));
+    }
+
+    // Package-private so that tests can pass emitters that record or block
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        long head = ring.head();
+        long resumeAfter = resumePoint(lastEventId, head);
+        Subscriber subscriber = new Subscriber(emitter, resumeAfter < 0 ? head : resumeAfter);
+        subscriber.resetPending = resumeAfter < 0 && lastEventId != null;
+        subscriber.heartbeatDue = true;
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    // The sequence to resume after, or -1 if the id is missing, foreign or no longer buffered
+    private long resumePoint(String lastEventId, long head) {
+        if (lastEventId == null) {
+            return -1;
+        }
+        int dash = lastEventId.indexOf('-');
+        if (dash < 0 || !epoch.equals(lastEventId.substring(0, dash))) {
+            return -1;
+        }
+        try {
+            long sequence = Long.parseLong(lastEventId.substring(dash + 1));
+            boolean buffered = sequence == head || (sequence >= 0 && sequence < head && ring.get(sequence + 1) != null);
+            return buffered ? sequence : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCirculation(CirculationEvent event) {
+        publish("availability", event.getBookId(), null, null);
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        Book book = event.getCurrent();
+        switch (event.getType()) {
+            case CREATED -> publish("created", event.getBookId(), book.getTitle(), book.getAuthor());
+            case UPDATED -> publish("updated", event.getBookId(), book.getTitle(), book.getAuthor());
+            case DELETED -> publish("deleted", event.getBookId(), null, null);
+        }
+    }
+
+    private void publish(String type, Long bookId, String title, String author) {
+        appendLock.lock();
+        try {
+            // Read under the lock so that a later sequence never carries an older count
+            OptionalInt copies = availabilityIndex.availableCopies(bookId);
+            ring.append(json(new BookChange(type, bookId, title, author,
+                    copies.isPresent() ? copies.getAsInt() : null)));
+        } finally {
+            appendLock.unlock();
+        }
+        pending.set(true);
+        LockSupport.unpark(dispatcher);
+    }
+
+    private String json(BookChange change) {
+        try {
+            return objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Dispatcher thread: after each wake-up, schedules every subscriber that is behind
+    private void dispatch() {
+        while (running) {
+            if (!pending.getAndSet(false)) {
+                LockSupport.park(this);
+                continue;
+            }
+            long head = ring.head();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.cursor < head) {
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    // Watchdog: gives up on subscribers stuck in a write and replaces the senders they hold
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.writeStarted.get();
+            if (started != 0 && started != Subscriber.STALLED && now - started > writeTimeout.toNanos()
+                    && subscriber.writeStarted.compareAndSet(started, Subscriber.STALLED)) {
+                remove(subscriber);
+                stalls.increment();
+                resizeSenders(1);
+                logger.debug("Change feed subscriber dropped after a write blocked for {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(now - started));
+            }
+        }
+    }
+
+    private synchronized void resizeSenders(int delta) {
+        stalledSenders += delta;
+        int size = senders + stalledSenders;
+        // The maximum must never drop below the core size
+        if (delta > 0) {
+            senderPool.setMaximumPoolSize(size);
+            senderPool.setCorePoolSize(size);
+        } else {
+            senderPool.setCorePoolSize(size);
+            senderPool.setMaximumPoolSize(size);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                senderPool.execute(subscriber::drain);
+            } catch (RuntimeException e) {
+                // Shutting down
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private final class Subscriber {
+        // writeStarted value once the watchdog has given up on the write in progress
+        private static final long STALLED = -1;
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // nanoTime at which the write in progress started, 0 when not writing
+        private final AtomicLong writeStarted = new AtomicLong();
+        // Sequence of the last event sent; only the sender holding scheduled touches it
+        private volatile long cursor;
+        private volatile boolean resetPending;
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        private void drain() {
+            try {
+                sendPending();
+                scheduled.set(false);
+                // Still behind after a batch, or an event arrived while this subscriber was
+                // scheduled: go to the back of the queue so one backlog cannot hog a sender
+                if (cursor < ring.head()) {
+                    schedule(this);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone or emitter completed; scheduled stays set so it is never picked up again
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void sendPending() throws IOException {
+            if (resetPending) {
+                sendReset();
+            }
+            long head = ring.head();
+            if (cursor >= head && heartbeatDue) {
+                heartbeatDue = false;
+                send(SseEmitter.event().comment(""));
+                return;
+            }
+            for (int sent = 0; cursor < head && sent < batchSize; sent++) {
+                long sequence = cursor + 1;
+                ChangeRing.Entry entry = ring.get(sequence);
+                if (entry == null) {
+                    sendReset();
+                    return;
+                }
+                send(SseEmitter.event()
+                        .id(epoch + "-" + sequence)
+                        .data(entry.json, MediaType.APPLICATION_JSON));
+                cursor = sequence;
+            }
+            heartbeatDue = false;
+        }
+
+        private void sendReset() throws IOException {
+            resetPending = false;
+            long head = ring.head();
+            resets.increment();
+            logger.debug("Change feed subscriber reset to sequence {}", head);
+            send(SseEmitter.event()
+                    .id(epoch + "-" + head)
+                    .data(json(new BookChange("reset", null, null, null, null)), MediaType.APPLICATION_JSON));
+            cursor = head;
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            long now = System.nanoTime();
+            writeStarted.set(now == 0 || now == STALLED ? 1 : now);
+            try {
+                emitter.send(event);
+            } finally {
+                if (writeStarted.getAndSet(0) == STALLED) {
+                    // The watchdog gave this write up and replaced the sender; hand the spare back
+                    resizeSenders(-1);
+                    throw new IOException("Change feed write blocked longer than " + writeTimeout);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.library.feed;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// ChangeRing.java
+
+/**
+ * Fixed-size ring of the most recent feed events, addressed by sequence
+ * number. One writer at a time appends (callers serialize appends); any
+ * number of readers look entries up without locking. A slot holds its
+ * sequence, so a reader that fell more than a ring behind notices that its
+ * entry was overwritten instead of reading a newer one.
+ */
+final class ChangeRing {
+
+    static final class Entry {
+        final long sequence;
+        final String json;
+
+        private Entry(long sequence, String json) {
+            this.sequence = sequence;
+            this.json = json;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    // Sequence of the newest entry; 0 before the first append
+    private volatile long head;
+
+    ChangeRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    long append(String json) {
+        long sequence = head + 1;
+        slots.set((int) (sequence & mask), new Entry(sequence, json));
+        head = sequence;
+        return sequence;
+    }
+
+    long head() {
+        return head;
+    }
+
+    /**
+     * @return the entry, or null if it has not been written yet or was overwritten
+     */
+    Entry get(long sequence) {
+        Entry entry = slots.get((int) (sequence & mask));
+        return entry != null && entry.sequence == sequence ? entry : null;
+    }
+}
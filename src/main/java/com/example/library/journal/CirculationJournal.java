@@ -0,0 +1,395 @@
+package com.example.library.journal;
+
+import com.example.library.event.CirculationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+// CirculationJournal.java
+
+/**
+ * Write-ahead journal of borrows and returns, so circulation survives a
+ * restart of the in-memory database ({@code library.journal.enabled=true}).
+ *
+ * <p>The events of a transaction are collected while it runs. Just before it
+ * commits, the pending JPA changes are flushed, the events are appended
+ * together, and the committing thread waits until they are on disk; only then
+ * does the database commit. A failed append or fsync throws at that point and
+ * rolls the transaction back, so a request never succeeds without its events
+ * in the journal. A single sync thread does the
+ * fsyncs (group commit): after the first unsynced append it waits up to
+ * {@code sync-interval}, or until {@code sync-every} events are pending, and
+ * makes everything written so far durable with one {@code force}. Segments
+ * roll over at {@code segment-size}. {@link JournalReplayer} replays the
+ * segments of earlier runs at startup.
+ *
+ * <p>A failed append or fsync leaves the journal broken: from then on every
+ * circulation transaction is rejected. The reverse case, a database commit
+ * that fails after its events reached the disk, is logged and counted; replay
+ * would restore those loans. Only circulation is journaled, so books and
+ * patrons have to come from {@link com.example.library.snapshot.CatalogSnapshot}:
+ * the journal refuses to start unless {@code library.snapshot.enabled} is set too.
+ */
+@Component
+@ConditionalOnProperty(name = "library.journal.enabled", havingValue = "true")
+public class CirculationJournal {
+
+    private final Logger logger = LoggerFactory.getLogger(CirculationJournal.class);
+
+    @Value("${library.journal.directory:data/journal}")
+    private Path directory;
+
+    @Value("${library.journal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${library.journal.sync-every:64}")
+    private int syncEvery;
+
+    @Value("${library.journal.sync-interval:1ms}")
+    private Duration syncInterval;
+
+    @Value("${library.snapshot.enabled:false}")
+    private boolean snapshotEnabled;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Guards the channel and the LSN counters; the fsync itself runs outside it
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition syncRequested = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel channel;
+    private long segmentFirstLsn;
+    private long segmentBytes;
+    // First LSN written by this run; everything before it belongs to earlier runs
+    private long firstLsn;
+    private long lastLsn;
+    private long syncedLsn;
+    private IOException failure;
+    private volatile boolean running;
+    private Thread syncThread;
+    private Timer syncTimer;
+    private Counter unmatchedEvents;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!snapshotEnabled) {
+            throw new IllegalStateException("library.journal.enabled requires library.snapshot.enabled: "
+                    + "the journal records circulation only, books and patrons are restored from the snapshot");
+        }
+        Files.createDirectories(directory);
+        lastLsn = recoverLastLsn();
+        firstLsn = lastLsn + 1;
+        syncedLsn = lastLsn;
+        openSegment(firstLsn);
+
+        syncTimer = Timer.builder("library.journal.sync")
+                .description("Time to fsync the circulation journal")
+                .register(meterRegistry);
+        FunctionCounter.builder("library.journal.events", this, journal -> journal.lastLsn - journal.firstLsn + 1)
+                .description("Circulation events appended to the journal by this run")
+                .register(meterRegistry);
+        Gauge.builder("library.journal.unsynced", this, journal -> journal.lastLsn - journal.syncedLsn)
+                .description("Journal events written but not yet fsynced")
+                .register(meterRegistry);
+        unmatchedEvents = Counter.builder("library.journal.unmatched")
+                .description("Journaled circulation events whose transaction then failed to commit")
+                .register(meterRegistry);
+
+        running = true;
+        syncThread = new Thread(this::syncLoop, "circulation-journal-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+        logger.info("Circulation journal open in {} at LSN {}", directory.toAbsolutePath(), firstLsn);
+    }
+
+    @PreDestroy
+    void close() throws IOException, InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            syncRequested.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        syncThread.join(TimeUnit.SECONDS.toMillis(5));
+
+        lock.lock();
+        try {
+            channel.force(false);
+            syncedLsn = lastLsn;
+            synced.signalAll();
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Collects the events of the surrounding transaction; they are journaled just before it commits
+    @EventListener
+    public void onCirculation(CirculationEvent event) {
+        // A broken journal fails the request here, while its transaction can still roll back
+        lock.lock();
+        try {
+            checkHealthy();
+        } finally {
+            lock.unlock();
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            awaitSynced(append(List.of(event)));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<CirculationEvent> events = (List<CirculationEvent>) TransactionSynchronizationManager.getResource(this);
+        if (events == null) {
+            List<CirculationEvent> transactionEvents = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionEvents);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean journaled;
+
+                // Throwing here rolls the transaction back
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Statements that would fail at commit fail now, before their events are journaled
+                    if (entityManager.isJoinedToTransaction()) {
+                        entityManager.flush();
+                    }
+                    awaitSynced(append(transactionEvents));
+                    journaled = true;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CirculationJournal.this);
+                    if (journaled && status != STATUS_COMMITTED) {
+                        unmatchedEvents.increment(transactionEvents.size());
+                        logger.error("{} journaled circulation events belong to a transaction that did not commit;"
+                                + " a replay of this journal would restore them", transactionEvents.size());
+                    }
+                }
+            });
+            events = transactionEvents;
+        }
+        events.add(event);
+    }
+
+    // LSN of the first record this run wrote; replay covers the records before it
+    public long getFirstLsn() {
+        return firstLsn;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // LSN of the last record appended, synced or not
+    public long getLastLsn() {
+        lock.lock();
+        try {
+            return lastLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments whose records all have an LSN at or below the given
+     * one, for example once a snapshot covers them. The open segment is kept.
+     */
+    public void deleteSegmentsThrough(long lsn) throws IOException {
+        List<Path> segments = JournalSegments.list(directory);
+        long openSegmentFirstLsn;
+        lock.lock();
+        try {
+            openSegmentFirstLsn = segmentFirstLsn;
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            Path segment = segments.get(i);
+            long nextFirstLsn = JournalSegments.firstLsn(segments.get(i + 1));
+            if (JournalSegments.firstLsn(segment) < openSegmentFirstLsn && nextFirstLsn - 1 <= lsn) {
+                Files.delete(segment);
+                logger.info("Deleted journal segment {}", segment.getFileName());
+            }
+        }
+    }
+
+    // Writes the events as consecutive records and returns the LSN of the last one
+    long append(List<CirculationEvent> events) {
+        ByteBuffer frames = ByteBuffer.allocate(events.size() * JournalRecord.FRAME_SIZE);
+        lock.lock();
+        try {
+            checkHealthy();
+            if (segmentBytes + frames.capacity() > segmentSize.toBytes() && segmentBytes > JournalSegments.HEADER_SIZE) {
+                rotate();
+            }
+            for (CirculationEvent event : events) {
+                JournalSegments.writeFrame(frames, JournalRecord.of(++lastLsn, event), crc);
+            }
+            frames.flip();
+            while (frames.hasRemaining()) {
+                channel.write(frames);
+            }
+            segmentBytes += frames.limit();
+            syncRequested.signal();
+            return lastLsn;
+        } catch (IOException e) {
+            failure = e;
+            synced.signalAll();
+            throw new UncheckedIOException("Could not append to the circulation journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void awaitSynced(long lsn) {
+        lock.lock();
+        try {
+            while (syncedLsn < lsn) {
+                checkHealthy();
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkHealthy() {
+        if (failure != null) {
+            throw new UncheckedIOException("Circulation journal is unavailable", failure);
+        }
+    }
+
+    private void syncLoop() {
+        long intervalNanos = syncInterval.toNanos();
+        while (true) {
+            long target;
+            FileChannel current;
+            lock.lock();
+            try {
+                while (running && lastLsn == syncedLsn) {
+                    syncRequested.awaitUninterruptibly();
+                }
+                if (!running) {
+                    return;
+                }
+                // Let more appends join this fsync, up to the interval or the batch size
+                long remaining = intervalNanos;
+                while (running && remaining > 0 && lastLsn - syncedLsn < syncEvery) {
+                    remaining = syncRequested.awaitNanos(remaining);
+                }
+                target = lastLsn;
+                current = channel;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            long started = System.nanoTime();
+            IOException error = null;
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // Rotated meanwhile; rotate() forced the old segment itself
+                continue;
+            } catch (IOException e) {
+                error = e;
+            }
+            syncTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    logger.error("Circulation journal fsync failed; circulation requests will fail", error);
+                    failure = error;
+                } else if (target > syncedLsn) {
+                    syncedLsn = target;
+                }
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (error != null) {
+                return;
+            }
+        }
+    }
+
+    // Called with the lock held
+    private void rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        syncedLsn = lastLsn;
+        synced.signalAll();
+        openSegment(lastLsn + 1);
+    }
+
+    private void openSegment(long firstLsnOfSegment) throws IOException {
+        Path segment = JournalSegments.path(directory, firstLsnOfSegment);
+        // A segment left empty by the previous run starts at the same LSN
+        Files.deleteIfExists(segment);
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = JournalSegments.header();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        segmentFirstLsn = firstLsnOfSegment;
+        segmentBytes = JournalSegments.HEADER_SIZE;
+    }
+
+    // Scans the newest segment for the last valid record
+    private long recoverLastLsn() throws IOException {
+        List<Path> segments = JournalSegments.list(directory);
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        Path newest = segments.get(segments.size() - 1);
+        JournalSegments.ReadResult result = JournalSegments.read(newest, record -> { });
+        if (result.isTorn()) {
+            logger.warn("Circulation journal segment {} ends with an incomplete record after LSN {}; it is ignored",
+                    newest.getFileName(), result.getLastLsn());
+        }
+        return Math.max(result.getLastLsn(), JournalSegments.firstLsn(newest) - 1);
+    }
+}
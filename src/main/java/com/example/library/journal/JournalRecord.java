@@ -0,0 +1,91 @@
+package com.example.library.journal;
+
+import com.example.library.event.CirculationEvent;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+// JournalRecord.java
+
+/**
+ * One borrow or return in the circulation journal. On disk a record is a
+ * frame of {@code [int payload length][int CRC32C of payload][payload]};
+ * the payload is fixed-size:
+ * {@code lsn:long, type:byte, borrowingRecordId:long, bookId:long, patronId:long, epochDay:long}.
+ */
+public final class JournalRecord {
+
+    static final int PAYLOAD_SIZE = 8 + 1 + 8 + 8 + 8 + 8;
+    static final int FRAME_SIZE = 4 + 4 + PAYLOAD_SIZE;
+
+    private final long lsn;
+    private final CirculationEvent.Type type;
+    private final long borrowingRecordId;
+    private final long bookId;
+    private final long patronId;
+    private final LocalDate date;
+
+    JournalRecord(long lsn, CirculationEvent.Type type, long borrowingRecordId, long bookId, long patronId, LocalDate date) {
+        this.lsn = lsn;
+        this.type = type;
+        this.borrowingRecordId = borrowingRecordId;
+        this.bookId = bookId;
+        this.patronId = patronId;
+        this.date = date;
+    }
+
+    static JournalRecord of(long lsn, CirculationEvent event) {
+        return new JournalRecord(lsn, event.getType(), event.getBorrowingRecordId(),
+                event.getBookId(), event.getPatronId(), event.getDate());
+    }
+
+    void writePayload(ByteBuffer buffer) {
+        buffer.putLong(lsn)
+                .put((byte) type.ordinal())
+                .putLong(borrowingRecordId)
+                .putLong(bookId)
+                .putLong(patronId)
+                .putLong(date.toEpochDay());
+    }
+
+    // Returns null for an unknown record type
+    static JournalRecord readPayload(ByteBuffer buffer) {
+        long lsn = buffer.getLong();
+        int type = buffer.get();
+        long borrowingRecordId = buffer.getLong();
+        long bookId = buffer.getLong();
+        long patronId = buffer.getLong();
+        LocalDate date = LocalDate.ofEpochDay(buffer.getLong());
+        CirculationEvent.Type[] types = CirculationEvent.Type.values();
+        if (type < 0 || type >= types.length) {
+            return null;
+        }
+        return new JournalRecord(lsn, types[type], borrowingRecordId, bookId, patronId, date);
+    }
+
+    // Getters
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    public CirculationEvent.Type getType() {
+        return type;
+    }
+
+    public long getBorrowingRecordId() {
+        return borrowingRecordId;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public long getPatronId() {
+        return patronId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.library.journal;
+
+import com.example.library.event.CirculationEvent;
+import com.example.library.repository.SequenceSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// JournalReplayer.java
+
+/**
+ * Applies the journal segments of earlier runs to the database at startup,
+ * before the in-memory indexes are built from it.
+ *
+ * <p>Records are merged per borrowing record id, so a return that reached
+ * the journal before its borrow still closes the right loan, and replay is
+ * idempotent: loans already in the database are only closed if the journal
+ * has their return. Loans of books or patrons that no longer exist are
+ * skipped. Replayed loans keep their ids; the id sequence is moved past them.
+ */
+@Component
+@ConditionalOnProperty(name = "library.journal.enabled", havingValue = "true")
+public class JournalReplayer {
+
+    // Loans merged and written per transaction
+    private static final int CHUNK_SIZE = 10_000;
+    // Must match the allocationSize of BorrowingRecord's id generator
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private final Logger logger = LoggerFactory.getLogger(JournalReplayer.class);
+
+    // The journal does not record due dates; replayed loans get the current loan period
+    @Value("${library.loans.period:14d}")
+    private Duration loanPeriod;
+
+    @Autowired
+    private CirculationJournal journal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Map<Long, Loan> loans = new LinkedHashMap<>();
+    private final Set<Long> touchedBooks = new HashSet<>();
+    private int inserted;
+    private int closed;
+    private int skipped;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 10)
+    public void replay() throws IOException {
+        long started = System.nanoTime();
+        int records = 0;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (Path segment : JournalSegments.list(journal.getDirectory())) {
+            if (JournalSegments.firstLsn(segment) >= journal.getFirstLsn()) {
+                break;
+            }
+            JournalSegments.ReadResult result = JournalSegments.read(segment, this::merge);
+            if (result.isTorn()) {
+                logger.warn("Circulation journal segment {} is damaged after LSN {}; the rest of it is skipped",
+                        segment.getFileName(), result.getLastLsn());
+            }
+            records += result.getRecords();
+        }
+        if (records == 0) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            applyChunk(true);
+            recountAvailableCopies();
+            SequenceSupport.restartAfterMaxId(jdbcTemplate, "borrowing_record_seq", ID_ALLOCATION_SIZE,
+                    "borrowing_record", "loan_history");
+        });
+        logger.info("Replayed {} journal records in {} ms: {} loans restored, {} returns applied, {} skipped",
+                records, (System.nanoTime() - started) / 1_000_000, inserted, closed, skipped);
+    }
+
+    private void merge(JournalRecord record) {
+        Loan loan = loans.computeIfAbsent(record.getBorrowingRecordId(), id -> new Loan(record.getBookId(), record.getPatronId()));
+        if (record.getType() == CirculationEvent.Type.BORROWED) {
+            loan.borrowDate = record.getDate();
+        } else {
+            loan.returnDate = record.getDate();
+        }
+        if (loans.size() >= CHUNK_SIZE) {
+            transactionTemplate.executeWithoutResult(status -> applyChunk(false));
+        }
+    }
+
+    // Writes the merged loans; returns whose borrow has not been read yet wait for the next chunk
+    private void applyChunk(boolean last) {
+        if (loans.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", loans.keySet());
+        Map<Long, Boolean> existingOpen = new HashMap<>();
+        // An archived loan is closed; it must not come back from an older journal segment
+        namedParameterJdbcTemplate.query("SELECT id, return_date FROM borrowing_record WHERE id IN (:ids)"
+                        + " UNION ALL SELECT id, return_date FROM loan_history WHERE id IN (:ids)", ids,
+                row -> {
+                    existingOpen.put(row.getLong(1), row.getDate(2) == null);
+                });
+        Set<Long> books = queryIds("SELECT id FROM book WHERE id IN (:ids)", loans.values(), true);
+        Set<Long> patrons = queryIds("SELECT id FROM patron WHERE id IN (:ids)", loans.values(), false);
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> returns = new ArrayList<>();
+        Map<Long, Loan> pending = new LinkedHashMap<>();
+        for (Map.Entry<Long, Loan> entry : loans.entrySet()) {
+            Long id = entry.getKey();
+            Loan loan = entry.getValue();
+            Boolean open = existingOpen.get(id);
+            if (open != null) {
+                if (open && loan.returnDate != null) {
+                    returns.add(new Object[]{Date.valueOf(loan.returnDate), id});
+                    touchedBooks.add(loan.bookId);
+                }
+            } else if (loan.borrowDate == null) {
+                if (last) {
+                    skipped++;
+                } else {
+                    pending.put(id, loan);
+                }
+            } else if (!books.contains(loan.bookId) || !patrons.contains(loan.patronId)) {
+                skipped++;
+            } else {
+                inserts.add(new Object[]{id, loan.bookId, loan.patronId, Date.valueOf(loan.borrowDate),
+                        Date.valueOf(loan.borrowDate.plusDays(loanPeriod.toDays())),
+                        loan.returnDate == null ? null : Date.valueOf(loan.returnDate)});
+                touchedBooks.add(loan.bookId);
+            }
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO borrowing_record (id, book_id, patron_id, borrow_date, due_date, return_date)"
+                + " VALUES (?, ?, ?, ?, ?, ?)", inserts);
+        jdbcTemplate.batchUpdate("UPDATE borrowing_record SET return_date = ? WHERE id = ? AND return_date IS NULL", returns);
+        inserted += inserts.size();
+        closed += returns.size();
+        loans = pending;
+    }
+
+    private Set<Long> queryIds(String sql, Iterable<Loan> chunk, boolean bookIds) {
+        Set<Long> wanted = new HashSet<>();
+        chunk.forEach(loan -> wanted.add(bookIds ? loan.bookId : loan.patronId));
+        Set<Long> found = new HashSet<>();
+        if (!wanted.isEmpty()) {
+            namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("ids", wanted),
+                    row -> {
+                        found.add(row.getLong(1));
+                    });
+        }
+        return found;
+    }
+
+    // Replayed loans bypass the copy counters, so recount them for the books involved
+    private void recountAvailableCopies() {
+        List<Object[]> bookIds = new ArrayList<>(touchedBooks.size());
+        touchedBooks.forEach(id -> bookIds.add(new Object[]{id}));
+        jdbcTemplate.batchUpdate("UPDATE book b SET version = b.version + 1, available_copies = GREATEST(0, b.total_copies"
+                + " - (SELECT COUNT(*) FROM borrowing_record r WHERE r.book_id = b.id AND r.return_date IS NULL))"
+                + " WHERE b.id = ?", bookIds);
+    }
+
+    private static final class Loan {
+        private final long bookId;
+        private final long patronId;
+        private LocalDate borrowDate;
+        private LocalDate returnDate;
+
+        Loan(long bookId, long patronId) {
+            this.bookId = bookId;
+            this.patronId = patronId;
+        }
+    }
+}
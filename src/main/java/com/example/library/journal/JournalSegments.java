@@ -0,0 +1,145 @@
+package com.example.library.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// JournalSegments.java
+
+/**
+ * File layout of the circulation journal. The journal is a directory of
+ * segments named after the LSN of their first record, zero-padded so that
+ * name order is LSN order. Each segment starts with an 8-byte header
+ * (magic, format version) followed by record frames.
+ */
+final class JournalSegments {
+
+    static final int MAGIC = 0x4C424A4C; // "LBJL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+
+    private static final String PREFIX = "circulation-";
+    private static final String SUFFIX = ".journal";
+
+    private JournalSegments() {
+    }
+
+    static Path path(Path directory, long firstLsn) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstLsn, SUFFIX));
+    }
+
+    static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // Segments in LSN order
+    static List<Path> list(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        return header;
+    }
+
+    static void writeFrame(ByteBuffer buffer, JournalRecord record, CRC32C crc) {
+        int frameStart = buffer.position();
+        buffer.position(frameStart + 8);
+        record.writePayload(buffer);
+
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(frameStart + 8).limit(frameStart + 8 + JournalRecord.PAYLOAD_SIZE);
+        crc.reset();
+        crc.update(payload);
+        buffer.putInt(frameStart, JournalRecord.PAYLOAD_SIZE);
+        buffer.putInt(frameStart + 4, (int) crc.getValue());
+    }
+
+    /**
+     * Passes the records of one segment to the consumer, in order. Reading
+     * stops at the end of the file or at the first frame that is incomplete
+     * or fails its checksum, which is where a crash interrupted the last write.
+     */
+    static ReadResult read(Path segment, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return new ReadResult(0, -1, size > 0);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " circulation journal segment: " + segment);
+            }
+
+            CRC32C crc = new CRC32C();
+            int records = 0;
+            long lastLsn = -1;
+            while (buffer.remaining() >= JournalRecord.FRAME_SIZE) {
+                int frameStart = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length != JournalRecord.PAYLOAD_SIZE) {
+                    buffer.position(frameStart);
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload);
+                JournalRecord record = (int) crc.getValue() == checksum
+                        ? JournalRecord.readPayload(buffer.slice(buffer.position(), length))
+                        : null;
+                if (record == null) {
+                    buffer.position(frameStart);
+                    break;
+                }
+                buffer.position(buffer.position() + length);
+                consumer.accept(record);
+                lastLsn = record.getLsn();
+                records++;
+            }
+            return new ReadResult(records, lastLsn, buffer.hasRemaining());
+        }
+    }
+
+    static final class ReadResult {
+        private final int records;
+        private final long lastLsn;
+        private final boolean torn;
+
+        ReadResult(int records, long lastLsn, boolean torn) {
+            this.records = records;
+            this.lastLsn = lastLsn;
+            this.torn = torn;
+        }
+
+        int getRecords() {
+            return records;
+        }
+
+        // -1 when the segment holds no valid record
+        long getLastLsn() {
+            return lastLsn;
+        }
+
+        // True when bytes were left after the last valid record
+        boolean isTorn() {
+            return torn;
+        }
+    }
+}
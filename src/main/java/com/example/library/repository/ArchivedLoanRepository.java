@@ -0,0 +1,60 @@
+package com.example.library.repository;
+
+import com.example.library.entity.ArchivedLoan;
+import com.example.library.response.DailyBorrows;
+import com.example.library.response.LoanSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// ArchivedLoanRepository.java
+
+@Repository
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, Long> {
+
+    // First half of an archive batch; the caller deletes the same ids from borrowing_record
+    @Modifying
+    @Query(value = "INSERT INTO loan_history (id, book_id, patron_id, borrow_date, due_date, return_date)"
+            + " SELECT id, book_id, patron_id, borrow_date, due_date, return_date FROM borrowing_record"
+            + " WHERE id IN (:ids) AND return_date IS NOT NULL", nativeQuery = true)
+    int copyFromBorrowingRecords(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.library.response.DailyBorrows(h.borrowDate, COUNT(h))"
+            + " FROM ArchivedLoan h WHERE h.borrowDate >= :since GROUP BY h.borrowDate")
+    List<DailyBorrows> findBorrowsPerDay(@Param("since") LocalDate since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT DISTINCT h.patron.id AS patronId, h.book.id AS bookId FROM ArchivedLoan h"
+            + " ORDER BY h.patron.id, h.book.id")
+    Stream<LoanPair> streamPatronBookPairs();
+
+    // Export cursor, after BorrowingRecordRepository.streamAll; same fetch-joins and hints
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT h FROM ArchivedLoan h JOIN FETCH h.book JOIN FETCH h.patron ORDER BY h.id")
+    Stream<ArchivedLoan> streamAll();
+
+    // Same rows as the BorrowingRecordRepository history pages; archived loans are always returned
+
+    String LOAN_SUMMARY = "SELECT new com.example.library.response.LoanSummary(h.id, b.id, b.title, p.id, p.name,"
+            + " h.borrowDate, h.dueDate, h.returnDate) FROM ArchivedLoan h JOIN h.book b JOIN h.patron p";
+
+    @Query(LOAN_SUMMARY + " WHERE h.patron.id = :patronId AND h.id > :afterId ORDER BY h.id")
+    List<LoanSummary> findPatronLoans(@Param("patronId") Long patronId, @Param("afterId") long afterId, Pageable pageable);
+
+    @Query(LOAN_SUMMARY + " WHERE h.book.id = :bookId AND h.id > :afterId ORDER BY h.id")
+    List<LoanSummary> findBookLoans(@Param("bookId") Long bookId, @Param("afterId") long afterId, Pageable pageable);
+}
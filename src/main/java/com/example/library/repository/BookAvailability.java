@@ -0,0 +1,10 @@
+package com.example.library.repository;
+
+// BookAvailability.java
+
+// Projection used to warm the in-memory availability index without loading whole books
+public interface BookAvailability {
+    Long getId();
+
+    int getAvailableCopies();
+}
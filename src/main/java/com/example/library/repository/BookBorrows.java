@@ -0,0 +1,12 @@
+package com.example.library.repository;
+
+// BookBorrows.java
+
+// Projection for rebuilding the circulation stats: lifetime borrows of one book
+public interface BookBorrows {
+    Long getBookId();
+
+    String getAuthor();
+
+    long getBorrows();
+}
@@ -1,8 +1,75 @@
 package com.example.library.repository;
 import com.example.library.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 // BookRepository.java
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+
+    // Keyset page: seeks past the last seen id instead of skipping OFFSET rows.
+    // Only the filters given become predicates, so an author page seeks the (author, id)
+    // index and a year page the (publication_year, id) index; a catch-all "IS NULL OR"
+    // predicate would leave every filtered page a scan of the primary key.
+    // Callers pass PageRequest.of(0, n) to bound the page.
+    // Read-only, so with replicas configured it is served by one of them.
+    @Transactional(readOnly = true)
+    default List<Book> findPageAfter(long afterId, String author, Integer yearFrom, Integer yearTo, Pageable pageable) {
+        Specification<Book> filter = (book, query, builder) -> builder.greaterThan(book.get("id"), afterId);
+        if (author != null) {
+            filter = filter.and((book, query, builder) -> builder.equal(book.get("author"), author));
+        }
+        if (yearFrom != null) {
+            filter = filter.and((book, query, builder) -> builder.greaterThanOrEqualTo(book.get("publicationYear"), yearFrom));
+        }
+        if (yearTo != null) {
+            filter = filter.and((book, query, builder) -> builder.lessThanOrEqualTo(book.get("publicationYear"), yearTo));
+        }
+        return findBy(filter, page -> page.sortBy(Sort.by("id")).limit(pageable.getPageSize()).all());
+    }
+
+    // Forward-only cursor for exports; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b.id AS id, b.availableCopies AS availableCopies FROM Book b")
+    Stream<BookAvailability> streamAvailability();
+
+    // Atomic checkout: only the book's own row is locked, and only if a copy is left.
+    // Returns the number of rows updated (0 = no copy available or unknown book).
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1, b.version = b.version + 1"
+            + " WHERE b.id = :id AND b.availableCopies > 0")
+    int checkOutCopy(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1, b.version = b.version + 1"
+            + " WHERE b.id = :id AND b.availableCopies < b.totalCopies")
+    int checkInCopy(@Param("id") Long id);
+
+    // Row lock for catalog edits that change the copy counts
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
 }
@@ -3,12 +3,108 @@ package com.example.library.repository;
 import com.example.library.entity.Book;
 import com.example.library.entity.BorrowingRecord;
 import com.example.library.entity.Patron;
+import com.example.library.response.DailyBorrows;
+import com.example.library.response.LoanSummary;
+import com.example.library.response.OverdueLoan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BorrowingRecordRepository extends JpaRepository<BorrowingRecord, Long> {
     Optional<BorrowingRecord> findByBookAndPatronAndReturnDateIsNull(Book book, Patron patron);
+
+    // Open loans of one patron among a set of books, for the batch circulation endpoints.
+    // In book id order, so a return batch locks book rows in the same order as a borrow batch.
+    @Query("SELECT r FROM BorrowingRecord r WHERE r.patron = :patron"
+            + " AND r.book.id IN :bookIds AND r.returnDate IS NULL ORDER BY r.book.id")
+    List<BorrowingRecord> findOpenByPatronAndBookIds(@Param("patron") Patron patron,
+                                                     @Param("bookIds") Collection<Long> bookIds);
+
+    long countByBookIdAndReturnDateIsNull(Long bookId);
+
+    long countByReturnDateIsNull();
+
+    // Closes a loan only if it is still open, so concurrent returns cannot both succeed
+    @Modifying
+    @Query("UPDATE BorrowingRecord r SET r.returnDate = :returnDate WHERE r.id = :id AND r.returnDate IS NULL")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDate returnDate);
+
+    // Forward-only cursor for exports; fetch-joins book and patron so each row is a single read
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM BorrowingRecord r JOIN FETCH r.book JOIN FETCH r.patron ORDER BY r.id")
+    Stream<BorrowingRecord> streamAll();
+
+    // Open loans that fell due in [from, to); a range scan of idx_borrowing_record_return_due
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT r.id AS id, r.book.id AS bookId, r.patron.id AS patronId, r.dueDate AS dueDate"
+            + " FROM BorrowingRecord r WHERE r.returnDate IS NULL AND r.dueDate >= :from AND r.dueDate < :to")
+    Stream<DueLoan> streamFallingDue(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Open loans due before today, in id order for keyset pagination
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.library.response.OverdueLoan(r.id, b.id, b.title, p.id, p.name,"
+            + " r.borrowDate, r.dueDate)"
+            + " FROM BorrowingRecord r JOIN r.book b JOIN r.patron p"
+            + " WHERE r.returnDate IS NULL AND r.dueDate < :today AND r.id > :afterId ORDER BY r.id")
+    List<OverdueLoan> findOverduePage(@Param("today") LocalDate today, @Param("afterId") long afterId, Pageable pageable);
+
+    // Startup aggregates for the circulation stats; they run once, the stats are kept up to date from events.
+    // Lifetime borrows include archived loans; books never borrowed come back with 0.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b.id AS bookId, b.author AS author,"
+            + " (SELECT COUNT(r) FROM BorrowingRecord r WHERE r.book = b)"
+            + " + (SELECT COUNT(h) FROM ArchivedLoan h WHERE h.book = b) AS borrows FROM Book b")
+    Stream<BookBorrows> streamBorrowsPerBook();
+
+    @Query("SELECT new com.example.library.response.DailyBorrows(r.borrowDate, COUNT(r))"
+            + " FROM BorrowingRecord r WHERE r.borrowDate >= :since GROUP BY r.borrowDate")
+    List<DailyBorrows> findBorrowsPerDay(@Param("since") LocalDate since);
+
+    // Every patron-book pair once, grouped by patron, for the related-books build
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT DISTINCT r.patron.id AS patronId, r.book.id AS bookId FROM BorrowingRecord r"
+            + " ORDER BY r.patron.id, r.book.id")
+    Stream<LoanPair> streamPatronBookPairs();
+
+    // The next archive batch: any loans returned before the cutoff, read off idx_borrowing_record_return_due
+    @Query("SELECT r.id FROM BorrowingRecord r WHERE r.returnDate < :cutoff")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM BorrowingRecord r WHERE r.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Loan history pages: one statement each, keyset-paginated on id
+
+    String LOAN_SUMMARY = "SELECT new com.example.library.response.LoanSummary(r.id, b.id, b.title, p.id, p.name,"
+            + " r.borrowDate, r.dueDate, r.returnDate) FROM BorrowingRecord r JOIN r.book b JOIN r.patron p";
+
+    @Query(LOAN_SUMMARY + " WHERE r.patron.id = :patronId AND r.id > :afterId ORDER BY r.id")
+    List<LoanSummary> findPatronLoans(@Param("patronId") Long patronId, @Param("afterId") long afterId, Pageable pageable);
+
+    @Query(LOAN_SUMMARY + " WHERE r.patron.id = :patronId AND r.returnDate IS NULL AND r.id > :afterId ORDER BY r.id")
+    List<LoanSummary> findOpenPatronLoans(@Param("patronId") Long patronId, @Param("afterId") long afterId, Pageable pageable);
+
+    @Query(LOAN_SUMMARY + " WHERE r.book.id = :bookId AND r.id > :afterId ORDER BY r.id")
+    List<LoanSummary> findBookLoans(@Param("bookId") Long bookId, @Param("afterId") long afterId, Pageable pageable);
+
+    @Query(LOAN_SUMMARY + " WHERE r.book.id = :bookId AND r.returnDate IS NULL AND r.id > :afterId ORDER BY r.id")
+    List<LoanSummary> findOpenBookLoans(@Param("bookId") Long bookId, @Param("afterId") long afterId, Pageable pageable);
 }
@@ -0,0 +1,16 @@
+package com.example.library.repository;
+
+import java.time.LocalDate;
+
+// DueLoan.java
+
+// Projection for the overdue scan: just the keys and the due date of an open loan
+public interface DueLoan {
+    Long getId();
+
+    Long getBookId();
+
+    Long getPatronId();
+
+    LocalDate getDueDate();
+}
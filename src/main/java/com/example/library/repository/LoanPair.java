@@ -0,0 +1,10 @@
+package com.example.library.repository;
+
+// LoanPair.java
+
+// Projection for the related-books build: a patron and a book they have borrowed
+public interface LoanPair {
+    Long getPatronId();
+
+    Long getBookId();
+}
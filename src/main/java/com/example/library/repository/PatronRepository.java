@@ -1,8 +1,29 @@
 package com.example.library.repository;
 
 import com.example.library.entity.Patron;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 // PatronRepository.java
 public interface PatronRepository extends JpaRepository<Patron, Long> {
+
+    // Keyset page: callers pass PageRequest.of(0, n) to bound the page.
+    @Transactional(readOnly = true)
+    List<Patron> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Forward-only cursor for exports; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Patron p ORDER BY p.id")
+    Stream<Patron> streamAll();
 }
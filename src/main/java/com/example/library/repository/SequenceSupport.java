@@ -0,0 +1,29 @@
+package com.example.library.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// SequenceSupport.java
+
+/**
+ * For rows inserted with explicit ids (journal replay, snapshot load): moves
+ * an id sequence past them so Hibernate does not hand the same ids out again.
+ */
+public final class SequenceSupport {
+
+    private SequenceSupport() {
+    }
+
+    /**
+     * Restarts the sequence so that the next block Hibernate's pooled
+     * optimizer takes from it starts above the largest id in the tables.
+     * The pooled optimizer treats a sequence value v as the top of the block
+     * {@code v - allocationSize + 1 .. v}.
+     */
+    public static void restartAfterMaxId(JdbcTemplate jdbcTemplate, String sequence, int allocationSize, String... tables) {
+        long maxId = 0;
+        for (String table : tables) {
+            maxId = Math.max(maxId, jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class));
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + allocationSize));
+    }
+}
@@ -0,0 +1,38 @@
+// BatchCirculationRequest.java
+
+package com.example.library.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchCirculationRequest {
+    // Upper bound on books per call; a kiosk stack is typically 5-20
+    public static final int MAX_BOOKS = 100;
+
+    @NotNull(message = "Patron ID is required")
+    private Long patronId;
+    @NotEmpty(message = "At least one book ID is required")
+    @Size(max = MAX_BOOKS, message = "At most " + MAX_BOOKS + " books per request")
+    private List<@NotNull(message = "Book IDs must not be null") Long> bookIds;
+
+    // Getters and setters
+
+    public Long getPatronId() {
+        return patronId;
+    }
+
+    public void setPatronId(Long patronId) {
+        this.patronId = patronId;
+    }
+
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+
+    public void setBookIds(List<Long> bookIds) {
+        this.bookIds = bookIds;
+    }
+}
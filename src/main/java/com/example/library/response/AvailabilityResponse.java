@@ -0,0 +1,27 @@
+// AvailabilityResponse.java
+
+package com.example.library.response;
+
+public class AvailabilityResponse {
+    private final Long bookId;
+    private final int availableCopies;
+
+    public AvailabilityResponse(Long bookId, int availableCopies) {
+        this.bookId = bookId;
+        this.availableCopies = availableCopies;
+    }
+
+    // Getters
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public int getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public boolean isAvailable() {
+        return availableCopies > 0;
+    }
+}
@@ -0,0 +1,53 @@
+// BatchCirculationResponse.java
+
+package com.example.library.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchCirculationResponse {
+    private final Long patronId;
+    private final List<ItemResult> results = new ArrayList<>();
+
+    public BatchCirculationResponse(Long patronId) {
+        this.patronId = patronId;
+    }
+
+    public void add(Long bookId, CirculationStatus status, Long borrowingRecordId) {
+        results.add(new ItemResult(bookId, status, borrowingRecordId));
+    }
+
+    // Getters
+
+    public Long getPatronId() {
+        return patronId;
+    }
+
+    public List<ItemResult> getResults() {
+        return results;
+    }
+
+    public static class ItemResult {
+        private final Long bookId;
+        private final CirculationStatus status;
+        private final Long borrowingRecordId;
+
+        public ItemResult(Long bookId, CirculationStatus status, Long borrowingRecordId) {
+            this.bookId = bookId;
+            this.status = status;
+            this.borrowingRecordId = borrowingRecordId;
+        }
+
+        public Long getBookId() {
+            return bookId;
+        }
+
+        public CirculationStatus getStatus() {
+            return status;
+        }
+
+        public Long getBorrowingRecordId() {
+            return borrowingRecordId;
+        }
+    }
+}
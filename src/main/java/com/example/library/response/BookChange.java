@@ -0,0 +1,46 @@
+package com.example.library.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// BookChange.java
+
+// One event of GET /api/books/changes. Availability events carry only the id and copy
+// count; "reset" tells the client it missed events and should reload the catalog.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookChange {
+    private final String type;
+    private final Long bookId;
+    private final String title;
+    private final String author;
+    private final Integer availableCopies;
+
+    public BookChange(String type, Long bookId, String title, String author, Integer availableCopies) {
+        this.type = type;
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.availableCopies = availableCopies;
+    }
+
+    // Getters
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public Integer getAvailableCopies() {
+        return availableCopies;
+    }
+}
@@ -0,0 +1,47 @@
+// BookSearchHit.java
+
+package com.example.library.response;
+
+public class BookSearchHit {
+    private final Long id;
+    private final String title;
+    private final String author;
+    private final String isbn;
+    private final int publicationYear;
+    private final float score;
+
+    public BookSearchHit(Long id, String title, String author, String isbn, int publicationYear, float score) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.publicationYear = publicationYear;
+        this.score = score;
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public int getPublicationYear() {
+        return publicationYear;
+    }
+
+    public float getScore() {
+        return score;
+    }
+}
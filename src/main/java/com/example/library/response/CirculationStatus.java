@@ -0,0 +1,14 @@
+// CirculationStatus.java
+
+package com.example.library.response;
+
+public enum CirculationStatus {
+    BORROWED,
+    RETURNED,
+    ALREADY_BORROWED,
+    NOT_BORROWED,
+    NO_COPIES_AVAILABLE,
+    BOOK_NOT_FOUND,
+    PATRON_NOT_FOUND,
+    DUPLICATE
+}
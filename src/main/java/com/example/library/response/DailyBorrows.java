@@ -0,0 +1,26 @@
+package com.example.library.response;
+
+import java.time.LocalDate;
+
+// DailyBorrows.java
+
+// Loans started on one day
+public class DailyBorrows {
+    private final LocalDate date;
+    private final long borrows;
+
+    public DailyBorrows(LocalDate date, Long borrows) {
+        this.date = date;
+        this.borrows = borrows;
+    }
+
+    // Getters
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public long getBorrows() {
+        return borrows;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.library.response;
+
+// HotKey.java
+
+// One row of GET /api/stats/hot-keys: concurrent requests that shared a load of
+// this id versus loads actually run. Both are upper bounds from a sketch.
+public class HotKey {
+    private final Long id;
+    private final long coalescedLoads;
+    private final long executedLoads;
+
+    public HotKey(Long id, long coalescedLoads, long executedLoads) {
+        this.id = id;
+        this.coalescedLoads = coalescedLoads;
+        this.executedLoads = executedLoads;
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getCoalescedLoads() {
+        return coalescedLoads;
+    }
+
+    public long getExecutedLoads() {
+        return executedLoads;
+    }
+}
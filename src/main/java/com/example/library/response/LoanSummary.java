@@ -0,0 +1,67 @@
+package com.example.library.response;
+
+import java.time.LocalDate;
+
+// LoanSummary.java
+
+// One loan in a patron's or a book's history, with the titles instead of the full entities
+public class LoanSummary {
+    private final Long id;
+    private final Long bookId;
+    private final String bookTitle;
+    private final Long patronId;
+    private final String patronName;
+    private final LocalDate borrowDate;
+    private final LocalDate dueDate;
+    private final LocalDate returnDate;
+
+    public LoanSummary(Long id, Long bookId, String bookTitle, Long patronId, String patronName,
+                       LocalDate borrowDate, LocalDate dueDate, LocalDate returnDate) {
+        this.id = id;
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.patronId = patronId;
+        this.patronName = patronName;
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public Long getPatronId() {
+        return patronId;
+    }
+
+    public String getPatronName() {
+        return patronName;
+    }
+
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+
+    public boolean isActive() {
+        return returnDate == null;
+    }
+}
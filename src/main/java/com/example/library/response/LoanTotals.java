@@ -0,0 +1,24 @@
+package com.example.library.response;
+
+// LoanTotals.java
+
+// GET /api/stats/loans: books out right now and loans ever made
+public class LoanTotals {
+    private final long activeLoans;
+    private final long totalBorrows;
+
+    public LoanTotals(long activeLoans, long totalBorrows) {
+        this.activeLoans = activeLoans;
+        this.totalBorrows = totalBorrows;
+    }
+
+    // Getters
+
+    public long getActiveLoans() {
+        return activeLoans;
+    }
+
+    public long getTotalBorrows() {
+        return totalBorrows;
+    }
+}
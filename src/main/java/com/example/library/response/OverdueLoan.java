@@ -0,0 +1,64 @@
+package com.example.library.response;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// OverdueLoan.java
+
+// One row of GET /api/loans/overdue
+public class OverdueLoan {
+    private final Long id;
+    private final Long bookId;
+    private final String bookTitle;
+    private final Long patronId;
+    private final String patronName;
+    private final LocalDate borrowDate;
+    private final LocalDate dueDate;
+    private final long daysOverdue;
+
+    public OverdueLoan(Long id, Long bookId, String bookTitle, Long patronId, String patronName,
+                       LocalDate borrowDate, LocalDate dueDate) {
+        this.id = id;
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.patronId = patronId;
+        this.patronName = patronName;
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+        this.daysOverdue = ChronoUnit.DAYS.between(dueDate, LocalDate.now());
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public Long getPatronId() {
+        return patronId;
+    }
+
+    public String getPatronName() {
+        return patronName;
+    }
+
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public long getDaysOverdue() {
+        return daysOverdue;
+    }
+}
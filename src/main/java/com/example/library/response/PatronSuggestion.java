@@ -0,0 +1,23 @@
+// PatronSuggestion.java
+
+package com.example.library.response;
+
+public class PatronSuggestion {
+    private final Long id;
+    private final String name;
+
+    public PatronSuggestion(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.library.response;
+
+// RelatedBook.java
+
+// One row of GET /api/books/{id}/related
+public class RelatedBook {
+    private final Long bookId;
+    private final String title;
+    private final String author;
+    private final int sharedPatrons;
+
+    public RelatedBook(Long bookId, String title, String author, int sharedPatrons) {
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.sharedPatrons = sharedPatrons;
+    }
+
+    // Getters
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    // Patrons who borrowed both books; an upper bound once the neighbour list has been pruned
+    public int getSharedPatrons() {
+        return sharedPatrons;
+    }
+}
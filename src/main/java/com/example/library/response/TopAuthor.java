@@ -0,0 +1,30 @@
+package com.example.library.response;
+
+// TopAuthor.java
+
+// One row of GET /api/stats/top-authors, with the same bounds as TopBook
+public class TopAuthor {
+    private final String author;
+    private final long borrows;
+    private final long minimumBorrows;
+
+    public TopAuthor(String author, long borrows, long minimumBorrows) {
+        this.author = author;
+        this.borrows = borrows;
+        this.minimumBorrows = minimumBorrows;
+    }
+
+    // Getters
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public long getBorrows() {
+        return borrows;
+    }
+
+    public long getMinimumBorrows() {
+        return minimumBorrows;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.library.response;
+
+// TopBook.java
+
+// One row of GET /api/stats/top-books. Counts come from a sketch: the true number of
+// borrows lies between minimumBorrows and borrows.
+public class TopBook {
+    private final Long bookId;
+    private final String title;
+    private final String author;
+    private final long borrows;
+    private final long minimumBorrows;
+
+    public TopBook(Long bookId, String title, String author, long borrows, long minimumBorrows) {
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+        this.borrows = borrows;
+        this.minimumBorrows = minimumBorrows;
+    }
+
+    // Getters
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public long getBorrows() {
+        return borrows;
+    }
+
+    public long getMinimumBorrows() {
+        return minimumBorrows;
+    }
+}
@@ -0,0 +1,32 @@
+// ValidationErrors.java
+
+package com.example.library.response;
+
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import java.util.List;
+
+// Builds the "Validation error(s): field: message; ..." text returned with a 400 Bad Request
+public final class ValidationErrors {
+    private static final String PREFIX = "Validation error(s): ";
+    // Rough size of one "field: message; " entry, to avoid regrowing the builder
+    private static final int EXPECTED_ENTRY_LENGTH = 48;
+
+    private ValidationErrors() {
+    }
+
+    public static String describe(BindingResult bindingResult) {
+        List<ObjectError> errors = bindingResult.getAllErrors();
+        StringBuilder errorMessage = new StringBuilder(PREFIX.length() + errors.size() * EXPECTED_ENTRY_LENGTH);
+        errorMessage.append(PREFIX);
+        for (ObjectError error : errors) {
+            if (error instanceof FieldError) {
+                errorMessage.append(((FieldError) error).getField()).append(": ");
+            }
+            errorMessage.append(error.getDefaultMessage()).append("; ");
+        }
+        return errorMessage.toString();
+    }
+}
@@ -0,0 +1,472 @@
+package com.example.library.search;
+
+import com.example.library.entity.Book;
+import com.example.library.event.BookChangedEvent;
+import com.example.library.repository.BookRepository;
+import com.example.library.response.BookSearchHit;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// CatalogSearchIndex.java
+
+/**
+ * In-memory inverted index over book title, author and ISBN.
+ *
+ * <p>Each field maps a token to a {@link LongPostings} list of book ids. A
+ * query matches books that contain every query term in some field, either as
+ * a whole token or as a prefix of one (so "hobb tolk" finds "The Hobbit" by
+ * Tolkien). Hits are ranked by the sum of the best field weight per term,
+ * halved for prefix matches.
+ *
+ * <p>The rarest query term drives the search; every other term is checked
+ * with a binary search in its postings, so query cost follows the smallest
+ * posting list rather than the catalog size. A prefix counts every token it
+ * expands to. Its postings are only probed for the driver's candidates; past
+ * {@value #MAX_PROBED_EXPANSIONS} tokens, when probing each one for every
+ * candidate would cost more than reading them, they are merged once instead.
+ *
+ * <p>The index is built at startup and kept current from committed
+ * {@link BookChangedEvent}s. A build fills a fresh index and swaps it in;
+ * changes that arrive while it runs are applied to the live index and replayed
+ * onto the new one before the swap, so a row read before a change never
+ * overwrites it.
+ */
+@Component
+public class CatalogSearchIndex {
+
+    private enum Field {
+        TITLE(3f),
+        AUTHOR(2f),
+        ISBN(4f);
+
+        private final float weight;
+
+        Field(float weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final float PREFIX_FACTOR = 0.5f;
+    // Shorter terms only match whole tokens, otherwise "a" would expand to half the dictionary
+    private static final int MIN_PREFIX_LENGTH = 2;
+    // Beyond this many expanded tokens, one merge is cheaper than a binary search per token and candidate
+    private static final int MAX_PROBED_EXPANSIONS = 64;
+
+    private final Logger logger = LoggerFactory.getLogger(CatalogSearchIndex.class);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Postings postings = new Postings();
+    // Changes made while a build runs, replayed onto the new index; null when no build runs
+    private List<Consumer<Postings>> pending;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long started = System.nanoTime();
+        int[] count = {0};
+        try (Stream<Book> rows = bookRepository.streamAll()) {
+            loadAll(rows.peek(book -> {
+                if (++count[0] % 1000 == 0) {
+                    entityManager.clear();
+                }
+            }));
+        }
+        logger.info("Search index built over {} books in {} ms", count[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Replaces the whole index with {@code books}. Searches keep using the old
+     * index until the new one is complete; adds and removals made in the
+     * meantime are applied to both.
+     */
+    public void loadAll(Stream<Book> books) {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Postings loaded = new Postings();
+        try {
+            books.forEach(book -> loaded.put(new IndexedBook(book)));
+            loaded.trimToSize();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            pending.forEach(change -> change.accept(loaded));
+            pending = null;
+            postings = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Indexes a book, replacing whatever was indexed under its id before
+    public void add(Book book) {
+        IndexedBook indexed = new IndexedBook(book);
+        apply(target -> target.put(indexed));
+    }
+
+    public void remove(Long bookId) {
+        apply(target -> target.remove(bookId));
+    }
+
+    private void apply(Consumer<Postings> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(postings);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return postings.books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Stored fields of an indexed book, or null if it is not indexed
+
+    public String title(Long bookId) {
+        IndexedBook indexed = indexed(bookId);
+        return indexed == null ? null : indexed.title;
+    }
+
+    public String author(Long bookId) {
+        IndexedBook indexed = indexed(bookId);
+        return indexed == null ? null : indexed.author;
+    }
+
+    private IndexedBook indexed(Long bookId) {
+        lock.readLock().lock();
+        try {
+            return postings.books.get(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} hits, best first; empty if any term matches nothing
+     */
+    public List<BookSearchHit> search(String query, int limit) {
+        List<String> terms = Tokenizer.tokens(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            // A hyphenated or spaced ISBN splits into several tokens; try it as one first
+            if (terms.size() > 1) {
+                List<Match> isbnMatches = matches(Field.ISBN, Tokenizer.isbnToken(query));
+                if (!isbnMatches.isEmpty()) {
+                    return rank(Collections.singletonList(isbnMatches), 0, limit);
+                }
+            }
+
+            List<List<Match>> perTerm = new ArrayList<>(terms.size());
+            int driver = 0;
+            long driverSize = Long.MAX_VALUE;
+            for (String term : new LinkedHashSet<>(terms)) {
+                List<Match> matches = new ArrayList<>();
+                for (Field field : Field.values()) {
+                    matches.addAll(matches(field, term));
+                }
+                if (matches.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                long size = 0;
+                for (Match match : matches) {
+                    size += match.size;
+                }
+                if (size < driverSize) {
+                    driverSize = size;
+                    driver = perTerm.size();
+                }
+                perTerm.add(matches);
+            }
+            return rank(perTerm, driver, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<BookSearchHit> rank(List<List<Match>> perTerm, int driver, int limit) {
+        long[] candidates = union(perTerm.get(driver));
+        // A term whose expansions are probed for more candidates than they hold ids is cheaper merged
+        for (List<Match> matches : perTerm) {
+            for (Match match : matches) {
+                match.mergeIfCheaper(candidates.length);
+            }
+        }
+        // Min-heap of the best hits so far: the weakest (lowest score, then highest id) on top
+        PriorityQueue<ScoredId> top = new PriorityQueue<>(limit + 1, (a, b) -> a.score != b.score
+                ? Float.compare(a.score, b.score) : Long.compare(b.id, a.id));
+        for (long id : candidates) {
+            float score = 0f;
+            for (List<Match> matches : perTerm) {
+                float best = bestWeight(matches, id);
+                if (best == 0f) {
+                    score = 0f;
+                    break;
+                }
+                score += best;
+            }
+            if (score > 0f) {
+                top.offer(new ScoredId(id, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+
+        BookSearchHit[] hits = new BookSearchHit[top.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            ScoredId scored = top.poll();
+            IndexedBook book = postings.books.get(scored.id);
+            hits[i] = new BookSearchHit(book.id, book.title, book.author, book.isbn, book.publicationYear, scored.score);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private List<Match> matches(Field field, String term) {
+        if (term == null) {
+            return Collections.emptyList();
+        }
+        TreeMap<String, LongPostings> terms = postings.fields.get(field);
+        List<Match> matches = new ArrayList<>();
+        LongPostings exact = terms.get(term);
+        if (exact != null) {
+            matches.add(new Match(Collections.singletonList(exact), field.weight));
+        }
+        if (term.length() >= MIN_PREFIX_LENGTH) {
+            // Every expansion scores the same, so they share one match
+            List<LongPostings> expansions = new ArrayList<>();
+            for (Map.Entry<String, LongPostings> entry : terms.tailMap(term, false).entrySet()) {
+                if (!entry.getKey().startsWith(term)) {
+                    break;
+                }
+                expansions.add(entry.getValue());
+            }
+            if (!expansions.isEmpty()) {
+                matches.add(new Match(expansions, field.weight * PREFIX_FACTOR));
+            }
+        }
+        return matches;
+    }
+
+    private static float bestWeight(List<Match> matches, long id) {
+        float best = 0f;
+        for (Match match : matches) {
+            if (match.weight > best && match.contains(id)) {
+                best = match.weight;
+            }
+        }
+        return best;
+    }
+
+    // Sorted, de-duplicated ids of all the given matches
+    private static long[] union(List<Match> matches) {
+        List<LongPostings> lists = new ArrayList<>();
+        for (Match match : matches) {
+            lists.addAll(match.postings);
+        }
+        return merge(lists);
+    }
+
+    // Sorted, de-duplicated ids of all the given postings
+    private static long[] merge(List<LongPostings> lists) {
+        int total = 0;
+        for (LongPostings list : lists) {
+            total += list.size();
+        }
+        long[] ids = new long[total];
+        int offset = 0;
+        for (LongPostings list : lists) {
+            for (int i = 0; i < list.size(); i++) {
+                ids[offset++] = list.get(i);
+            }
+        }
+        if (lists.size() == 1) {
+            return ids;
+        }
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+
+    // The token dictionaries and stored books of one generation of the index
+    private static final class Postings {
+        private final Map<Field, TreeMap<String, LongPostings>> fields = new EnumMap<>(Field.class);
+        // Stored fields for hits and for removing a book's old tokens
+        private final Map<Long, IndexedBook> books = new HashMap<>();
+
+        private Postings() {
+            for (Field field : Field.values()) {
+                fields.put(field, new TreeMap<>());
+            }
+        }
+
+        // Indexes a book, replacing whatever was indexed under its id before
+        private void put(IndexedBook indexed) {
+            remove(indexed.id);
+            books.put(indexed.id, indexed);
+            for (String token : Tokenizer.tokens(indexed.title)) {
+                postings(Field.TITLE, token).add(indexed.id);
+            }
+            for (String token : Tokenizer.tokens(indexed.author)) {
+                postings(Field.AUTHOR, token).add(indexed.id);
+            }
+            String isbn = Tokenizer.isbnToken(indexed.isbn);
+            if (isbn != null) {
+                postings(Field.ISBN, isbn).add(indexed.id);
+            }
+        }
+
+        private void remove(Long bookId) {
+            IndexedBook indexed = books.remove(bookId);
+            if (indexed == null) {
+                return;
+            }
+            for (String token : Tokenizer.tokens(indexed.title)) {
+                removePosting(Field.TITLE, token, indexed.id);
+            }
+            for (String token : Tokenizer.tokens(indexed.author)) {
+                removePosting(Field.AUTHOR, token, indexed.id);
+            }
+            String isbn = Tokenizer.isbnToken(indexed.isbn);
+            if (isbn != null) {
+                removePosting(Field.ISBN, isbn, indexed.id);
+            }
+        }
+
+        private void trimToSize() {
+            fields.values().forEach(terms -> terms.values().forEach(LongPostings::trimToSize));
+        }
+
+        private LongPostings postings(Field field, String token) {
+            return fields.get(field).computeIfAbsent(token, key -> new LongPostings());
+        }
+
+        private void removePosting(Field field, String token, long bookId) {
+            TreeMap<String, LongPostings> terms = fields.get(field);
+            LongPostings postings = terms.get(token);
+            if (postings != null && postings.remove(bookId) && postings.isEmpty()) {
+                terms.remove(token);
+            }
+        }
+    }
+
+    private static final class IndexedBook {
+        private final long id;
+        private final String title;
+        private final String author;
+        private final String isbn;
+        private final int publicationYear;
+
+        private IndexedBook(Book book) {
+            this.id = book.getId();
+            this.title = book.getTitle();
+            this.author = book.getAuthor();
+            this.isbn = book.getIsbn();
+            this.publicationYear = book.getPublicationYear();
+        }
+    }
+
+    // A whole token, or all the expansions of a prefix in one field
+    private static final class Match {
+        private final List<LongPostings> postings;
+        private final float weight;
+        private final long size;
+        // The postings merged into one sorted array, once probing them would cost more
+        private long[] merged;
+
+        private Match(List<LongPostings> postings, float weight) {
+            this.postings = postings;
+            this.weight = weight;
+            long size = 0;
+            for (LongPostings list : postings) {
+                size += list.size();
+            }
+            this.size = size;
+        }
+
+        private void mergeIfCheaper(int candidates) {
+            if (postings.size() > MAX_PROBED_EXPANSIONS && (long) candidates * postings.size() > size) {
+                merged = merge(postings);
+            }
+        }
+
+        private boolean contains(long id) {
+            if (merged != null) {
+                return Arrays.binarySearch(merged, id) >= 0;
+            }
+            for (LongPostings list : postings) {
+                if (list.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class ScoredId {
+        private final long id;
+        private final float score;
+
+        private ScoredId(long id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.library.search;
+
+import java.util.Arrays;
+
+// Neighbours.java
+
+/**
+ * The books most often borrowed by the same patrons as one book, with the
+ * number of shared patrons, in parallel primitive arrays sorted by count
+ * (highest first). At most {@code capacity} neighbours are kept: once full,
+ * a new neighbour replaces the weakest and starts from its count plus one,
+ * the space-saving rule, so a book that keeps co-occurring can still climb in.
+ */
+final class Neighbours {
+
+    private long[] ids;
+    private int[] counts;
+    private int size;
+    private final int capacity;
+
+    Neighbours(int capacity) {
+        this.capacity = capacity;
+        this.ids = new long[Math.min(capacity, 4)];
+        this.counts = new int[ids.length];
+    }
+
+    // Built from exact counts, already sorted highest first
+    Neighbours(long[] ids, int[] counts, int capacity) {
+        this.ids = ids;
+        this.counts = counts;
+        this.size = ids.length;
+        this.capacity = capacity;
+    }
+
+    void increment(long id) {
+        int i = 0;
+        while (i < size && ids[i] != id) {
+            i++;
+        }
+        if (i < size) {
+            counts[i]++;
+        } else if (size < capacity) {
+            if (size == ids.length) {
+                int grown = Math.min(capacity, Math.max(4, size * 2));
+                ids = Arrays.copyOf(ids, grown);
+                counts = Arrays.copyOf(counts, grown);
+            }
+            ids[size] = id;
+            counts[size] = 1;
+            i = size++;
+        } else {
+            i = size - 1;
+            ids[i] = id;
+            counts[i]++;
+        }
+        // Restore the order; the count went up by one, so it moves towards the front
+        while (i > 0 && counts[i - 1] < counts[i]) {
+            long id0 = ids[i - 1];
+            ids[i - 1] = ids[i];
+            ids[i] = id0;
+            int count0 = counts[i - 1];
+            counts[i - 1] = counts[i];
+            counts[i] = count0;
+            i--;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long id(int index) {
+        return ids[index];
+    }
+
+    int count(int index) {
+        return counts[index];
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.library.search;
+
+import com.example.library.entity.Patron;
+import com.example.library.event.PatronChangedEvent;
+import com.example.library.repository.PatronRepository;
+import com.example.library.response.PatronSuggestion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// PatronNameIndex.java
+
+/**
+ * Prefix lookup over patron names for the front-desk autocomplete.
+ *
+ * <p>Every word of a name is one entry in three parallel arrays sorted by
+ * (word, patron id): the lower-cased word, the patron id and the display name.
+ * A lookup is a binary search for the first word at or after the prefix
+ * followed by a short forward scan, so it costs O(log n + limit). The display
+ * name is the patron's own String, shared with the word entries of the same
+ * patron, so the index adds roughly one short word String, one long and two
+ * references per word on top of the names themselves (see
+ * {@link #estimatedBytesPerPatron()}).
+ */
+@Component
+public class PatronNameIndex {
+
+    // Object header + fields of a String and its byte[] (compact Latin-1 strings)
+    private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    private final Logger logger = LoggerFactory.getLogger(PatronNameIndex.class);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private String[] words = new String[16];
+    private long[] ids = new long[16];
+    private String[] names = new String[16];
+    private int size;
+    private int patronCount;
+    // Total characters of the indexed words, for the heap estimate
+    private long wordChars;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("library.patron.suggest.entries", this, PatronNameIndex::size)
+                .description("Words indexed for patron name suggestions")
+                .register(meterRegistry);
+        Gauge.builder("library.patron.suggest.bytes.per.patron", this, PatronNameIndex::estimatedBytesPerPatron)
+                .description("Estimated heap used by the suggestion index per patron")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long started = System.nanoTime();
+        int[] count = {0};
+        try (Stream<Patron> rows = patronRepository.streamAll()) {
+            loadAll(rows.peek(patron -> {
+                if (++count[0] % 1000 == 0) {
+                    entityManager.clear();
+                }
+            }));
+        }
+        logger.info("Patron name index built over {} patrons ({} words) in {} ms",
+                count[0], size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Replaces the whole index; one sort instead of n sorted inserts
+    public void loadAll(Stream<Patron> patrons) {
+        List<Entry> entries = new ArrayList<>();
+        int[] count = {0};
+        patrons.forEach(patron -> {
+            for (String word : new LinkedHashSet<>(Tokenizer.tokens(patron.getName()))) {
+                entries.add(new Entry(word, patron.getId(), patron.getName()));
+            }
+            count[0]++;
+        });
+        entries.sort(Entry::compareTo);
+
+        lock.writeLock().lock();
+        try {
+            size = entries.size();
+            wordChars = 0;
+            words = new String[Math.max(size, 16)];
+            ids = new long[words.length];
+            names = new String[words.length];
+            for (int i = 0; i < size; i++) {
+                Entry entry = entries.get(i);
+                words[i] = entry.word;
+                ids[i] = entry.id;
+                names[i] = entry.name;
+                wordChars += entry.word.length();
+            }
+            patronCount = count[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onPatronChanged(PatronChangedEvent event) {
+        if (event.getType() != PatronChangedEvent.Type.CREATED) {
+            remove(event.getPrevious());
+        }
+        if (event.getType() != PatronChangedEvent.Type.DELETED) {
+            add(event.getCurrent());
+        }
+    }
+
+    public void add(Patron patron) {
+        lock.writeLock().lock();
+        try {
+            for (String word : new HashSet<>(Tokenizer.tokens(patron.getName()))) {
+                int index = find(word, patron.getId());
+                if (index < 0) {
+                    insertAt(-index - 1, word, patron.getId(), patron.getName());
+                }
+            }
+            patronCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Patron patron) {
+        lock.writeLock().lock();
+        try {
+            for (String word : new HashSet<>(Tokenizer.tokens(patron.getName()))) {
+                int index = find(word, patron.getId());
+                if (index >= 0) {
+                    removeAt(index);
+                }
+            }
+            patronCount--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} distinct patrons having a name word that starts
+     * with {@code prefix}, ordered by the matching word and then by id
+     */
+    public List<PatronSuggestion> suggest(String prefix, int limit) {
+        List<String> tokens = Tokenizer.tokens(prefix);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        // Later words narrow the match: "ada lov" must also contain a word starting with "lov"
+        String first = tokens.get(0);
+        List<String> rest = tokens.subList(1, tokens.size());
+
+        List<PatronSuggestion> suggestions = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (int i = lowerBound(first); i < size && words[i].startsWith(first); i++) {
+                if (seen.add(ids[i]) && matchesAll(names[i], rest)) {
+                    suggestions.add(new PatronSuggestion(ids[i], names[i]));
+                    if (suggestions.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return suggestions;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Heap added by the index per patron: word strings, id slots and array references
+    public double estimatedBytesPerPatron() {
+        lock.readLock().lock();
+        try {
+            if (patronCount <= 0) {
+                return 0d;
+            }
+            long bytes = (long) words.length * (REFERENCE_BYTES + Long.BYTES + REFERENCE_BYTES)
+                    + (long) size * STRING_OVERHEAD_BYTES + wordChars;
+            return (double) bytes / patronCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matchesAll(String name, List<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+        List<String> words = Tokenizer.tokens(name);
+        for (String prefix : prefixes) {
+            if (words.stream().noneMatch(word -> word.startsWith(prefix))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // First position whose word is >= prefix
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (words[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Binary search on (word, id); returns -(insertion point) - 1 when absent
+    private int find(String word, long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = words[mid].compareTo(word);
+            if (cmp == 0) {
+                cmp = Long.compare(ids[mid], id);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insertAt(int index, String word, long id, String name) {
+        if (size == words.length) {
+            int capacity = size + (size >> 1) + 1;
+            words = Arrays.copyOf(words, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        System.arraycopy(words, index, words, index + 1, size - index);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        System.arraycopy(names, index, names, index + 1, size - index);
+        words[index] = word;
+        ids[index] = id;
+        names[index] = name;
+        size++;
+        wordChars += word.length();
+    }
+
+    private void removeAt(int index) {
+        wordChars -= words[index].length();
+        System.arraycopy(words, index + 1, words, index, size - index - 1);
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        System.arraycopy(names, index + 1, names, index, size - index - 1);
+        size--;
+        words[size] = null;
+        names[size] = null;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final String word;
+        private final long id;
+        private final String name;
+
+        private Entry(String word, long id, String name) {
+            this.word = word;
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int cmp = word.compareTo(other.word);
+            return cmp != 0 ? cmp : Long.compare(id, other.id);
+        }
+    }
+}
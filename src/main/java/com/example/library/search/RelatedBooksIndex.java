@@ -0,0 +1,399 @@
+package com.example.library.search;
+
+import com.example.library.event.BookChangedEvent;
+import com.example.library.event.CirculationEvent;
+import com.example.library.event.PatronChangedEvent;
+import com.example.library.repository.ArchivedLoanRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.LoanPair;
+import com.example.library.response.RelatedBook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// RelatedBooksIndex.java
+
+/**
+ * "Patrons who borrowed this also borrowed": for every book, the books that
+ * share the most borrowers with it.
+ *
+ * <p>Each patron's borrowed books are a {@link LongPostings} list and each
+ * book's co-occurrences a {@link Neighbours} list capped at
+ * {@code library.related.neighbours}, both held in {@link LongObjectMap}s, so
+ * the index stores primitives only. A lookup copies at most that many entries
+ * and never queries the database.
+ *
+ * <p>At startup the distinct patron-book pairs, archived loans included, are
+ * loaded into compressed rows and each book's co-occurrence counts are
+ * computed exactly, in parallel over ranges of books on the common fork/join
+ * pool. Afterwards every
+ * committed first borrow of a book by a patron adds one to the pair it forms
+ * with each book the patron had borrowed before.
+ */
+@Component
+public class RelatedBooksIndex {
+
+    private final Logger logger = LoggerFactory.getLogger(RelatedBooksIndex.class);
+
+    private final int capacity;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongObjectMap<LongPostings> patrons = new LongObjectMap<>(16);
+    private LongObjectMap<Neighbours> books = new LongObjectMap<>(16);
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private CatalogSearchIndex catalogSearchIndex;
+
+    public RelatedBooksIndex(@Value("${library.related.neighbours:50}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long started = System.nanoTime();
+        int pairs;
+        try (Stream<LoanPair> current = borrowingRecordRepository.streamPatronBookPairs();
+             Stream<LoanPair> archived = archivedLoanRepository.streamPatronBookPairs()) {
+            pairs = loadAll(merge(current.iterator(), archived.iterator()));
+        }
+        logger.info("Related books index built from {} patron-book pairs in {} ms",
+                pairs, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Union of two pair streams sorted by (patron, book), still sorted and without duplicates
+    static Stream<LoanPair> merge(Iterator<LoanPair> left, Iterator<LoanPair> right) {
+        Iterator<LoanPair> merged = new Iterator<>() {
+            private LoanPair nextLeft = left.hasNext() ? left.next() : null;
+            private LoanPair nextRight = right.hasNext() ? right.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextLeft != null || nextRight != null;
+            }
+
+            @Override
+            public LoanPair next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int order = nextLeft == null ? 1 : nextRight == null ? -1 : compare(nextLeft, nextRight);
+                LoanPair pair = order <= 0 ? nextLeft : nextRight;
+                if (order <= 0) {
+                    nextLeft = left.hasNext() ? left.next() : null;
+                }
+                if (order >= 0) {
+                    nextRight = right.hasNext() ? right.next() : null;
+                }
+                return pair;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false);
+    }
+
+    private static int compare(LoanPair a, LoanPair b) {
+        int byPatron = Long.compare(a.getPatronId(), b.getPatronId());
+        return byPatron != 0 ? byPatron : Long.compare(a.getBookId(), b.getBookId());
+    }
+
+    /**
+     * Replaces the whole index. The pairs must be distinct and sorted by patron.
+     *
+     * @return the number of pairs loaded
+     */
+    public int loadAll(Stream<LoanPair> rows) {
+        PairBuffer pairs = new PairBuffer();
+        rows.forEach(row -> pairs.add(row.getPatronId(), row.getBookId()));
+        History history = new History(pairs);
+        Neighbours[] neighbours = new Neighbours[history.bookIds.length];
+        int threshold = Math.max(64, history.bookIds.length / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        ForkJoinPool.commonPool().invoke(new CountTask(history, neighbours, 0, neighbours.length, threshold));
+
+        LongObjectMap<LongPostings> builtPatrons = new LongObjectMap<>(history.patronIds.length);
+        for (int row = 0; row < history.patronIds.length; row++) {
+            LongPostings borrowed = new LongPostings();
+            for (int k = history.patronStart[row]; k < history.patronStart[row + 1]; k++) {
+                borrowed.add(history.bookIds[history.pairBooks[k]]);
+            }
+            borrowed.trimToSize();
+            builtPatrons.put(history.patronIds[row], borrowed);
+        }
+        LongObjectMap<Neighbours> builtBooks = new LongObjectMap<>(neighbours.length);
+        for (int b = 0; b < neighbours.length; b++) {
+            builtBooks.put(history.bookIds[b], neighbours[b]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            patrons = builtPatrons;
+            books = builtBooks;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return pairs.size;
+    }
+
+    @TransactionalEventListener
+    public void onCirculation(CirculationEvent event) {
+        if (event.getType() == CirculationEvent.Type.BORROWED) {
+            record(event.getPatronId(), event.getBookId());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getType() == BookChangedEvent.Type.DELETED) {
+            lock.writeLock().lock();
+            try {
+                // Other books' lists may still name it; lookups skip books the catalog no longer has
+                books.remove(event.getBookId());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onPatronChanged(PatronChangedEvent event) {
+        if (event.getType() == PatronChangedEvent.Type.DELETED) {
+            lock.writeLock().lock();
+            try {
+                patrons.remove(event.getPatronId());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void record(long patronId, long bookId) {
+        lock.writeLock().lock();
+        try {
+            LongPostings borrowed = patrons.get(patronId);
+            if (borrowed == null) {
+                borrowed = new LongPostings();
+                patrons.put(patronId, borrowed);
+            } else if (borrowed.contains(bookId)) {
+                // Borrowing a book again says nothing new about what goes with it
+                return;
+            }
+            Neighbours own = neighbours(bookId);
+            for (int i = 0; i < borrowed.size(); i++) {
+                long other = borrowed.get(i);
+                own.increment(other);
+                neighbours(other).increment(bookId);
+            }
+            borrowed.add(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} related books, most shared borrowers first
+     */
+    public List<RelatedBook> related(long bookId, int limit) {
+        long[] ids;
+        int[] counts;
+        int size;
+        lock.readLock().lock();
+        try {
+            Neighbours neighbours = books.get(bookId);
+            if (neighbours == null) {
+                return Collections.emptyList();
+            }
+            size = neighbours.size();
+            ids = new long[size];
+            counts = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = neighbours.id(i);
+                counts[i] = neighbours.count(i);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<RelatedBook> related = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < size && related.size() < limit; i++) {
+            String title = catalogSearchIndex.title(ids[i]);
+            if (title != null) {
+                related.add(new RelatedBook(ids[i], title, catalogSearchIndex.author(ids[i]), counts[i]));
+            }
+        }
+        return related;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private Neighbours neighbours(long bookId) {
+        Neighbours neighbours = books.get(bookId);
+        if (neighbours == null) {
+            neighbours = new Neighbours(capacity);
+            books.put(bookId, neighbours);
+        }
+        return neighbours;
+    }
+
+    // Patron-book pairs in arrival order: sorted by patron, then book
+    private static final class PairBuffer {
+        private long[] patrons = new long[1024];
+        private long[] books = new long[1024];
+        private int size;
+
+        private void add(long patronId, long bookId) {
+            if (size == patrons.length) {
+                patrons = Arrays.copyOf(patrons, size * 2);
+                books = Arrays.copyOf(books, size * 2);
+            }
+            patrons[size] = patronId;
+            books[size++] = bookId;
+        }
+    }
+
+    /**
+     * The pairs as two compressed sparse rows over dense book numbers: the
+     * books of each patron, and the patrons (as row numbers) of each book.
+     */
+    private static final class History {
+        private final long[] patronIds;
+        private final int[] patronStart;
+        private final int[] pairBooks;
+        private final long[] bookIds;
+        private final int[] bookStart;
+        private final int[] bookPatrons;
+
+        private History(PairBuffer pairs) {
+            int n = pairs.size;
+            long[] sortedBooks = Arrays.copyOf(pairs.books, n);
+            Arrays.sort(sortedBooks);
+            int distinct = 0;
+            for (int k = 0; k < n; k++) {
+                if (k == 0 || sortedBooks[k] != sortedBooks[k - 1]) {
+                    sortedBooks[distinct++] = sortedBooks[k];
+                }
+            }
+            bookIds = Arrays.copyOf(sortedBooks, distinct);
+
+            int rows = 0;
+            for (int k = 0; k < n; k++) {
+                if (k == 0 || pairs.patrons[k] != pairs.patrons[k - 1]) {
+                    rows++;
+                }
+            }
+            patronIds = new long[rows];
+            patronStart = new int[rows + 1];
+            pairBooks = new int[n];
+            bookStart = new int[distinct + 1];
+            int row = -1;
+            for (int k = 0; k < n; k++) {
+                if (k == 0 || pairs.patrons[k] != pairs.patrons[k - 1]) {
+                    patronIds[++row] = pairs.patrons[k];
+                    patronStart[row] = k;
+                }
+                pairBooks[k] = Arrays.binarySearch(bookIds, pairs.books[k]);
+                bookStart[pairBooks[k] + 1]++;
+            }
+            patronStart[rows] = n;
+
+            for (int b = 0; b < distinct; b++) {
+                bookStart[b + 1] += bookStart[b];
+            }
+            bookPatrons = new int[n];
+            int[] fill = Arrays.copyOf(bookStart, distinct);
+            for (int r = 0; r < rows; r++) {
+                for (int k = patronStart[r]; k < patronStart[r + 1]; k++) {
+                    bookPatrons[fill[pairBooks[k]]++] = r;
+                }
+            }
+        }
+    }
+
+    // Counts the co-occurrences of a range of books; each task writes only its own slots
+    private final class CountTask extends RecursiveAction {
+        private final History history;
+        private final Neighbours[] result;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private CountTask(History history, Neighbours[] result, int from, int to, int threshold) {
+            this.history = history;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CountTask(history, result, from, middle, threshold),
+                        new CountTask(history, result, middle, to, threshold));
+                return;
+            }
+            int[] counts = new int[history.bookIds.length];
+            int[] touched = new int[history.bookIds.length];
+            for (int b = from; b < to; b++) {
+                int touchedSize = 0;
+                for (int p = history.bookStart[b]; p < history.bookStart[b + 1]; p++) {
+                    int row = history.bookPatrons[p];
+                    for (int k = history.patronStart[row]; k < history.patronStart[row + 1]; k++) {
+                        int other = history.pairBooks[k];
+                        if (other != b && counts[other]++ == 0) {
+                            touched[touchedSize++] = other;
+                        }
+                    }
+                }
+                result[b] = strongest(counts, touched, touchedSize);
+            }
+        }
+
+        // Keeps the highest counts, ties to the lower book id, and clears the scratch counts
+        private Neighbours strongest(int[] counts, int[] touched, int touchedSize) {
+            long[] keyed = new long[touchedSize];
+            for (int i = 0; i < touchedSize; i++) {
+                keyed[i] = ((long) counts[touched[i]] << 32) | (Integer.MAX_VALUE - touched[i]);
+            }
+            Arrays.sort(keyed);
+            int kept = Math.min(capacity, touchedSize);
+            long[] ids = new long[kept];
+            int[] shared = new int[kept];
+            for (int i = 0; i < kept; i++) {
+                long key = keyed[touchedSize - 1 - i];
+                ids[i] = history.bookIds[Integer.MAX_VALUE - (int) key];
+                shared[i] = (int) (key >>> 32);
+            }
+            for (int i = 0; i < touchedSize; i++) {
+                counts[touched[i]] = 0;
+            }
+            return new Neighbours(ids, shared, capacity);
+        }
+    }
+}
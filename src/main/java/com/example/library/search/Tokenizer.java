@@ -0,0 +1,52 @@
+package com.example.library.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Tokenizer.java
+
+// Lower-cases and splits on anything that is not a letter or digit
+final class Tokenizer {
+
+    private Tokenizer() {
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < lower.length(); i++) {
+            if (Character.isLetterOrDigit(lower.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(lower.substring(start));
+        }
+        return tokens;
+    }
+
+    // ISBNs are indexed as one token with separators removed, so "978-0-13" matches "978013"
+    static String isbnToken(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        StringBuilder token = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            }
+        }
+        return token.length() == 0 ? null : token.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.library.service;
+
+import com.example.library.event.BookChangedEvent;
+import com.example.library.event.CirculationEvent;
+import com.example.library.repository.BookAvailability;
+import com.example.library.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// AvailabilityIndex.java
+
+/**
+ * In-memory view of available copies per book, so "is this on the shelf?"
+ * never needs a query. The database stays the authority (see
+ * {@link BookRepository#checkOutCopy}); this index only applies committed
+ * changes, as deltas, so updates arriving in any order still add up.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final ConcurrentHashMap<Long, AtomicInteger> availableCopies = new ConcurrentHashMap<>();
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long started = System.nanoTime();
+        try (Stream<BookAvailability> rows = bookRepository.streamAvailability()) {
+            rows.forEach(row -> availableCopies.put(row.getId(), new AtomicInteger(row.getAvailableCopies())));
+        }
+        logger.info("Availability index loaded {} books in {} ms",
+                availableCopies.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * @return the available copies, or empty if the book is unknown
+     */
+    public OptionalInt availableCopies(Long bookId) {
+        AtomicInteger copies = availableCopies.get(bookId);
+        return copies == null ? OptionalInt.empty() : OptionalInt.of(copies.get());
+    }
+
+    // Runs before other listeners, so the change feed publishes the updated count
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCirculation(CirculationEvent event) {
+        int delta = event.getType() == CirculationEvent.Type.BORROWED ? -1 : 1;
+        adjust(event.getBookId(), delta);
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookChanged(BookChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED -> availableCopies.put(event.getBookId(),
+                    new AtomicInteger(event.getCurrent().getAvailableCopies()));
+            case UPDATED -> adjust(event.getBookId(),
+                    event.getCurrent().getAvailableCopies() - event.getPrevious().getAvailableCopies());
+            case DELETED -> availableCopies.remove(event.getBookId());
+        }
+    }
+
+    private void adjust(Long bookId, int delta) {
+        AtomicInteger copies = availableCopies.get(bookId);
+        if (copies != null) {
+            copies.addAndGet(delta);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.event.BookChangedEvent;
+import com.example.library.repository.BookRepository;
+import com.example.library.response.BulkImportResponse;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// BookImportService.java
+
+/**
+ * Imports a JSON array or NDJSON stream of books. Rows are parsed one at a
+ * time, validated against the entity constraints and written in chunks, each
+ * chunk in its own transaction so the insert statements go out as JDBC
+ * batches (see hibernate.jdbc.batch_size).
+ */
+@Service
+public class BookImportService {
+
+    // Rows per transaction; a failed chunk is reported and the import moves on
+    private static final int CHUNK_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(BookImportService.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BulkImportResponse importBooks(InputStream body) throws IOException {
+        BulkImportResponse result = new BulkImportResponse();
+        List<Book> chunk = new ArrayList<>(CHUNK_SIZE);
+        int[] chunkRows = new int[CHUNK_SIZE];
+        int row = 0;
+
+        // readValues iterates the elements of a top-level array, or each value of an NDJSON stream
+        try (MappingIterator<Book> rows = objectMapper.readerFor(Book.class).readValues(body)) {
+            while (true) {
+                Book book;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    row++;
+                    result.recordReceived();
+                    book = rows.nextValue();
+                } catch (JsonMappingException e) {
+                    // Well-formed JSON that does not fit a Book; the iterator resyncs to the next value
+                    result.recordFailure(row, "Invalid book: " + e.getOriginalMessage());
+                    continue;
+                } catch (IOException e) {
+                    // Malformed JSON: there is no reliable way to find the next row
+                    result.recordFailure(row, "Malformed JSON, import stopped: " + e.getMessage());
+                    break;
+                }
+
+                String violations = validate(book);
+                if (violations != null) {
+                    result.recordFailure(row, violations);
+                    continue;
+                }
+
+                book.setId(null);  // Imported rows are always inserts
+                if (book.getTotalCopies() == null) {
+                    book.setTotalCopies(1);
+                }
+                book.setAvailableCopies(book.getTotalCopies());
+                chunkRows[chunk.size()] = row;
+                chunk.add(book);
+                if (chunk.size() == CHUNK_SIZE) {
+                    saveChunk(chunk, chunkRows, result);
+                }
+            }
+        }
+        saveChunk(chunk, chunkRows, result);
+
+        logger.info("Book import finished: {} received, {} imported, {} failed",
+                result.getReceived(), result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private String validate(Book book) {
+        Set<ConstraintViolation<Book>> violations = validator.validate(book);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        StringBuilder errorMessage = new StringBuilder("Validation error(s): ");
+        violations.forEach(violation -> errorMessage.append(violation.getPropertyPath())
+                .append(": ").append(violation.getMessage()).append("; "));
+        return errorMessage.toString();
+    }
+
+    private void saveChunk(List<Book> chunk, int[] chunkRows, BulkImportResponse result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                bookRepository.saveAll(chunk);
+                chunk.forEach(book -> eventPublisher.publishEvent(
+                        new BookChangedEvent(BookChangedEvent.Type.CREATED, null, book)));
+                entityManager.flush();
+                entityManager.clear();
+            });
+            result.recordImported(chunk.size());
+        } catch (DataAccessException | PersistenceException e) {
+            logger.error("Failed to import a chunk of {} books", chunk.size(), e);
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (int i = 0; i < chunk.size(); i++) {
+                result.recordFailure(chunkRows[i], "Database error: " + cause);
+            }
+        }
+        chunk.clear();
+    }
+}
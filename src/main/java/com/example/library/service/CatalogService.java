@@ -0,0 +1,96 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.event.BookChangedEvent;
+import com.example.library.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// CatalogService.java
+
+/**
+ * Adds, updates and deletes books, keeping the copy counts consistent with the
+ * loans in progress and announcing every change as a {@link BookChangedEvent}.
+ */
+@Service
+public class CatalogService {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public Book addBook(Book book) {
+        if (book.getTotalCopies() == null) {
+            book.setTotalCopies(1);
+        }
+        book.setAvailableCopies(book.getTotalCopies());
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.CREATED, null, savedBook));
+        return savedBook;
+    }
+
+    /**
+     * Applies the editable fields of {@code updatedBook}. The row is locked so
+     * concurrent checkouts cannot slip in while the copy counts are adjusted.
+     * A null total, as sent by clients that predate copy counts, keeps the
+     * current one.
+     *
+     * @throws IllegalArgumentException if the new total is below the copies on loan
+     */
+    @Transactional
+    public Optional<Book> updateBook(Long id, Book updatedBook) {
+        Optional<Book> optionalBook = bookRepository.findByIdForUpdate(id);
+        if (!optionalBook.isPresent()) {
+            return Optional.empty();
+        }
+        Book existingBook = optionalBook.get();
+        Book previous = copyOf(existingBook);
+
+        int onLoan = existingBook.getTotalCopies() - existingBook.getAvailableCopies();
+        int totalCopies = updatedBook.getTotalCopies() != null ? updatedBook.getTotalCopies() : existingBook.getTotalCopies();
+        if (totalCopies < onLoan) {
+            throw new IllegalArgumentException("Total copies cannot be lower than the "
+                    + onLoan + " copies currently on loan.");
+        }
+        existingBook.setTitle(updatedBook.getTitle());
+        existingBook.setAuthor(updatedBook.getAuthor());
+        existingBook.setPublicationYear(updatedBook.getPublicationYear());
+        existingBook.setIsbn(updatedBook.getIsbn());
+        existingBook.setTotalCopies(totalCopies);
+        existingBook.setAvailableCopies(totalCopies - onLoan);
+
+        eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.UPDATED, previous, existingBook));
+        return Optional.of(existingBook);
+    }
+
+    @Transactional
+    public boolean deleteBook(Long id) {
+        Optional<Book> optionalBook = bookRepository.findById(id);
+        if (!optionalBook.isPresent()) {
+            return false;
+        }
+        bookRepository.delete(optionalBook.get());
+        eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.DELETED, optionalBook.get(), null));
+        return true;
+    }
+
+    // Detached snapshot of a managed book, for the "previous" side of an event
+    private static Book copyOf(Book book) {
+        Book copy = new Book();
+        copy.setId(book.getId());
+        copy.setTitle(book.getTitle());
+        copy.setAuthor(book.getAuthor());
+        copy.setPublicationYear(book.getPublicationYear());
+        copy.setIsbn(book.getIsbn());
+        copy.setTotalCopies(book.getTotalCopies());
+        copy.setAvailableCopies(book.getAvailableCopies());
+        return copy;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.library.service;
+
+import com.example.library.entity.BorrowingRecord;
+import com.example.library.response.CirculationStatus;
+
+// CirculationResult.java
+
+// Outcome of a single borrow or return; the record is set when the operation succeeded
+public class CirculationResult {
+    private final CirculationStatus status;
+    private final BorrowingRecord borrowingRecord;
+
+    private CirculationResult(CirculationStatus status, BorrowingRecord borrowingRecord) {
+        this.status = status;
+        this.borrowingRecord = borrowingRecord;
+    }
+
+    public static CirculationResult of(CirculationStatus status) {
+        return new CirculationResult(status, null);
+    }
+
+    public static CirculationResult of(CirculationStatus status, BorrowingRecord borrowingRecord) {
+        return new CirculationResult(status, borrowingRecord);
+    }
+
+    public CirculationStatus getStatus() {
+        return status;
+    }
+
+    public BorrowingRecord getBorrowingRecord() {
+        return borrowingRecord;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.BorrowingRecord;
+import com.example.library.entity.Patron;
+import com.example.library.event.CirculationEvent;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.PatronRepository;
+import com.example.library.response.BatchCirculationResponse;
+import com.example.library.response.CirculationStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+// CirculationService.java
+
+/**
+ * Borrowing and returning of books.
+ *
+ * <p>Copy counts are enforced by the database: a checkout is a conditional
+ * {@code UPDATE} on the book row ({@link BookRepository#checkOutCopy}), which
+ * takes a row lock until commit. Concurrent checkouts of one title queue on
+ * that row only, and the open-loan check for the patron runs after the lock is
+ * held so two requests for the same book and patron cannot both pass it.
+ *
+ * <p>Single operations resolve the book and patron through {@link EntityCache};
+ * those shared instances are only read, as query parameters and association
+ * targets. The batch operations load the patron, the books and the patron's open
+ * loans with one query each and apply every change in one transaction.
+ */
+@Service
+public class CirculationService {
+
+    @Value("${library.loans.period:14d}")
+    private Duration loanPeriod;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Transactional
+    public CirculationResult borrow(Long bookId, Long patronId) {
+        Optional<Book> optionalBook = entityCache.findBook(bookId);
+        if (!optionalBook.isPresent()) {
+            return CirculationResult.of(CirculationStatus.BOOK_NOT_FOUND);
+        }
+        Optional<Patron> optionalPatron = entityCache.findPatron(patronId);
+        if (!optionalPatron.isPresent()) {
+            return CirculationResult.of(CirculationStatus.PATRON_NOT_FOUND);
+        }
+        Book book = optionalBook.get();
+        Patron patron = optionalPatron.get();
+
+        boolean checkedOut = bookRepository.checkOutCopy(bookId) == 1;
+        boolean alreadyBorrowed =
+                borrowingRecordRepository.findByBookAndPatronAndReturnDateIsNull(book, patron).isPresent();
+        if (alreadyBorrowed) {
+            if (checkedOut) {
+                bookRepository.checkInCopy(bookId);
+            }
+            return CirculationResult.of(CirculationStatus.ALREADY_BORROWED);
+        }
+        if (!checkedOut) {
+            return CirculationResult.of(CirculationStatus.NO_COPIES_AVAILABLE);
+        }
+
+        BorrowingRecord borrowingRecord = newLoan(book, patron, LocalDate.now());
+        borrowingRecordRepository.save(borrowingRecord);
+        publish(CirculationEvent.Type.BORROWED, borrowingRecord);
+        return CirculationResult.of(CirculationStatus.BORROWED, borrowingRecord);
+    }
+
+    @Transactional
+    public CirculationResult giveBack(Long bookId, Long patronId) {
+        Optional<Book> optionalBook = entityCache.findBook(bookId);
+        if (!optionalBook.isPresent()) {
+            return CirculationResult.of(CirculationStatus.BOOK_NOT_FOUND);
+        }
+        Optional<Patron> optionalPatron = entityCache.findPatron(patronId);
+        if (!optionalPatron.isPresent()) {
+            return CirculationResult.of(CirculationStatus.PATRON_NOT_FOUND);
+        }
+
+        Optional<BorrowingRecord> optionalBorrowingRecord =
+                borrowingRecordRepository.findByBookAndPatronAndReturnDateIsNull(optionalBook.get(), optionalPatron.get());
+        if (!optionalBorrowingRecord.isPresent() || !close(optionalBorrowingRecord.get(), LocalDate.now())) {
+            return CirculationResult.of(CirculationStatus.NOT_BORROWED);
+        }
+        return CirculationResult.of(CirculationStatus.RETURNED, optionalBorrowingRecord.get());
+    }
+
+    /**
+     * @return a per-book result in request order, or empty if the patron does not exist
+     */
+    @Transactional
+    public Optional<BatchCirculationResponse> borrowBatch(Long patronId, List<Long> bookIds) {
+        Optional<Patron> optionalPatron = patronRepository.findById(patronId);
+        if (!optionalPatron.isPresent()) {
+            return Optional.empty();
+        }
+        Patron patron = optionalPatron.get();
+
+        Map<Long, Book> books = loadBooks(new LinkedHashSet<>(bookIds));
+        // Take the row locks in id order so overlapping batches cannot deadlock
+        Set<Long> checkedOut = new HashSet<>();
+        for (Long bookId : new TreeSet<>(books.keySet())) {
+            if (bookRepository.checkOutCopy(bookId) == 1) {
+                checkedOut.add(bookId);
+            }
+        }
+        // Queried after locking, for the same reason as in borrow()
+        Set<Long> onLoan = new HashSet<>();
+        for (BorrowingRecord record : findOpenLoans(patron, books.keySet())) {
+            onLoan.add(record.getBook().getId());
+        }
+
+        LocalDate today = LocalDate.now();
+        Map<Long, BorrowingRecord> created = new HashMap<>();
+        for (Long bookId : checkedOut) {
+            if (onLoan.contains(bookId)) {
+                bookRepository.checkInCopy(bookId);
+            } else {
+                created.put(bookId, newLoan(books.get(bookId), patron, today));
+            }
+        }
+        // Ids come from the pooled sequence on persist; the inserts themselves are batched at commit
+        borrowingRecordRepository.saveAll(created.values());
+        created.values().forEach(record -> publish(CirculationEvent.Type.BORROWED, record));
+
+        BatchCirculationResponse response = new BatchCirculationResponse(patronId);
+        Set<Long> seen = new HashSet<>();
+        for (Long bookId : bookIds) {
+            if (!seen.add(bookId)) {
+                response.add(bookId, CirculationStatus.DUPLICATE, null);
+            } else if (!books.containsKey(bookId)) {
+                response.add(bookId, CirculationStatus.BOOK_NOT_FOUND, null);
+            } else if (onLoan.contains(bookId)) {
+                response.add(bookId, CirculationStatus.ALREADY_BORROWED, null);
+            } else if (!created.containsKey(bookId)) {
+                response.add(bookId, CirculationStatus.NO_COPIES_AVAILABLE, null);
+            } else {
+                response.add(bookId, CirculationStatus.BORROWED, created.get(bookId).getId());
+            }
+        }
+        return Optional.of(response);
+    }
+
+    /**
+     * @return a per-book result in request order, or empty if the patron does not exist
+     */
+    @Transactional
+    public Optional<BatchCirculationResponse> returnBatch(Long patronId, List<Long> bookIds) {
+        Optional<Patron> optionalPatron = patronRepository.findById(patronId);
+        if (!optionalPatron.isPresent()) {
+            return Optional.empty();
+        }
+        Patron patron = optionalPatron.get();
+
+        Map<Long, Book> books = loadBooks(new LinkedHashSet<>(bookIds));
+        Map<Long, BorrowingRecord> returned = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        // Loans come in book id order, so the book rows are locked in the same order as in borrowBatch
+        for (BorrowingRecord record : findOpenLoans(patron, books.keySet())) {
+            if (close(record, today)) {
+                returned.put(record.getBook().getId(), record);
+            }
+        }
+
+        BatchCirculationResponse response = new BatchCirculationResponse(patronId);
+        Set<Long> seen = new HashSet<>();
+        for (Long bookId : bookIds) {
+            if (!seen.add(bookId)) {
+                response.add(bookId, CirculationStatus.DUPLICATE, null);
+            } else if (!books.containsKey(bookId)) {
+                response.add(bookId, CirculationStatus.BOOK_NOT_FOUND, null);
+            } else if (!returned.containsKey(bookId)) {
+                response.add(bookId, CirculationStatus.NOT_BORROWED, null);
+            } else {
+                response.add(bookId, CirculationStatus.RETURNED, returned.get(bookId).getId());
+            }
+        }
+        return Optional.of(response);
+    }
+
+    private BorrowingRecord newLoan(Book book, Patron patron, LocalDate borrowDate) {
+        BorrowingRecord borrowingRecord = new BorrowingRecord();
+        borrowingRecord.setBook(book);
+        borrowingRecord.setPatron(patron);
+        borrowingRecord.setBorrowDate(borrowDate);
+        borrowingRecord.setDueDate(borrowDate.plusDays(loanPeriod.toDays()));
+        return borrowingRecord;
+    }
+
+    // Closes an open loan and puts the copy back; false if a concurrent return got there first
+    private boolean close(BorrowingRecord borrowingRecord, LocalDate returnDate) {
+        if (borrowingRecordRepository.markReturned(borrowingRecord.getId(), returnDate) == 0) {
+            return false;
+        }
+        borrowingRecord.setReturnDate(returnDate);
+        bookRepository.checkInCopy(borrowingRecord.getBook().getId());
+        publish(CirculationEvent.Type.RETURNED, borrowingRecord);
+        return true;
+    }
+
+    private void publish(CirculationEvent.Type type, BorrowingRecord borrowingRecord) {
+        LocalDate date = type == CirculationEvent.Type.BORROWED
+                ? borrowingRecord.getBorrowDate() : borrowingRecord.getReturnDate();
+        eventPublisher.publishEvent(new CirculationEvent(type, borrowingRecord.getId(),
+                borrowingRecord.getBook().getId(), borrowingRecord.getPatron().getId(), date));
+    }
+
+    private List<BorrowingRecord> findOpenLoans(Patron patron, Set<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return borrowingRecordRepository.findOpenByPatronAndBookIds(patron, bookIds);
+    }
+
+    private Map<Long, Book> loadBooks(Set<Long> bookIds) {
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllById(bookIds)) {
+            books.put(book.getId(), book);
+        }
+        return books;
+    }
+}
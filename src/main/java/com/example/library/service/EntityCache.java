@@ -0,0 +1,103 @@
+package com.example.library.service;
+
+import com.example.library.config.ReadWriteRoutingDataSource;
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import com.example.library.event.BookChangedEvent;
+import com.example.library.event.CirculationEvent;
+import com.example.library.event.PatronChangedEvent;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.PatronRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// EntityCache.java
+
+/**
+ * Bounded read-through cache in front of {@link BookRepository#findById} and
+ * {@link PatronRepository#findById}. Entries expire after a fixed time and are
+ * invalidated once a change to them commits. Hit, miss and eviction counts
+ * are published as the {@code cache.*} meters tagged {@code cache=books|patrons}.
+ *
+ * <p>Cached instances are shared between requests and must be treated as
+ * read-only; code that modifies an entity loads it through the repository.
+ */
+@Component
+public class EntityCache {
+
+    @Value("${library.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${library.cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, Book> books;
+    private Cache<Long, Patron> patrons;
+
+    @PostConstruct
+    void init() {
+        books = CaffeineCacheMetrics.monitor(meterRegistry, this.<Book>newCache(), "books");
+        patrons = CaffeineCacheMetrics.monitor(meterRegistry, this.<Patron>newCache(), "patrons");
+    }
+
+    private <V> Cache<Long, V> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Book> findBook(Long id) {
+        // A null load (unknown id) is not cached. Loads read the primary: a row from a lagging
+        // replica would otherwise stay cached until it expires.
+        return Optional.ofNullable(books.get(id, key -> ReadWriteRoutingDataSource.onPrimary(
+                () -> bookRepository.findById(key).orElse(null))));
+    }
+
+    public Optional<Patron> findPatron(Long id) {
+        return Optional.ofNullable(patrons.get(id, key -> ReadWriteRoutingDataSource.onPrimary(
+                () -> patronRepository.findById(key).orElse(null))));
+    }
+
+    // Runs before other listeners, so ResponseBodyCache reloads from the database rather than a stale entry
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookChanged(BookChangedEvent event) {
+        books.invalidate(event.getBookId());
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPatronChanged(PatronChangedEvent event) {
+        patrons.invalidate(event.getPatronId());
+    }
+
+    // The cached book carries its available copy count
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCirculation(CirculationEvent event) {
+        books.invalidate(event.getBookId());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.library.service;
+
+import com.example.library.repository.ArchivedLoanRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.PatronRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// ExportService.java
+
+/**
+ * Writes whole tables as newline-delimited JSON straight from a forward-only
+ * JDBC cursor. Rows are detached once written and the persistence context is
+ * cleared on every flush, so heap use stays flat regardless of table size.
+ * The borrowing records export also covers the loans archived to
+ * loan_history, read after borrowing_record in the same repeatable-read
+ * transaction, as a catalog snapshot reads its tables.
+ */
+@Service
+public class ExportService {
+
+    // Rows written between flushes to the client (and persistence context clears)
+    private static final int FLUSH_EVERY = 500;
+
+    private final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void writeBooks(OutputStream out) throws IOException {
+        writeNdjson("books", List.of(bookRepository::streamAll), out);
+    }
+
+    public void writePatrons(OutputStream out) throws IOException {
+        writeNdjson("patrons", List.of(patronRepository::streamAll), out);
+    }
+
+    public void writeBorrowingRecords(OutputStream out) throws IOException {
+        // Open and recent loans, then the archived ones
+        writeNdjson("borrowing records", List.of(borrowingRecordRepository::streamAll, archivedLoanRepository::streamAll), out);
+    }
+
+    // Writes the rows of each query in turn, as one stream read in one transaction
+    private void writeNdjson(String what, List<Supplier<Stream<?>>> queries, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        long started = System.nanoTime();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Long rows = transaction.execute(status -> {
+                long count = 0;
+                try {
+                    for (Supplier<Stream<?>> query : queries) {
+                        try (Stream<?> stream = query.get()) {
+                            count += writeRows(stream.iterator(), writer, generator);
+                        }
+                    }
+                    if (count > 0) {
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+            logger.info("Exported {} {} in {} ms", rows, what, (System.nanoTime() - started) / 1_000_000);
+        } catch (UncheckedIOException e) {
+            // Usually the client went away mid-stream; nothing more can be sent
+            logger.warn("Export of {} aborted: {}", what, e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+
+    private long writeRows(Iterator<?> rows, ObjectWriter writer, JsonGenerator generator) throws IOException {
+        long count = 0;
+        while (rows.hasNext()) {
+            Object row = rows.next();
+            writer.writeValue(generator, row);
+            entityManager.detach(row);
+            count++;
+            // Flush the first row immediately so the client sees bytes right away
+            if (count == 1 || count % FLUSH_EVERY == 0) {
+                generator.flush();
+                entityManager.clear();
+            }
+        }
+        return count;
+    }
+}
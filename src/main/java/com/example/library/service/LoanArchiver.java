@@ -0,0 +1,120 @@
+package com.example.library.service;
+
+import com.example.library.repository.ArchivedLoanRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+// LoanArchiver.java
+
+/**
+ * Moves loans returned more than {@code library.archive.min-age} ago from
+ * borrowing_record to loan_history, so the table behind every borrow and
+ * return only holds open and recent loans.
+ *
+ * <p>Each batch copies and deletes up to {@code batch-size} loans in one
+ * short transaction, then pauses for {@code batch-pause} so circulation
+ * requests get the connection pool and the row locks back. A run continues
+ * until nothing is left to move or the application shuts down. Closed loans
+ * are never updated again, so copying them cannot race with circulation.
+ */
+@Component
+@ConditionalOnProperty(name = "library.archive.enabled", havingValue = "true")
+public class LoanArchiver {
+
+    private final Logger logger = LoggerFactory.getLogger(LoanArchiver.class);
+
+    @Value("${library.archive.min-age:365d}")
+    private Duration minAge;
+
+    @Value("${library.archive.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${library.archive.batch-pause:100ms}")
+    private Duration batchPause;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter archived;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        archived = Counter.builder("library.archive.loans")
+                .description("Returned loans moved to the history table")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        stopping = true;
+    }
+
+    @Scheduled(cron = "${library.archive.cron:0 30 1 * * *}")
+    public void archive() {
+        long started = System.nanoTime();
+        LocalDate cutoff = LocalDate.now().minusDays(minAge.toDays());
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> moveBatch(cutoff));
+            total += moved;
+            archived.increment(moved);
+        } while (moved == batchSize && pause());
+        if (total > 0) {
+            logger.info("Archived {} loans returned before {} in {} ms",
+                    total, cutoff, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private int moveBatch(LocalDate cutoff) {
+        List<Long> ids = borrowingRecordRepository.findArchivableIds(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedLoanRepository.copyFromBorrowingRecords(ids);
+        return borrowingRecordRepository.deleteByIdIn(ids);
+    }
+
+    // false when the run should stop
+    private boolean pause() {
+        if (stopping) {
+            return false;
+        }
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return !stopping;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.library.service;
+
+import com.example.library.repository.ArchivedLoanRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.response.LoanSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// LoanHistoryService.java
+
+/**
+ * Loan history pages over both the live loans and the archive. Ids are
+ * unique across the two tables, so each page reads up to {@code limit} rows
+ * after the cursor from each and keeps the lowest ids: one query per table,
+ * whatever the page size. Open loans are never archived, so an active-only
+ * page reads only the live table.
+ */
+@Service
+public class LoanHistoryService {
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Transactional(readOnly = true)
+    public List<LoanSummary> patronLoans(Long patronId, long afterId, int limit, boolean activeOnly) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (activeOnly) {
+            return borrowingRecordRepository.findOpenPatronLoans(patronId, afterId, page);
+        }
+        return merge(borrowingRecordRepository.findPatronLoans(patronId, afterId, page),
+                archivedLoanRepository.findPatronLoans(patronId, afterId, page), limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<LoanSummary> bookLoans(Long bookId, long afterId, int limit, boolean activeOnly) {
+        PageRequest page = PageRequest.of(0, limit);
+        if (activeOnly) {
+            return borrowingRecordRepository.findOpenBookLoans(bookId, afterId, page);
+        }
+        return merge(borrowingRecordRepository.findBookLoans(bookId, afterId, page),
+                archivedLoanRepository.findBookLoans(bookId, afterId, page), limit);
+    }
+
+    // Both inputs are in id order
+    private static List<LoanSummary> merge(List<LoanSummary> current, List<LoanSummary> archived, int limit) {
+        if (archived.isEmpty()) {
+            return current;
+        }
+        List<LoanSummary> merged = new ArrayList<>(Math.min(limit, current.size() + archived.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < current.size() || j < archived.size())) {
+            if (j == archived.size() || (i < current.size() && current.get(i).getId() < archived.get(j).getId())) {
+                merged.add(current.get(i++));
+            } else {
+                merged.add(archived.get(j++));
+            }
+        }
+        return merged;
+    }
+}
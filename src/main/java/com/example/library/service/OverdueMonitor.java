@@ -0,0 +1,98 @@
+package com.example.library.service;
+
+import com.example.library.event.OverdueEvent;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.DueLoan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// OverdueMonitor.java
+
+/**
+ * Publishes an {@link OverdueEvent} for each open loan once its due date has
+ * passed.
+ *
+ * <p>Each run reads only the loans that fell due since the previous run, as a
+ * range of the (return_date, due_date) index, so its cost follows the number
+ * of loans coming due rather than the size of the table. The first run after
+ * startup covers every loan that is already overdue.
+ */
+@Component
+public class OverdueMonitor {
+
+    // Lower bound for the first run; earlier than any due date the application assigns
+    private static final LocalDate EARLIEST_DUE_DATE = LocalDate.of(1900, 1, 1);
+
+    private final Logger logger = LoggerFactory.getLogger(OverdueMonitor.class);
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Startup and scheduled runs must not overlap
+    private final ReentrantLock lock = new ReentrantLock();
+    private Counter detected;
+    // Loans due before this date have been announced
+    private LocalDate announcedBefore = EARLIEST_DUE_DATE;
+
+    @PostConstruct
+    void registerMetrics() {
+        detected = Counter.builder("library.loans.overdue.detected")
+                .description("Loans announced as overdue")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.loans.overdue-check-cron:0 5 0 * * *}")
+    @Transactional(readOnly = true)
+    public void announceOverdueLoans() {
+        announceOverdueLoans(LocalDate.now());
+    }
+
+    // Announces the loans due before today that earlier runs have not covered
+    @Transactional(readOnly = true)
+    void announceOverdueLoans(LocalDate today) {
+        lock.lock();
+        try {
+            if (today.isAfter(announcedBefore)) {
+                announce(today);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void announce(LocalDate today) {
+        long started = System.nanoTime();
+        int count = 0;
+        try (Stream<DueLoan> loans = borrowingRecordRepository.streamFallingDue(announcedBefore, today)) {
+            for (DueLoan loan : (Iterable<DueLoan>) loans::iterator) {
+                eventPublisher.publishEvent(new OverdueEvent(loan.getId(), loan.getBookId(), loan.getPatronId(), loan.getDueDate()));
+                count++;
+            }
+        }
+        detected.increment(count);
+        logger.info("{} loans became overdue between {} and {} ({} ms)",
+                count, announcedBefore, today.minusDays(1), (System.nanoTime() - started) / 1_000_000);
+        announcedBefore = today;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.library.service;
+
+import com.example.library.entity.Patron;
+import com.example.library.event.PatronChangedEvent;
+import com.example.library.repository.PatronRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+// PatronService.java
+
+// Adds, updates and deletes patrons, announcing every change as a PatronChangedEvent
+@Service
+public class PatronService {
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public Patron addPatron(Patron patron) {
+        Patron savedPatron = patronRepository.save(patron);
+        eventPublisher.publishEvent(new PatronChangedEvent(PatronChangedEvent.Type.CREATED, null, savedPatron));
+        return savedPatron;
+    }
+
+    @Transactional
+    public Optional<Patron> updatePatron(Long id, Patron updatedPatron) {
+        Optional<Patron> optionalPatron = patronRepository.findById(id);
+        if (!optionalPatron.isPresent()) {
+            return Optional.empty();
+        }
+        Patron existingPatron = optionalPatron.get();
+        Patron previous = new Patron();
+        previous.setId(existingPatron.getId());
+        previous.setName(existingPatron.getName());
+        previous.setContactInformation(existingPatron.getContactInformation());
+
+        existingPatron.setName(updatedPatron.getName());
+        existingPatron.setContactInformation(updatedPatron.getContactInformation());
+
+        eventPublisher.publishEvent(new PatronChangedEvent(PatronChangedEvent.Type.UPDATED, previous, existingPatron));
+        return Optional.of(existingPatron);
+    }
+
+    @Transactional
+    public boolean deletePatron(Long id) {
+        Optional<Patron> optionalPatron = patronRepository.findById(id);
+        if (!optionalPatron.isPresent()) {
+            return false;
+        }
+        patronRepository.delete(optionalPatron.get());
+        eventPublisher.publishEvent(new PatronChangedEvent(PatronChangedEvent.Type.DELETED, optionalPatron.get(), null));
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.library.service;
+
+import com.example.library.config.ReadWriteRoutingDataSource;
+import com.example.library.event.CirculationEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// ReadYourWrites.java
+
+/**
+ * Remembers patrons who borrowed or returned a book in the last
+ * {@code library.datasource.read-your-writes} and sends their own reads to
+ * the primary, so a patron never sees a replica that has not caught up with
+ * their loan yet. A zero window turns this off.
+ */
+@Component
+public class ReadYourWrites {
+
+    @Value("${library.datasource.read-your-writes:5s}")
+    private Duration window;
+
+    private Cache<Long, Boolean> recentWriters;
+
+    @PostConstruct
+    void init() {
+        if (!window.isZero()) {
+            recentWriters = Caffeine.newBuilder()
+                    .expireAfterWrite(window)
+                    .maximumSize(100_000)
+                    .build();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCirculation(CirculationEvent event) {
+        if (recentWriters != null) {
+            recentWriters.put(event.getPatronId(), Boolean.TRUE);
+        }
+    }
+
+    public <T> T forPatron(Long patronId, Supplier<T> read) {
+        if (recentWriters != null && recentWriters.getIfPresent(patronId) != null) {
+            return ReadWriteRoutingDataSource.onPrimary(read);
+        }
+        return read.get();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.library.service;
+
+import com.example.library.event.BookChangedEvent;
+import com.example.library.event.CirculationEvent;
+import com.example.library.event.PatronChangedEvent;
+import com.example.library.response.HotKey;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+// ResponseBodyCache.java
+
+/**
+ * JSON bodies of single books and patrons, serialized once per version and
+ * served as bytes with a strong ETag. A poll that hits the cache touches
+ * neither the database nor Jackson, and one that carries the current ETag is
+ * answered 304 by Spring before the body is written.
+ *
+ * <p>ETags are {@code "<start time>.<id>.<version>"}. Versions restart when
+ * the database does (it is in memory, or restored from a snapshot), so the
+ * start time keeps a restarted server from confirming a stale client copy.
+ *
+ * <p>Entries are loaded through {@link EntityCache} and invalidated when a
+ * change commits; EntityCache's listeners are ordered first, so a reload
+ * after the invalidation reads the committed row. Misses go through a {@link SingleFlight}, so a burst of
+ * requests for an id that just dropped out of the cache runs one load and
+ * shares it; an invalidation detaches the load in progress, so a body
+ * serialized from the old row is not cached after it.
+ */
+@Component
+public class ResponseBodyCache {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @Value("${library.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${library.cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${library.cache.load-wait:2s}")
+    private Duration loadWait;
+
+    @Value("${library.cache.hot-keys:1000}")
+    private int hotKeys;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, SerializedBody> books;
+    private Cache<Long, SerializedBody> patrons;
+    private SingleFlight<Long, SerializedBody> bookLoads;
+    private SingleFlight<Long, SerializedBody> patronLoads;
+
+    @PostConstruct
+    void init() {
+        books = CaffeineCacheMetrics.monitor(meterRegistry, newCache(), "book-bodies");
+        patrons = CaffeineCacheMetrics.monitor(meterRegistry, newCache(), "patron-bodies");
+        bookLoads = new SingleFlight<>("book-bodies", loadWait, hotKeys, meterRegistry);
+        patronLoads = new SingleFlight<>("patron-bodies", loadWait, hotKeys, meterRegistry);
+    }
+
+    private Cache<Long, SerializedBody> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @throws SingleFlight.WaitTimeoutException if a load of the same id was
+     *         already running and did not finish within {@code library.cache.load-wait}
+     */
+    public Optional<SerializedBody> findBook(Long id) {
+        SerializedBody cached = books.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return Optional.ofNullable(bookLoads.load(id, key -> entityCache.findBook(key)
+                .map(book -> serialize(book, book.getId(), book.getVersion()))
+                .orElse(null), books::put));
+    }
+
+    public Optional<SerializedBody> findPatron(Long id) {
+        SerializedBody cached = patrons.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return Optional.ofNullable(patronLoads.load(id, key -> entityCache.findPatron(key)
+                .map(patron -> serialize(patron, patron.getId(), patron.getVersion()))
+                .orElse(null), patrons::put));
+    }
+
+    // Ids whose misses were most often shared by concurrent requests
+    public List<HotKey> hotBooks(int limit) {
+        return hotKeys(bookLoads, limit);
+    }
+
+    public List<HotKey> hotPatrons(int limit) {
+        return hotKeys(patronLoads, limit);
+    }
+
+    private static List<HotKey> hotKeys(SingleFlight<Long, SerializedBody> loads, int limit) {
+        return loads.mostCoalesced(limit).stream()
+                .map(counter -> new HotKey(counter.getKey(), counter.getCount(), loads.executedLoads(counter.getKey())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * ETag of a list page: changes whenever a row on it is added, removed or
+     * given a new version, or the next cursor moves. Cheap enough to compute
+     * from the rows already read, so a 304 skips the serialization.
+     */
+    public <T> String pageEtag(List<T> rows, ToLongFunction<T> idOf, ToLongFunction<T> versionOf, String nextCursor) {
+        // FNV-1a over the (id, version) pairs
+        long hash = 0xcbf29ce484222325L;
+        for (T row : rows) {
+            hash = (hash ^ idOf.applyAsLong(row)) * 0x100000001b3L;
+            hash = (hash ^ versionOf.applyAsLong(row)) * 0x100000001b3L;
+        }
+        if (nextCursor != null) {
+            hash = (hash ^ nextCursor.hashCode()) * 0x100000001b3L;
+        }
+        return "\"" + epoch + ".p" + Long.toHexString(hash) + "\"";
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        bookLoads.forget(event.getBookId(), () -> books.invalidate(event.getBookId()));
+    }
+
+    @TransactionalEventListener
+    public void onPatronChanged(PatronChangedEvent event) {
+        patronLoads.forget(event.getPatronId(), () -> patrons.invalidate(event.getPatronId()));
+    }
+
+    // A checkout or checkin changes the book's available copies and version
+    @TransactionalEventListener
+    public void onCirculation(CirculationEvent event) {
+        bookLoads.forget(event.getBookId(), () -> books.invalidate(event.getBookId()));
+    }
+
+    private SerializedBody serialize(Object entity, long id, long version) {
+        try {
+            return new SerializedBody("\"" + epoch + "." + id + "." + version + "\"", objectMapper.writeValueAsBytes(entity));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static final class SerializedBody {
+        private final String etag;
+        private final byte[] json;
+
+        private SerializedBody(String etag, byte[] json) {
+            this.etag = etag;
+            this.json = json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        // Shared between requests; never modify
+        public byte[] getJson() {
+            return json;
+        }
+    }
+}
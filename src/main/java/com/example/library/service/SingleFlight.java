@@ -0,0 +1,148 @@
+package com.example.library.service;
+
+import com.example.library.stats.SpaceSaving;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// SingleFlight.java
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the
+ * loader, callers arriving while it runs wait for its result (or exception)
+ * instead of loading again. Waiting is bounded by {@code maxWait}, after
+ * which a caller gives up with {@link WaitTimeoutException} rather than
+ * holding its thread for as long as a slow query takes.
+ *
+ * <p>Outcomes are counted in {@code library.cache.loads} tagged with the
+ * cache name and {@code outcome=executed|coalesced|timeout}. Per key, the
+ * most frequently loaded and waited-on keys are tracked in fixed memory with
+ * {@link SpaceSaving}.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter timedOut;
+    private final SpaceSaving<K> executedByKey;
+    private final SpaceSaving<K> coalescedByKey;
+
+    public SingleFlight(String name, Duration maxWait, int trackedKeys, MeterRegistry meterRegistry) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.executed = counter(meterRegistry, name, "executed");
+        this.coalesced = counter(meterRegistry, name, "coalesced");
+        this.timedOut = counter(meterRegistry, name, "timeout");
+        this.executedByKey = new SpaceSaving<>(trackedKeys);
+        this.coalescedByKey = new SpaceSaving<>(trackedKeys);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String outcome) {
+        return Counter.builder("library.cache.loads")
+                .description("Cache loads run, joined while in flight, or abandoned after the wait limit")
+                .tag("cache", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads {@code key}, or joins the load already in flight for it. The
+     * caller that runs the loader hands a non-null result to {@code publish}
+     * (typically a cache put) unless {@link #forget} detached the load
+     * meanwhile, so a value read before an invalidation is never published
+     * after it.
+     */
+    public V load(K key, Function<K, V> loader, BiConsumer<K, V> publish) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            coalescedByKey.add(key, 1);
+            return await(key, leader);
+        }
+
+        executed.increment();
+        executedByKey.add(key, 1);
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != flight) {
+                return current;
+            }
+            if (value != null) {
+                publish.accept(k, value);
+            }
+            return null;
+        });
+        flight.complete(value);
+        return value;
+    }
+
+    /**
+     * Detaches the load in flight for {@code key}, if any, and runs
+     * {@code invalidation} atomically with respect to its publish. Later
+     * callers start a fresh load.
+     */
+    public void forget(K key, Runnable invalidation) {
+        inFlight.compute(key, (k, current) -> {
+            invalidation.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return up to {@code limit} keys with the most coalesced waits, highest first
+     */
+    public List<SpaceSaving.Counter<K>> mostCoalesced(int limit) {
+        return coalescedByKey.top(limit);
+    }
+
+    // Upper bound on the loads executed for key, 0 if it is not among the tracked keys
+    public long executedLoads(K key) {
+        return executedByKey.count(key);
+    }
+
+    private V await(K key, CompletableFuture<V> leader) {
+        try {
+            return leader.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new WaitTimeoutException(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WaitTimeoutException(key);
+        } catch (ExecutionException e) {
+            // The leader's own exception, rethrown to every caller that waited for it
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public static class WaitTimeoutException extends RuntimeException {
+        public WaitTimeoutException(Object key) {
+            super("Gave up waiting for the load of " + key + " in progress");
+        }
+    }
+}
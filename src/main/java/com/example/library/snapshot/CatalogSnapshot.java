@@ -0,0 +1,400 @@
+package com.example.library.snapshot;
+
+import com.example.library.journal.CirculationJournal;
+import com.example.library.repository.SequenceSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+// CatalogSnapshot.java
+
+/**
+ * Binary snapshot of books, patrons and loans ({@code library.snapshot.enabled=true}),
+ * written every {@code library.snapshot.interval} and on shutdown, and loaded at
+ * startup into an empty database ahead of journal replay and the index builds.
+ *
+ * <p>Writing streams the tables over JDBC into a temporary file that replaces
+ * the previous snapshot only once it and the rename are fsynced. Loading maps the
+ * file, verifies its checksum and inserts the rows with JDBC batches, keeping
+ * their ids. Journal segments older than a written snapshot are deleted, so
+ * startup replays only what happened since. See {@link SnapshotFormat}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.snapshot.enabled", havingValue = "true")
+public class CatalogSnapshot {
+
+    // Rows per JDBC batch when loading
+    private static final int BATCH_SIZE = 5_000;
+    // Must match the allocationSize of the entity id generators
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    // Versions restart at 0; ETags also carry the start time, so a restored row never matches an old one
+    private static final String INSERT_BOOK = "INSERT INTO book (id, title, author, isbn, publication_year,"
+            + " total_copies, available_copies, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_PATRON = "INSERT INTO patron (id, name, contact_information, version)"
+            + " VALUES (?, ?, ?, 0)";
+    private static final String INSERT_LOAN = "INSERT INTO borrowing_record (id, book_id, patron_id, borrow_date, due_date,"
+            + " return_date) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ARCHIVED_LOAN = "INSERT INTO loan_history (id, book_id, patron_id, borrow_date,"
+            + " due_date, return_date) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    @Value("${library.snapshot.file:data/catalog.snapshot}")
+    private Path file;
+
+    @Value("${library.snapshot.interval:15m}")
+    private Duration interval;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private ObjectProvider<CirculationJournal> circulationJournal;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private ScheduledFuture<?> schedule;
+    private Timer writeTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        writeTimer = Timer.builder("library.snapshot.write")
+                .description("Time to write a catalog snapshot")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() {
+        if (Files.exists(file)) {
+            Long rows = jdbcTemplate.queryForObject("SELECT (SELECT COUNT(*) FROM book) + (SELECT COUNT(*) FROM patron)", Long.class);
+            if (rows == 0) {
+                load();
+            } else {
+                logger.info("Database already holds data; snapshot {} is not loaded", file);
+            }
+        }
+        schedule = taskScheduler.scheduleWithFixedDelay(this::writeQuietly, Instant.now().plus(interval), interval);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+            writeQuietly();
+        }
+    }
+
+    public void load() {
+        long started = System.nanoTime();
+        boolean inserting = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < SnapshotFormat.HEADER_SIZE + SnapshotFormat.TRAILER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot has an invalid size of " + size + " bytes");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodySize = (int) size - SnapshotFormat.TRAILER_SIZE;
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(0, bodySize));
+            if ((int) crc.getValue() != buffer.getInt(bodySize)) {
+                throw new IOException("Snapshot checksum does not match");
+            }
+            if (buffer.getInt() != SnapshotFormat.MAGIC) {
+                throw new IOException("Not a catalog snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != SnapshotFormat.VERSION) {
+                throw new IOException("Unsupported catalog snapshot version " + version);
+            }
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+            buffer.getLong(); // journal LSN covered, informational
+
+            inserting = true;
+            int[] counts = insertRows(buffer.limit(bodySize));
+            SequenceSupport.restartAfterMaxId(jdbcTemplate, "book_seq", ID_ALLOCATION_SIZE, "book");
+            SequenceSupport.restartAfterMaxId(jdbcTemplate, "patron_seq", ID_ALLOCATION_SIZE, "patron");
+            // Archived loans keep their ids, so new loans have to start above both tables
+            SequenceSupport.restartAfterMaxId(jdbcTemplate, "borrowing_record_seq", ID_ALLOCATION_SIZE,
+                    "borrowing_record", "loan_history");
+            logger.info("Loaded snapshot from {}: {} books, {} patrons, {} loans, {} archived loans in {} ms",
+                    createdAt, counts[0], counts[1], counts[2], counts[3], (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not load catalog snapshot {}; starting without it", file, e);
+            if (inserting) {
+                jdbcTemplate.execute("DELETE FROM loan_history");
+                jdbcTemplate.execute("DELETE FROM borrowing_record");
+                jdbcTemplate.execute("DELETE FROM patron");
+                jdbcTemplate.execute("DELETE FROM book");
+            }
+            setAside();
+        }
+    }
+
+    // Rows are inserted in file order, which satisfies the foreign keys; each batch commits on its own
+    private int[] insertRows(ByteBuffer buffer) throws IOException {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        Map<Long, Integer> openLoansPerBook = new HashMap<>();
+        int[] counts = new int[4];
+        byte section = SnapshotFormat.BOOK;
+
+        while (true) {
+            byte tag = buffer.get();
+            if (tag != section) {
+                flush(section, batch);
+                if (tag != SnapshotFormat.END && tag < section) {
+                    throw new IOException("Snapshot rows are out of order");
+                }
+                section = tag;
+            }
+            if (tag == SnapshotFormat.END) {
+                break;
+            } else if (tag == SnapshotFormat.BOOK) {
+                long id = buffer.getLong();
+                String title = SnapshotFormat.readString(buffer);
+                String author = SnapshotFormat.readString(buffer);
+                String isbn = SnapshotFormat.readString(buffer);
+                int publicationYear = buffer.getInt();
+                int totalCopies = buffer.getInt();
+                batch.add(new Object[]{id, title, author, isbn, publicationYear, totalCopies, totalCopies});
+            } else if (tag == SnapshotFormat.PATRON) {
+                batch.add(new Object[]{buffer.getLong(), SnapshotFormat.readString(buffer), SnapshotFormat.readString(buffer)});
+            } else if (tag == SnapshotFormat.LOAN || tag == SnapshotFormat.ARCHIVED_LOAN) {
+                long id = buffer.getLong();
+                long bookId = buffer.getLong();
+                long patronId = buffer.getLong();
+                LocalDate borrowDate = LocalDate.ofEpochDay(buffer.getLong());
+                long dueDate = buffer.getLong();
+                long returnDate = buffer.getLong();
+                batch.add(new Object[]{id, bookId, patronId, Date.valueOf(borrowDate), toDate(dueDate), toDate(returnDate)});
+                if (tag == SnapshotFormat.LOAN && returnDate == SnapshotFormat.NO_DATE) {
+                    openLoansPerBook.merge(bookId, 1, Integer::sum);
+                }
+            } else {
+                throw new IOException("Unknown snapshot row tag " + tag);
+            }
+            counts[tag - 1]++;
+            if (batch.size() == BATCH_SIZE) {
+                flush(section, batch);
+            }
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (buffer.getInt() != counts[i]) {
+                throw new IOException("Snapshot row counts do not match its contents");
+            }
+        }
+
+        List<Object[]> availability = new ArrayList<>(openLoansPerBook.size());
+        openLoansPerBook.forEach((bookId, loans) -> availability.add(new Object[]{loans, bookId}));
+        jdbcTemplate.batchUpdate("UPDATE book SET available_copies = GREATEST(0, total_copies - ?) WHERE id = ?", availability);
+        return counts;
+    }
+
+    private static Date toDate(long epochDay) {
+        return epochDay == SnapshotFormat.NO_DATE ? null : Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+
+    private void flush(byte section, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        String sql = section == SnapshotFormat.BOOK ? INSERT_BOOK
+                : section == SnapshotFormat.PATRON ? INSERT_PATRON
+                : section == SnapshotFormat.LOAN ? INSERT_LOAN
+                : INSERT_ARCHIVED_LOAN;
+        jdbcTemplate.batchUpdate(sql, batch);
+        batch.clear();
+    }
+
+    private void setAside() {
+        try {
+            Path aside = file.resolveSibling(file.getFileName() + ".unreadable");
+            Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+            logger.warn("Moved the unreadable snapshot to {}", aside);
+        } catch (IOException e) {
+            logger.warn("Could not move the unreadable snapshot {} aside", file, e);
+        }
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not write catalog snapshot {}", file, e);
+        }
+    }
+
+    public void write() throws IOException {
+        writeLock.lock();
+        try {
+            long started = System.nanoTime();
+            CirculationJournal journal = circulationJournal.getIfAvailable();
+            // Every event up to here was committed before the snapshot transaction starts
+            long journalLsn = journal == null ? 0 : journal.getLastLsn();
+
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            int[] counts;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                CRC32C crc = new CRC32C();
+                OutputStream raw = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(raw, crc));
+                out.writeInt(SnapshotFormat.MAGIC);
+                out.writeInt(SnapshotFormat.VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeLong(journalLsn);
+
+                counts = writeRows(out);
+
+                out.writeByte(SnapshotFormat.END);
+                for (int count : counts) {
+                    out.writeInt(count);
+                }
+                out.flush();
+                new DataOutputStream(raw).writeInt((int) crc.getValue());
+                raw.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // The rename survives a crash only once the directory is synced; until then the segments are still needed
+            try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+                directory.force(true);
+            }
+            if (journal != null) {
+                journal.deleteSegmentsThrough(journalLsn);
+            }
+
+            long elapsed = System.nanoTime() - started;
+            writeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            logger.info("Wrote snapshot {}: {} books, {} patrons, {} loans, {} archived loans in {} ms",
+                    file, counts[0], counts[1], counts[2], counts[3], elapsed / 1_000_000);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private int[] writeRows(DataOutputStream out) throws IOException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        int[] counts = new int[4];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.query("SELECT id, title, author, isbn, publication_year, total_copies FROM book ORDER BY id", row -> {
+                    write(() -> {
+                        out.writeByte(SnapshotFormat.BOOK);
+                        out.writeLong(row.getLong(1));
+                        SnapshotFormat.writeString(out, row.getString(2));
+                        SnapshotFormat.writeString(out, row.getString(3));
+                        SnapshotFormat.writeString(out, row.getString(4));
+                        out.writeInt(row.getInt(5));
+                        out.writeInt(row.getInt(6));
+                    });
+                    counts[0]++;
+                });
+                jdbcTemplate.query("SELECT id, name, contact_information FROM patron ORDER BY id", row -> {
+                    write(() -> {
+                        out.writeByte(SnapshotFormat.PATRON);
+                        out.writeLong(row.getLong(1));
+                        SnapshotFormat.writeString(out, row.getString(2));
+                        SnapshotFormat.writeString(out, row.getString(3));
+                    });
+                    counts[1]++;
+                });
+                // Returned loans too: the journal segments this snapshot replaces may be their only other copy
+                writeLoans(out, SnapshotFormat.LOAN, "borrowing_record", counts);
+                writeLoans(out, SnapshotFormat.ARCHIVED_LOAN, "loan_history", counts);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return counts;
+    }
+
+    private void writeLoans(DataOutputStream out, byte tag, String table, int[] counts) {
+        jdbcTemplate.query("SELECT id, book_id, patron_id, borrow_date, due_date, return_date FROM " + table
+                + " ORDER BY id", row -> {
+            write(() -> {
+                out.writeByte(tag);
+                out.writeLong(row.getLong(1));
+                out.writeLong(row.getLong(2));
+                out.writeLong(row.getLong(3));
+                out.writeLong(row.getDate(4).toLocalDate().toEpochDay());
+                out.writeLong(toEpochDay(row.getDate(5)));
+                out.writeLong(toEpochDay(row.getDate(6)));
+            });
+            counts[tag - 1]++;
+        });
+    }
+
+    private static long toEpochDay(Date date) {
+        return date == null ? SnapshotFormat.NO_DATE : date.toLocalDate().toEpochDay();
+    }
+
+    private interface RowWriter {
+        void write() throws IOException, SQLException;
+    }
+
+    // Lets the JDBC row callbacks, which may only throw SQLException, write to the stream
+    private static void write(RowWriter writer) throws SQLException {
+        try {
+            writer.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
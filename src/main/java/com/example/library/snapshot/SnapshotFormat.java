@@ -0,0 +1,68 @@
+package com.example.library.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// SnapshotFormat.java
+
+/**
+ * Layout of a catalog snapshot file, all values big-endian:
+ *
+ * <pre>
+ * header   magic:int  version:int  createdAtMillis:long  journalLsn:long
+ * rows     tag:byte, then per tag
+ *            BOOK           id:long title:str author:str isbn:str publicationYear:int totalCopies:int
+ *            PATRON         id:long name:str contactInformation:str
+ *            LOAN           id:long bookId:long patronId:long borrowDateEpochDay:long dueDateEpochDay:long
+ *                           returnDateEpochDay:long (NO_DATE when unset)
+ *            ARCHIVED_LOAN  same fields as LOAN, a row of loan_history
+ *          all books come before all patrons, patrons before loans, and loans before archived loans
+ * end      tag END  books:int  patrons:int  loans:int  archivedLoans:int
+ * trailer  CRC32C of everything before it:int
+ * </pre>
+ *
+ * A str is a byte length (-1 for null) followed by that many UTF-8 bytes.
+ * Returned and archived loans are stored along with the open ones, so a
+ * snapshot can replace every journal segment it covers; available copies are
+ * derived from the open loans. Only the current version is read.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x4C42534E; // "LBSN"
+    static final int VERSION = 3;
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+    static final int TRAILER_SIZE = 4;
+
+    static final byte END = 0;
+    static final byte BOOK = 1;
+    static final byte PATRON = 2;
+    static final byte LOAN = 3;
+    static final byte ARCHIVED_LOAN = 4;
+
+    static final long NO_DATE = Long.MIN_VALUE;
+
+    private SnapshotFormat() {
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
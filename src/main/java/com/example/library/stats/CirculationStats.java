@@ -0,0 +1,179 @@
+package com.example.library.stats;
+
+import com.example.library.event.CirculationEvent;
+import com.example.library.repository.ArchivedLoanRepository;
+import com.example.library.repository.BookBorrows;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.response.DailyBorrows;
+import com.example.library.response.LoanTotals;
+import com.example.library.response.TopAuthor;
+import com.example.library.response.TopBook;
+import com.example.library.search.CatalogSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// CirculationStats.java
+
+/**
+ * Dashboard figures kept up to date from committed {@link CirculationEvent}s
+ * instead of aggregating the loan table on every refresh.
+ *
+ * <p>Totals are {@link LongAdder}s, borrows per day live in a
+ * {@link DailyCounts} ring, and the most borrowed books and authors are
+ * tracked by {@link SpaceSaving} sketches, so every read costs at most the
+ * sketch capacity. A book's author is looked up in the {@link CatalogSearchIndex}
+ * when it is borrowed. The history is aggregated once at startup, after the
+ * journal and snapshot have been restored.
+ */
+@Component
+public class CirculationStats {
+
+    private final Logger logger = LoggerFactory.getLogger(CirculationStats.class);
+
+    private final LongAdder activeLoans = new LongAdder();
+    private final LongAdder totalBorrows = new LongAdder();
+    private final SpaceSaving<Long> topBooks;
+    private final SpaceSaving<String> topAuthors;
+    private final DailyCounts borrowsPerDay;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private CatalogSearchIndex catalogSearchIndex;
+
+    public CirculationStats(@Value("${library.stats.top-capacity:1000}") int topCapacity,
+                            @Value("${library.stats.days:90}") int days) {
+        this.topBooks = new SpaceSaving<>(topCapacity);
+        this.topAuthors = new SpaceSaving<>(topCapacity);
+        this.borrowsPerDay = new DailyCounts(days);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long started = System.nanoTime();
+        clear();
+
+        // Per-book counts are exact here; seeding the sketches with the largest ones keeps their error at zero
+        PriorityQueue<BookBorrows> books = new PriorityQueue<>(
+                (a, b) -> Long.compare(a.getBorrows(), b.getBorrows()));
+        Map<String, Long> authors = new HashMap<>();
+        long[] total = {0};
+        try (Stream<BookBorrows> rows = borrowingRecordRepository.streamBorrowsPerBook()) {
+            rows.forEach(row -> {
+                if (row.getBorrows() == 0) {
+                    return;
+                }
+                total[0] += row.getBorrows();
+                if (row.getAuthor() != null) {
+                    authors.merge(row.getAuthor(), row.getBorrows(), Long::sum);
+                }
+                books.add(row);
+                if (books.size() > topBooks.capacity()) {
+                    books.poll();
+                }
+            });
+        }
+        books.forEach(row -> topBooks.add(row.getBookId(), row.getBorrows()));
+        PriorityQueue<Map.Entry<String, Long>> topAuthorEntries = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Long> entry : authors.entrySet()) {
+            topAuthorEntries.add(entry);
+            if (topAuthorEntries.size() > topAuthors.capacity()) {
+                topAuthorEntries.poll();
+            }
+        }
+        topAuthorEntries.forEach(entry -> topAuthors.add(entry.getKey(), entry.getValue()));
+
+        LocalDate since = LocalDate.now().minusDays(borrowsPerDay.days() - 1);
+        for (DailyBorrows day : borrowingRecordRepository.findBorrowsPerDay(since)) {
+            borrowsPerDay.add(day.getDate(), day.getBorrows());
+        }
+        for (DailyBorrows day : archivedLoanRepository.findBorrowsPerDay(since)) {
+            borrowsPerDay.add(day.getDate(), day.getBorrows());
+        }
+        totalBorrows.add(total[0]);
+        activeLoans.add(borrowingRecordRepository.countByReturnDateIsNull());
+        logger.info("Circulation stats rebuilt from {} loans in {} ms",
+                total[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener
+    public void onCirculation(CirculationEvent event) {
+        if (event.getType() == CirculationEvent.Type.RETURNED) {
+            activeLoans.decrement();
+            return;
+        }
+        activeLoans.increment();
+        totalBorrows.increment();
+        borrowsPerDay.add(event.getDate(), 1);
+        topBooks.add(event.getBookId(), 1);
+        String author = catalogSearchIndex.author(event.getBookId());
+        if (author != null) {
+            topAuthors.add(author, 1);
+        }
+    }
+
+    public LoanTotals totals() {
+        return new LoanTotals(activeLoans.sum(), totalBorrows.sum());
+    }
+
+    public List<TopBook> topBooks(int limit) {
+        List<TopBook> result = new ArrayList<>(limit);
+        for (SpaceSaving.Counter<Long> counter : topBooks.top(limit)) {
+            Long bookId = counter.getKey();
+            result.add(new TopBook(bookId, catalogSearchIndex.title(bookId), catalogSearchIndex.author(bookId),
+                    counter.getCount(), counter.getGuaranteedCount()));
+        }
+        return result;
+    }
+
+    public List<TopAuthor> topAuthors(int limit) {
+        List<TopAuthor> result = new ArrayList<>(limit);
+        for (SpaceSaving.Counter<String> counter : topAuthors.top(limit)) {
+            result.add(new TopAuthor(counter.getKey(), counter.getCount(), counter.getGuaranteedCount()));
+        }
+        return result;
+    }
+
+    /**
+     * @return borrows for each of the last {@code days} days, oldest first; capped at the retained window
+     */
+    public List<DailyBorrows> borrowsPerDay(int days) {
+        int span = Math.min(days, borrowsPerDay.days());
+        LocalDate today = LocalDate.now();
+        List<DailyBorrows> result = new ArrayList<>(span);
+        for (int i = span - 1; i >= 0; i--) {
+            LocalDate date = today.minusDays(i);
+            result.add(new DailyBorrows(date, borrowsPerDay.get(date)));
+        }
+        return result;
+    }
+
+    private void clear() {
+        activeLoans.reset();
+        totalBorrows.reset();
+        topBooks.clear();
+        topAuthors.clear();
+        borrowsPerDay.clear();
+    }
+}
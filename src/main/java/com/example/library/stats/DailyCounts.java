@@ -0,0 +1,74 @@
+package com.example.library.stats;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// DailyCounts.java
+
+/**
+ * Per-day counters for the last {@code days} days, in a ring indexed by epoch
+ * day. A slot is reset the first time a new day lands on it, so nothing needs
+ * a cleanup task and old days simply fall out of range.
+ */
+public class DailyCounts {
+
+    private final int days;
+    private final AtomicLongArray slotDays;
+    private final LongAdder[] counts;
+
+    public DailyCounts(int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Days must be positive");
+        }
+        this.days = days;
+        this.slotDays = new AtomicLongArray(days);
+        this.counts = new LongAdder[days];
+        for (int i = 0; i < days; i++) {
+            slotDays.set(i, Long.MIN_VALUE);
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void add(LocalDate date, long delta) {
+        long day = date.toEpochDay();
+        int slot = (int) Math.floorMod(day, (long) days);
+        if (slotDays.get(slot) != day) {
+            synchronized (counts[slot]) {
+                if (slotDays.get(slot) > day) {
+                    // Older than what the slot holds now: outside the window
+                    return;
+                }
+                if (slotDays.get(slot) != day) {
+                    counts[slot].reset();
+                    slotDays.set(slot, day);
+                }
+            }
+        }
+        counts[slot].add(delta);
+    }
+
+    /**
+     * @return the count for {@code date}, or 0 if it is outside the window
+     */
+    public long get(LocalDate date) {
+        long day = date.toEpochDay();
+        int slot = (int) Math.floorMod(day, (long) days);
+        synchronized (counts[slot]) {
+            return slotDays.get(slot) == day ? counts[slot].sum() : 0;
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < days; i++) {
+            synchronized (counts[i]) {
+                counts[i].reset();
+                slotDays.set(i, Long.MIN_VALUE);
+            }
+        }
+    }
+
+    public int days() {
+        return days;
+    }
+}
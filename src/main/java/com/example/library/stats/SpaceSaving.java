@@ -0,0 +1,166 @@
+package com.example.library.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// SpaceSaving.java
+
+/**
+ * Approximate heavy hitters in fixed memory (Metwally et al., "Efficient
+ * Computation of Frequent and Top-k Elements in Data Streams").
+ *
+ * <p>At most {@code capacity} keys are monitored, kept in a min-heap on their
+ * count. A key that is not monitored takes over the slot of the current
+ * minimum and inherits its count as error, so every count is an upper bound
+ * and {@code count - error} a lower bound on the true frequency. Any key seen
+ * more than total / capacity times is guaranteed to be monitored. Updates cost
+ * O(log capacity) and reading the top n O(capacity log capacity),
+ * independent of how many distinct keys the stream holds.
+ */
+public class SpaceSaving<K> {
+
+    private final int capacity;
+    private final Object[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<K, Integer> slots;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.keys = new Object[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(K key, long delta) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            counts[slot] += delta;
+            siftDown(slot);
+        } else if (size < capacity) {
+            keys[size] = key;
+            counts[size] = delta;
+            errors[size] = 0;
+            slots.put(key, size);
+            siftUp(size++);
+        } else {
+            // Evict the minimum; the newcomer may have been seen up to that many times before
+            slots.remove(keys[0]);
+            keys[0] = key;
+            errors[0] = counts[0];
+            counts[0] += delta;
+            slots.put(key, 0);
+            siftDown(0);
+        }
+    }
+
+    public synchronized void clear() {
+        slots.clear();
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return up to {@code n} monitored keys, highest count first
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<Counter<K>> top(int n) {
+        List<Counter<K>> all = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            all.add(new Counter<>((K) keys[i], counts[i], errors[i]));
+        }
+        all.sort(Comparator.comparingLong((Counter<K> counter) -> counter.count).reversed());
+        return all.subList(0, Math.min(n, all.size()));
+    }
+
+    // Upper bound on the key's count, or 0 if it is not monitored
+    public synchronized long count(K key) {
+        Integer slot = slots.get(key);
+        return slot == null ? 0 : counts[slot];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void swap(int a, int b) {
+        Object key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        slots.put((K) keys[a], a);
+        slots.put((K) keys[b], b);
+    }
+
+    public static final class Counter<K> {
+        private final K key;
+        private final long count;
+        private final long error;
+
+        private Counter(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        // Upper bound on the true frequency
+        public long getCount() {
+            return count;
+        }
+
+        // Lower bound on the true frequency
+        public long getGuaranteedCount() {
+            return count - error;
+        }
+    }
+}
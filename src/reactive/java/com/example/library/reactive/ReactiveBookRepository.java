@@ -0,0 +1,151 @@
+package com.example.library.reactive;
+
+import com.example.library.entity.Book;
+import io.r2dbc.spi.Parameters;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// ReactiveBookRepository.java
+
+// The queries of BookRepository, in SQL over R2DBC
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookRepository {
+
+    private static final String COLUMNS =
+            "id, title, author, publication_year, isbn, total_copies, available_copies, version";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Mono<Book> findById(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM book WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveBookRepository::toBook)
+                .one();
+    }
+
+    // Row lock for catalog edits that change the copy counts
+    public Mono<Book> findByIdForUpdate(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM book WHERE id = :id FOR UPDATE")
+                .bind("id", id)
+                .map(ReactiveBookRepository::toBook)
+                .one();
+    }
+
+    // Keyset page in id order; only the filters given are added to the query, so each
+    // combination can use the (author, id) or (publication_year, id) index
+    public Flux<Book> findPageAfter(long afterId, String author, Integer yearFrom, Integer yearTo, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM book WHERE id > :afterId");
+        if (author != null) {
+            sql.append(" AND author = :author");
+        }
+        if (yearFrom != null) {
+            sql.append(" AND publication_year >= :yearFrom");
+        }
+        if (yearTo != null) {
+            sql.append(" AND publication_year <= :yearTo");
+        }
+        sql.append(" ORDER BY id LIMIT :limit");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("afterId", afterId)
+                .bind("limit", limit);
+        if (author != null) {
+            spec = spec.bind("author", author);
+        }
+        if (yearFrom != null) {
+            spec = spec.bind("yearFrom", yearFrom);
+        }
+        if (yearTo != null) {
+            spec = spec.bind("yearTo", yearTo);
+        }
+        return spec.map(ReactiveBookRepository::toBook).all();
+    }
+
+    public Mono<Book> insert(Book book) {
+        return databaseClient.sql("INSERT INTO book (title, author, publication_year, isbn, total_copies, available_copies, version)"
+                        + " VALUES (:title, :author, :publicationYear, :isbn, :totalCopies, :availableCopies, 0)")
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("publicationYear", book.getPublicationYear())
+                .bind("isbn", nullable(book.getIsbn()))
+                .bind("totalCopies", book.getTotalCopies())
+                .bind("availableCopies", book.getAvailableCopies())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    book.setId(id);
+                    book.setVersion(0);
+                    return book;
+                });
+    }
+
+    // Writes every field of a book read with findByIdForUpdate and bumps its version
+    public Mono<Book> update(Book book) {
+        return databaseClient.sql("UPDATE book SET title = :title, author = :author, publication_year = :publicationYear,"
+                        + " isbn = :isbn, total_copies = :totalCopies, available_copies = :availableCopies,"
+                        + " version = version + 1 WHERE id = :id")
+                .bind("id", book.getId())
+                .bind("title", book.getTitle())
+                .bind("author", book.getAuthor())
+                .bind("publicationYear", book.getPublicationYear())
+                .bind("isbn", nullable(book.getIsbn()))
+                .bind("totalCopies", book.getTotalCopies())
+                .bind("availableCopies", book.getAvailableCopies())
+                .fetch()
+                .rowsUpdated()
+                .map(updated -> {
+                    book.setVersion(book.getVersion() + 1);
+                    return book;
+                });
+    }
+
+    public Mono<Long> deleteById(long id) {
+        return databaseClient.sql("DELETE FROM book WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Atomic checkout: locks only the book's own row, and only if a copy is left
+    public Mono<Long> checkOutCopy(long id) {
+        return databaseClient.sql("UPDATE book SET available_copies = available_copies - 1, version = version + 1"
+                        + " WHERE id = :id AND available_copies > 0")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> checkInCopy(long id) {
+        return databaseClient.sql("UPDATE book SET available_copies = available_copies + 1, version = version + 1"
+                        + " WHERE id = :id AND available_copies < total_copies")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    static Book toBook(Readable row) {
+        Book book = new Book();
+        book.setId(row.get("id", Long.class));
+        book.setTitle(row.get("title", String.class));
+        book.setAuthor(row.get("author", String.class));
+        book.setPublicationYear(row.get("publication_year", Integer.class));
+        book.setIsbn(row.get("isbn", String.class));
+        book.setTotalCopies(row.get("total_copies", Integer.class));
+        book.setAvailableCopies(row.get("available_copies", Integer.class));
+        book.setVersion(row.get("version", Long.class));
+        return book;
+    }
+
+    // DatabaseClient needs the type of a null parameter
+    private static Object nullable(String value) {
+        return value != null ? value : Parameters.in(String.class);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.library.reactive;
+
+import com.example.library.entity.BorrowingRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+// ReactiveBorrowingRecordRepository.java
+
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBorrowingRecordRepository {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    // Id of the patron's open loan of the book, if any
+    public Mono<Long> findOpenLoanId(long bookId, long patronId) {
+        return databaseClient.sql("SELECT id FROM borrowing_record"
+                        + " WHERE book_id = :bookId AND patron_id = :patronId AND return_date IS NULL")
+                .bind("bookId", bookId)
+                .bind("patronId", patronId)
+                .map(row -> row.get("id", Long.class))
+                .first();
+    }
+
+    public Mono<BorrowingRecord> insert(BorrowingRecord borrowingRecord) {
+        return databaseClient.sql("INSERT INTO borrowing_record (book_id, patron_id, borrow_date, due_date)"
+                        + " VALUES (:bookId, :patronId, :borrowDate, :dueDate)")
+                .bind("bookId", borrowingRecord.getBook().getId())
+                .bind("patronId", borrowingRecord.getPatron().getId())
+                .bind("borrowDate", borrowingRecord.getBorrowDate())
+                .bind("dueDate", borrowingRecord.getDueDate())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    borrowingRecord.setId(id);
+                    return borrowingRecord;
+                });
+    }
+
+    // Closes an open loan; 0 rows if it was already returned
+    public Mono<Long> markReturned(long id, LocalDate returnDate) {
+        return databaseClient.sql("UPDATE borrowing_record SET return_date = :returnDate"
+                        + " WHERE id = :id AND return_date IS NULL")
+                .bind("id", id)
+                .bind("returnDate", returnDate)
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.library.reactive;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+// ReactiveCatalogService.java
+
+/**
+ * Book and patron changes for the reactive API, with the rules of
+ * {@code CatalogService} and {@code PatronService}. An empty Mono means the
+ * book or patron does not exist.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCatalogService {
+
+    @Autowired
+    private ReactiveBookRepository bookRepository;
+
+    @Autowired
+    private ReactivePatronRepository patronRepository;
+
+    public Mono<Book> addBook(Book book) {
+        if (book.getTotalCopies() == null) {
+            book.setTotalCopies(1);
+        }
+        book.setAvailableCopies(book.getTotalCopies());
+        return bookRepository.insert(book);
+    }
+
+    /**
+     * Applies the editable fields of {@code updatedBook} under a row lock, so
+     * concurrent checkouts cannot slip in while the copy counts are adjusted.
+     * A null total keeps the current one. Fails with {@link IllegalArgumentException} if the new total is below the
+     * copies on loan.
+     */
+    @Transactional
+    public Mono<Book> updateBook(long id, Book updatedBook) {
+        return bookRepository.findByIdForUpdate(id).flatMap(existingBook -> {
+            int onLoan = existingBook.getTotalCopies() - existingBook.getAvailableCopies();
+            int totalCopies = updatedBook.getTotalCopies() != null ? updatedBook.getTotalCopies() : existingBook.getTotalCopies();
+            if (totalCopies < onLoan) {
+                return Mono.error(new IllegalArgumentException("Total copies cannot be lower than the "
+                        + onLoan + " copies currently on loan."));
+            }
+            existingBook.setTitle(updatedBook.getTitle());
+            existingBook.setAuthor(updatedBook.getAuthor());
+            existingBook.setPublicationYear(updatedBook.getPublicationYear());
+            existingBook.setIsbn(updatedBook.getIsbn());
+            existingBook.setTotalCopies(totalCopies);
+            existingBook.setAvailableCopies(totalCopies - onLoan);
+            return bookRepository.update(existingBook);
+        });
+    }
+
+    public Mono<Boolean> deleteBook(long id) {
+        return bookRepository.deleteById(id).map(deleted -> deleted > 0);
+    }
+
+    public Mono<Patron> addPatron(Patron patron) {
+        return patronRepository.insert(patron);
+    }
+
+    // Fails with OptimisticLockingFailureException if the patron changed since it was read
+    @Transactional
+    public Mono<Patron> updatePatron(long id, Patron updatedPatron) {
+        return patronRepository.findById(id).flatMap(existingPatron -> {
+            existingPatron.setName(updatedPatron.getName());
+            existingPatron.setContactInformation(updatedPatron.getContactInformation());
+            return patronRepository.update(existingPatron).flatMap(updated -> {
+                if (updated == 0) {
+                    return Mono.error(new OptimisticLockingFailureException("Patron " + id + " was changed concurrently"));
+                }
+                existingPatron.setVersion(existingPatron.getVersion() + 1);
+                return Mono.just(existingPatron);
+            });
+        });
+    }
+
+    public Mono<Boolean> deletePatron(long id) {
+        return patronRepository.deleteById(id).map(deleted -> deleted > 0);
+    }
+}
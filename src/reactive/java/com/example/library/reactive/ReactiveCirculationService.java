@@ -0,0 +1,111 @@
+package com.example.library.reactive;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.BorrowingRecord;
+import com.example.library.entity.Patron;
+import com.example.library.response.CirculationStatus;
+import com.example.library.service.CirculationResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+// ReactiveCirculationService.java
+
+/**
+ * Borrowing and returning for the reactive API, with the same guarantees as
+ * {@code CirculationService}: the checkout is a conditional {@code UPDATE}
+ * that holds the book's row lock until commit, and the open-loan check runs
+ * after it, so two requests for one book and patron cannot both pass it.
+ * Nothing here blocks; each step is subscribed to when the previous one has
+ * completed, inside one R2DBC transaction.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCirculationService {
+
+    @Value("${library.loans.period:14d}")
+    private Duration loanPeriod;
+
+    @Autowired
+    private ReactiveBookRepository bookRepository;
+
+    @Autowired
+    private ReactivePatronRepository patronRepository;
+
+    @Autowired
+    private ReactiveBorrowingRecordRepository borrowingRecordRepository;
+
+    @Transactional
+    public Mono<CirculationResult> borrow(long bookId, long patronId) {
+        return bookRepository.findById(bookId)
+                .flatMap(book -> patronRepository.findById(patronId)
+                        .flatMap(patron -> checkOut(book, patron))
+                        .defaultIfEmpty(CirculationResult.of(CirculationStatus.PATRON_NOT_FOUND)))
+                .defaultIfEmpty(CirculationResult.of(CirculationStatus.BOOK_NOT_FOUND));
+    }
+
+    @Transactional
+    public Mono<CirculationResult> giveBack(long bookId, long patronId) {
+        return bookRepository.findById(bookId)
+                .flatMap(book -> patronRepository.findById(patronId)
+                        .flatMap(patron -> borrowingRecordRepository.findOpenLoanId(bookId, patronId)
+                                .flatMap(loanId -> close(loanId, book, patron))
+                                .defaultIfEmpty(CirculationResult.of(CirculationStatus.NOT_BORROWED)))
+                        .defaultIfEmpty(CirculationResult.of(CirculationStatus.PATRON_NOT_FOUND)))
+                .defaultIfEmpty(CirculationResult.of(CirculationStatus.BOOK_NOT_FOUND));
+    }
+
+    private Mono<CirculationResult> checkOut(Book book, Patron patron) {
+        return bookRepository.checkOutCopy(book.getId()).flatMap(updated -> {
+            boolean checkedOut = updated == 1;
+            return borrowingRecordRepository.findOpenLoanId(book.getId(), patron.getId())
+                    .hasElement()
+                    .flatMap(alreadyBorrowed -> {
+                        if (alreadyBorrowed) {
+                            Mono<Long> undo = checkedOut ? bookRepository.checkInCopy(book.getId()) : Mono.just(0L);
+                            return undo.thenReturn(CirculationResult.of(CirculationStatus.ALREADY_BORROWED));
+                        }
+                        if (!checkedOut) {
+                            return Mono.just(CirculationResult.of(CirculationStatus.NO_COPIES_AVAILABLE));
+                        }
+                        // The row as the checkout left it
+                        book.setAvailableCopies(book.getAvailableCopies() - 1);
+                        book.setVersion(book.getVersion() + 1);
+                        return borrowingRecordRepository.insert(newLoan(book, patron, LocalDate.now()))
+                                .map(record -> CirculationResult.of(CirculationStatus.BORROWED, record));
+                    });
+        });
+    }
+
+    // NOT_BORROWED if a concurrent return closed the loan first
+    private Mono<CirculationResult> close(long loanId, Book book, Patron patron) {
+        LocalDate today = LocalDate.now();
+        return borrowingRecordRepository.markReturned(loanId, today).flatMap(updated -> {
+            if (updated == 0) {
+                return Mono.just(CirculationResult.of(CirculationStatus.NOT_BORROWED));
+            }
+            BorrowingRecord borrowingRecord = new BorrowingRecord();
+            borrowingRecord.setId(loanId);
+            borrowingRecord.setBook(book);
+            borrowingRecord.setPatron(patron);
+            borrowingRecord.setReturnDate(today);
+            return bookRepository.checkInCopy(book.getId())
+                    .thenReturn(CirculationResult.of(CirculationStatus.RETURNED, borrowingRecord));
+        });
+    }
+
+    private BorrowingRecord newLoan(Book book, Patron patron, LocalDate borrowDate) {
+        BorrowingRecord borrowingRecord = new BorrowingRecord();
+        borrowingRecord.setBook(book);
+        borrowingRecord.setPatron(patron);
+        borrowingRecord.setBorrowDate(borrowDate);
+        borrowingRecord.setDueDate(borrowDate.plusDays(loanPeriod.toDays()));
+        return borrowingRecord;
+    }
+}
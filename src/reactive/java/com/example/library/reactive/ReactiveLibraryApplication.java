@@ -0,0 +1,28 @@
+package com.example.library.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+// ReactiveLibraryApplication.java
+
+/**
+ * Entry point of the reactive API: WebFlux on Netty over R2DBC, serving the
+ * book, patron and borrowing endpoints of the servlet application with the
+ * same paths, status codes and bodies. Only this package is scanned, so none
+ * of the JPA services, caches or indexes are started.
+ *
+ * <p>The servlet application's scan also reaches this package; the condition
+ * on every class here keeps it from picking them up.
+ */
+@SpringBootApplication
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLibraryApplication {
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveLibraryApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles("reactive")
+                .run(args);
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.library.reactive;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import com.example.library.response.CursorPage;
+import com.example.library.response.ValidationErrors;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+// ReactiveLibraryController.java
+
+/**
+ * The book, patron and borrowing endpoints of {@code LibraryController} on
+ * WebFlux: same paths, status codes, error messages and ETags.
+ *
+ * <p>{@code GET /api/books} and {@code GET /api/patrons} also stream: with
+ * {@code Accept: application/x-ndjson} they return every row after the cursor,
+ * one JSON object per line. Rows are read {@code stream-chunk-size} at a time
+ * by keyset, and the next chunk is only queried once the client has taken the
+ * previous one, so a slow reader holds neither a connection nor a growing
+ * buffer.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLibraryController {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String PROCESSING_ERROR = "An error occurred while processing the request";
+
+    private final Logger logger = LoggerFactory.getLogger(ReactiveLibraryController.class);
+
+    // Restarts with the in-memory database, like the versions in the ETags
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @Value("${library.reactive.stream-chunk-size:500}")
+    private int streamChunkSize;
+
+    @Autowired
+    private ReactiveBookRepository bookRepository;
+
+    @Autowired
+    private ReactivePatronRepository patronRepository;
+
+    @Autowired
+    private ReactiveCatalogService catalogService;
+
+    @Autowired
+    private ReactiveCirculationService circulationService;
+
+    // Book management endpoints
+    @GetMapping("/books")
+    public Mono<ResponseEntity<?>> getAllBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            ServerHttpRequest request
+    ) {
+        long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body("Invalid cursor provided."));
+        }
+        if (wantsStream(request)) {
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(inChunks(after -> bookRepository.findPageAfter(after, author, yearFrom, yearTo, streamChunkSize),
+                            Book::getId, afterId)));
+        }
+        if (size <= 0) {
+            return Mono.just(ResponseEntity.badRequest().body("Page size must be positive."));
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+
+        // Fetch one extra row to learn whether a next page exists
+        return bookRepository.findPageAfter(afterId, author, yearFrom, yearTo, pageSize + 1)
+                .collectList()
+                .<ResponseEntity<?>>map(books -> {
+                    CursorPage<Book> page = CursorPage.of(books, pageSize, Book::getId);
+                    return ResponseEntity.ok()
+                            .eTag(pageEtag(page.getItems(), Book::getId, Book::getVersion, page.getNextCursor()))
+                            .body(page);
+                })
+                .onErrorResume(failed("retrieving all books"));
+    }
+
+    @GetMapping("/books/{id}")
+    public Mono<ResponseEntity<?>> getBookById(@PathVariable Long id) {
+        if (id == null || id <= 0) {
+            String errorMessage = "Invalid book ID provided.";
+            logger.error(errorMessage);
+            return Mono.just(ResponseEntity.badRequest().body(errorMessage));
+        }
+        // If-None-Match is answered with 304 by WebFlux from the ETag, before the body is written
+        return bookRepository.findById(id)
+                .<ResponseEntity<?>>map(book -> ResponseEntity.ok()
+                        .eTag(etag(book.getId(), book.getVersion()))
+                        .body(book))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/books")
+    public Mono<ResponseEntity<?>> addBook(@Valid @RequestBody Book book) {
+        return catalogService.addBook(book)
+                .<ResponseEntity<?>>map(savedBook -> ResponseEntity.status(HttpStatus.CREATED).body("Book added successfully"))
+                .onErrorResume(failed("adding a book"));
+    }
+
+    @PutMapping("/books/{id}")
+    public Mono<ResponseEntity<?>> updateBook(@PathVariable Long id, @Valid @RequestBody Book updatedBook) {
+        return catalogService.updateBook(id, updatedBook)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                // The new copy count conflicts with the loans in progress
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage())))
+                .onErrorResume(failed("updating the book"));
+    }
+
+    @DeleteMapping("/books/{id}")
+    public Mono<ResponseEntity<Void>> deleteBook(@PathVariable Long id) {
+        return catalogService.deleteBook(id)
+                .map(deleted -> deleted
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build())
+                .onErrorResume(e -> {
+                    logger.error("An error occurred while deleting the book", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    // Patron management endpoints
+    @GetMapping("/patrons")
+    public Mono<ResponseEntity<?>> getAllPatrons(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            ServerHttpRequest request
+    ) {
+        long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body("Invalid cursor provided."));
+        }
+        if (wantsStream(request)) {
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(inChunks(after -> patronRepository.findPageAfter(after, streamChunkSize), Patron::getId, afterId)));
+        }
+        if (size <= 0) {
+            return Mono.just(ResponseEntity.badRequest().body("Page size must be positive."));
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+
+        return patronRepository.findPageAfter(afterId, pageSize + 1)
+                .collectList()
+                .<ResponseEntity<?>>map(patrons -> {
+                    CursorPage<Patron> page = CursorPage.of(patrons, pageSize, Patron::getId);
+                    return ResponseEntity.ok()
+                            .eTag(pageEtag(page.getItems(), Patron::getId, Patron::getVersion, page.getNextCursor()))
+                            .body(page);
+                })
+                .onErrorResume(e -> {
+                    logger.error("An error occurred while fetching all patrons", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    @GetMapping("/patrons/{id}")
+    public Mono<ResponseEntity<?>> getPatronById(@PathVariable Long id) {
+        return patronRepository.findById(id)
+                .<ResponseEntity<?>>map(patron -> ResponseEntity.ok()
+                        .eTag(etag(patron.getId(), patron.getVersion()))
+                        .body(patron))
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(e -> {
+                    logger.error("An error occurred while fetching a patron by ID", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    @PostMapping("/patrons")
+    public Mono<ResponseEntity<?>> addPatron(@Valid @RequestBody Patron patron) {
+        return catalogService.addPatron(patron)
+                .<ResponseEntity<?>>map(savedPatron -> ResponseEntity.status(HttpStatus.CREATED).body(savedPatron))
+                .onErrorResume(failed("adding a patron"));
+    }
+
+    @PutMapping("/patrons/{id}")
+    public Mono<ResponseEntity<?>> updatePatron(@PathVariable Long id, @Valid @RequestBody Patron updatedPatron) {
+        return catalogService.updatePatron(id, updatedPatron)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.CONFLICT).body("The patron was changed by another request; try again.")))
+                .onErrorResume(failed("updating a patron"));
+    }
+
+    @DeleteMapping("/patrons/{id}")
+    public Mono<ResponseEntity<?>> deletePatron(@PathVariable Long id) {
+        return catalogService.deletePatron(id)
+                .<ResponseEntity<?>>map(deleted -> deleted
+                        ? ResponseEntity.noContent().build()
+                        : ResponseEntity.notFound().build())
+                .onErrorResume(failed("deleting a patron"));
+    }
+
+    // Borrowing endpoints
+
+    @PostMapping("/borrow/{bookId}/patron/{patronId}")
+    public Mono<ResponseEntity<?>> borrowBook(@PathVariable Long bookId, @PathVariable Long patronId) {
+        return circulationService.borrow(bookId, patronId).<ResponseEntity<?>>map(result -> {
+            switch (result.getStatus()) {
+                case BOOK_NOT_FOUND:
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Book with ID " + bookId + " not found.");
+                case PATRON_NOT_FOUND:
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Patron with ID " + patronId + " not found.");
+                case ALREADY_BORROWED:
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Book is already borrowed.");
+                case NO_COPIES_AVAILABLE:
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body("No copies of book with ID " + bookId + " are available.");
+                default:
+                    return ResponseEntity.status(HttpStatus.CREATED).body(result.getBorrowingRecord());
+            }
+        });
+    }
+
+    @PutMapping("/return/{bookId}/patron/{patronId}")
+    public Mono<ResponseEntity<String>> returnBook(@PathVariable Long bookId, @PathVariable Long patronId) {
+        return circulationService.giveBack(bookId, patronId).map(result -> {
+            switch (result.getStatus()) {
+                case BOOK_NOT_FOUND:
+                case PATRON_NOT_FOUND:
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body("Book or Patron not found. Book ID: " + bookId + ", Patron ID: " + patronId);
+                case NOT_BORROWED:
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body("Borrowing record not found for Book ID: " + bookId + ", Patron ID: " + patronId);
+                default:
+                    return ResponseEntity.ok("Book returned successfully. Borrowing Record ID: " + result.getBorrowingRecord().getId());
+            }
+        });
+    }
+
+    // @Valid request bodies fail before the handler runs; answer as LibraryController does
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<String> handleValidationErrors(WebExchangeBindException e) {
+        String errorMessage = ValidationErrors.describe(e);
+        logger.error("Rejected request body: {}", errorMessage);
+        return ResponseEntity.badRequest().body(errorMessage);
+    }
+
+    // Streaming only when asked for explicitly; */* keeps getting the JSON page
+    private static boolean wantsStream(ServerHttpRequest request) {
+        return request.getHeaders().getAccept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    // Every row after afterId, one keyset chunk at a time; expand subscribes to the next
+    // chunk's query only after the current chunk has been emitted, so at most two are held
+    private <T> Flux<T> inChunks(LongFunction<Flux<T>> chunkAfter, ToLongFunction<T> idOf, long afterId) {
+        return chunkAfter.apply(afterId).collectList()
+                .expand(chunk -> chunk.size() < streamChunkSize
+                        ? Mono.empty()
+                        : chunkAfter.apply(idOf.applyAsLong(chunk.get(chunk.size() - 1))).collectList())
+                .flatMapIterable(Function.identity(), 1);
+    }
+
+    private Function<Throwable, Mono<ResponseEntity<?>>> failed(String action) {
+        return e -> {
+            logger.error("An error occurred while " + action, e);
+            return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(PROCESSING_ERROR));
+        };
+    }
+
+    private String etag(long id, long version) {
+        return "\"" + epoch + "." + id + "." + version + "\"";
+    }
+
+    // Same scheme as ResponseBodyCache.pageEtag: FNV-1a over the (id, version) pairs and the cursor
+    private <T> String pageEtag(List<T> rows, ToLongFunction<T> idOf, ToLongFunction<T> versionOf, String nextCursor) {
+        long hash = 0xcbf29ce484222325L;
+        for (T row : rows) {
+            hash = (hash ^ idOf.applyAsLong(row)) * 0x100000001b3L;
+            hash = (hash ^ versionOf.applyAsLong(row)) * 0x100000001b3L;
+        }
+        if (nextCursor != null) {
+            hash = (hash ^ nextCursor.hashCode()) * 0x100000001b3L;
+        }
+        return "\"" + epoch + ".p" + Long.toHexString(hash) + "\"";
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.library.reactive;
+
+import com.example.library.entity.Patron;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// ReactivePatronRepository.java
+
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePatronRepository {
+
+    private static final String COLUMNS = "id, name, contact_information, version";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Mono<Patron> findById(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM patron WHERE id = :id")
+                .bind("id", id)
+                .map(ReactivePatronRepository::toPatron)
+                .one();
+    }
+
+    public Flux<Patron> findPageAfter(long afterId, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM patron WHERE id > :afterId ORDER BY id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactivePatronRepository::toPatron)
+                .all();
+    }
+
+    public Mono<Patron> insert(Patron patron) {
+        return databaseClient.sql("INSERT INTO patron (name, contact_information, version) VALUES (:name, :contactInformation, 0)")
+                .bind("name", patron.getName())
+                .bind("contactInformation", patron.getContactInformation())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    patron.setId(id);
+                    patron.setVersion(0);
+                    return patron;
+                });
+    }
+
+    // Optimistic update, like the @Version check JPA makes: 0 rows if the version moved on
+    public Mono<Long> update(Patron patron) {
+        return databaseClient.sql("UPDATE patron SET name = :name, contact_information = :contactInformation,"
+                        + " version = version + 1 WHERE id = :id AND version = :version")
+                .bind("id", patron.getId())
+                .bind("name", patron.getName())
+                .bind("contactInformation", patron.getContactInformation())
+                .bind("version", patron.getVersion())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> deleteById(long id) {
+        return databaseClient.sql("DELETE FROM patron WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    static Patron toPatron(Readable row) {
+        Patron patron = new Patron();
+        patron.setId(row.get("id", Long.class));
+        patron.setName(row.get("name", String.class));
+        patron.setContactInformation(row.get("contact_information", String.class));
+        patron.setVersion(row.get("version", Long.class));
+        return patron;
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.library.reactive.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LoadComparison.java
+
+/**
+ * Closed-loop load test of the servlet application (platform and virtual
+ * request threads) against the reactive one, at rising concurrency.
+ *
+ * <p>Each server runs in its own JVM with the same heap and the same 20
+ * database connections, and gets the same seeded catalog. For every
+ * concurrency level and scenario, that many virtual-thread clients each send
+ * one request at a time over their own connection for the measurement
+ * period, after a warmup at the same level. Reported per run:
+ * <ul>
+ *   <li>throughput (responses per second) and p50/p99/max latency</li>
+ *   <li>errors: 5xx responses and failed connections</li>
+ *   <li>memory per connection: the server's peak resident set size during the
+ *       run minus its idle size after seeding, divided by the concurrency</li>
+ *   <li>the server's peak thread count</li>
+ * </ul>
+ * Resident sizes are read from /proc, so this runs on Linux only. Clients and
+ * server share the machine; compare runs made on the same host.
+ *
+ * <p>Options: {@code --modes mvc,mvc-virtual,reactive},
+ * {@code --concurrency 64,512,4096}, {@code --scenarios get-book,list-books,borrow-return},
+ * {@code --duration 30s}, {@code --warmup 10s}, {@code --books 1000},
+ * {@code --patrons 500}, {@code --heap 1g}, {@code --output <file.json>}, and
+ * {@code --server-args "<arg> <arg>"}: extra arguments for every server, e.g.
+ * logging settings.
+ */
+public final class LoadComparison {
+
+    private static final String SERVLET_MAIN = "com.example.library.LibraryManagementApplication";
+    private static final String REACTIVE_MAIN = "com.example.library.reactive.ReactiveLibraryApplication";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, String> options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private LoadComparison(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("modes", "mvc,mvc-virtual,reactive");
+        options.put("concurrency", "64,512,4096");
+        options.put("scenarios", "get-book,list-books,borrow-return");
+        options.put("duration", "30s");
+        options.put("warmup", "10s");
+        options.put("books", "1000");
+        options.put("patrons", "500");
+        options.put("heap", "1g");
+        options.put("output", "target/load-comparison.json");
+        options.put("server-args", "");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--") || !options.containsKey(args[i].substring(2))) {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new LoadComparison(options).run();
+    }
+
+    private void run() throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>();
+        Path output = Path.of(options.get("output"));
+        Files.createDirectories(output.toAbsolutePath().getParent());
+
+        for (String mode : options.get("modes").split(",")) {
+            Server server = Server.start(mode, options.get("heap"), options.get("server-args"),
+                    output.toAbsolutePath().getParent());
+            try {
+                awaitReady(server);
+                Catalog catalog = seed(server);
+                System.gc();
+                Thread.sleep(2000);
+                ProcessStats idle = ProcessStats.read(server.process.pid());
+                System.out.printf("%n%s: idle RSS %d MB, %d threads%n", mode, idle.rssKb / 1024, idle.threads);
+
+                for (String level : options.get("concurrency").split(",")) {
+                    int concurrency = Integer.parseInt(level.trim());
+                    for (String scenario : options.get("scenarios").split(",")) {
+                        drive(server, catalog, scenario, concurrency, duration("warmup"), idle);
+                        Map<String, Object> result = drive(server, catalog, scenario, concurrency, duration("duration"), idle);
+                        result.put("mode", mode);
+                        results.add(result);
+                        System.out.printf("%-12s %-14s c=%-6d %10.0f req/s  p50 %7.2f ms  p99 %8.2f ms  max %8.2f ms"
+                                        + "  errors %-6d  %6.1f KB/conn  %5d threads%n",
+                                mode, scenario, concurrency, result.get("throughput"), result.get("p50Ms"),
+                                result.get("p99Ms"), result.get("maxMs"), result.get("errors"),
+                                result.get("memoryPerConnectionKb"), result.get("peakThreads"));
+                    }
+                }
+            } finally {
+                server.stop();
+            }
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), results);
+        System.out.println("\nResults written to " + output);
+    }
+
+    private Map<String, Object> drive(Server server, Catalog catalog, String scenario, int concurrency,
+                                      Duration duration, ProcessStats idle) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        Latencies[] latencies = new Latencies[concurrency];
+        ProcessStats peak = idle;
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Latencies recorded = latencies[i] = new Latencies();
+                clients.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        sendOne(server, catalog, scenario, recorded, errors);
+                    }
+                });
+            }
+            clients.shutdown();
+            while (!clients.awaitTermination(250, TimeUnit.MILLISECONDS)) {
+                peak = ProcessStats.max(peak, ProcessStats.read(server.process.pid()));
+            }
+        }
+
+        long[] all = Latencies.merge(latencies);
+        Arrays.sort(all);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", scenario);
+        result.put("concurrency", concurrency);
+        result.put("requests", all.length);
+        result.put("throughput", all.length / (duration.toNanos() / 1e9));
+        result.put("p50Ms", percentile(all, 0.50));
+        result.put("p99Ms", percentile(all, 0.99));
+        result.put("maxMs", all.length == 0 ? 0.0 : all[all.length - 1] / 1e6);
+        result.put("errors", errors.get());
+        result.put("memoryPerConnectionKb", Math.max(0, peak.rssKb - idle.rssKb) / (double) concurrency);
+        result.put("peakRssMb", peak.rssKb / 1024);
+        result.put("peakThreads", peak.threads);
+        return result;
+    }
+
+    private void sendOne(Server server, Catalog catalog, String scenario, Latencies recorded, AtomicLong errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long bookId = catalog.bookIds[random.nextInt(catalog.bookIds.length)];
+        switch (scenario) {
+            case "get-book" -> timed(recorded, errors, get(server, "/api/books/" + bookId));
+            case "list-books" -> timed(recorded, errors, get(server, "/api/books?size=50"));
+            case "borrow-return" -> {
+                long patronId = catalog.patronIds[random.nextInt(catalog.patronIds.length)];
+                // 400, 404 and 409 are expected answers under contention; only 201 leaves a loan to return
+                if (timed(recorded, errors, send(server, "POST", "/api/borrow/" + bookId + "/patron/" + patronId, null)) == 201) {
+                    timed(recorded, errors, send(server, "PUT", "/api/return/" + bookId + "/patron/" + patronId, null));
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario " + scenario);
+        }
+    }
+
+    // Status of the response, or -1 if the request failed
+    private int timed(Latencies recorded, AtomicLong errors, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            recorded.add(System.nanoTime() - start);
+            if (status >= 500) {
+                errors.incrementAndGet();
+            }
+            return status;
+        } catch (IOException e) {
+            errors.incrementAndGet();
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private void awaitReady(Server server) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            if (!server.process.isAlive()) {
+                throw new IllegalStateException(server.mode + " server exited; see " + server.log);
+            }
+            try {
+                if (client.send(get(server, "/actuator/health"), HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(server.mode + " server did not start; see " + server.log);
+    }
+
+    // Same catalog on every server; ids are read back because POST /api/books does not return one
+    private Catalog seed(Server server) throws Exception {
+        int books = Integer.parseInt(options.get("books"));
+        int patrons = Integer.parseInt(options.get("patrons"));
+        for (int i = 0; i < books; i++) {
+            String book = objectMapper.writeValueAsString(Map.of(
+                    "title", "Load Test Book " + i,
+                    "author", "Author " + (i % 100),
+                    "publicationYear", 1950 + i % 70,
+                    "isbn", "978" + String.format("%010d", i),
+                    "totalCopies", 5));
+            expect(201, send(server, "POST", "/api/books", book));
+        }
+        for (int i = 0; i < patrons; i++) {
+            String patron = objectMapper.writeValueAsString(Map.of(
+                    "name", "Patron " + i,
+                    "contactInformation", "patron" + i + "@example.com"));
+            expect(201, send(server, "POST", "/api/patrons", patron));
+        }
+        return new Catalog(ids(server, "/api/books"), ids(server, "/api/patrons"));
+    }
+
+    private long[] ids(Server server, String path) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            String page = path + "?size=500" + (cursor != null ? "&cursor=" + cursor : "");
+            JsonNode body = objectMapper.readTree(client.send(get(server, page), HttpResponse.BodyHandlers.ofString()).body());
+            body.get("items").forEach(item -> ids.add(item.get("id").asLong()));
+            cursor = body.hasNonNull("nextCursor") ? body.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void expect(int status, HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " answered "
+                    + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static HttpRequest get(Server server, String path) {
+        return HttpRequest.newBuilder(server.uri(path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static HttpRequest send(Server server, String method, String path, String json) {
+        return HttpRequest.newBuilder(server.uri(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .method(method, json != null ? HttpRequest.BodyPublishers.ofString(json) : HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private Duration duration(String option) {
+        String value = options.get(option).trim();
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private record Catalog(long[] bookIds, long[] patronIds) {
+    }
+
+    // Latencies of one client thread, in nanoseconds
+    private static final class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        static long[] merge(Latencies[] all) {
+            int total = 0;
+            for (Latencies latencies : all) {
+                total += latencies.size;
+            }
+            long[] merged = new long[total];
+            int offset = 0;
+            for (Latencies latencies : all) {
+                System.arraycopy(latencies.values, 0, merged, offset, latencies.size);
+                offset += latencies.size;
+            }
+            return merged;
+        }
+    }
+
+    private record ProcessStats(long rssKb, long threads) {
+
+        static ProcessStats read(long pid) {
+            long rssKb = 0;
+            long threads = 0;
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc/" + pid + "/status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        rssKb = Long.parseLong(line.replaceAll("\\D", ""));
+                    } else if (line.startsWith("Threads:")) {
+                        threads = Long.parseLong(line.replaceAll("\\D", ""));
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read /proc/" + pid + "/status; the comparison needs Linux", e);
+            }
+            return new ProcessStats(rssKb, threads);
+        }
+
+        static ProcessStats max(ProcessStats a, ProcessStats b) {
+            return new ProcessStats(Math.max(a.rssKb, b.rssKb), Math.max(a.threads, b.threads));
+        }
+    }
+
+    private static final class Server {
+        private final String mode;
+        private final int port;
+        private final Process process;
+        private final Path log;
+
+        private Server(String mode, int port, Process process, Path log) {
+            this.mode = mode;
+            this.port = port;
+            this.process = process;
+            this.log = log;
+        }
+
+        static Server start(String mode, String heap, String serverArgs, Path logDirectory) throws IOException {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            List<String> command = new ArrayList<>(List.of(
+                    Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-Xms" + heap, "-Xmx" + heap,
+                    "-cp", System.getProperty("java.class.path")));
+            command.add(mode.equals("reactive") ? REACTIVE_MAIN : SERVLET_MAIN);
+            command.add("--server.port=" + port);
+            command.add("--logging.level.root=warn");
+            // Measure the request path itself, not the shedding in front of it
+            command.add("--library.admission.enabled=false");
+            switch (mode) {
+                case "mvc" -> command.add("--spring.threads.virtual.enabled=false");
+                case "mvc-virtual" -> command.add("--spring.threads.virtual.enabled=true");
+                case "reactive" -> {
+                }
+                default -> throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+            for (String arg : serverArgs.trim().split("\\s+")) {
+                if (!arg.isEmpty()) {
+                    command.add(arg);
+                }
+            }
+            Path log = logDirectory.resolve("load-" + mode + ".log");
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            return new Server(mode, port, process, log);
+        }
+
+        URI uri(String path) {
+            return URI.create("http://localhost:" + port + path);
+        }
+
+        void stop() throws InterruptedException {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
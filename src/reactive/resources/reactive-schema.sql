@@ -0,0 +1,39 @@
+-- reactive-schema.sql
+-- Tables of the reactive API; same columns, constraint and indexes as Hibernate creates for the servlet application
+
+CREATE SEQUENCE IF NOT EXISTS book_seq;
+CREATE SEQUENCE IF NOT EXISTS patron_seq;
+CREATE SEQUENCE IF NOT EXISTS borrowing_record_seq;
+
+CREATE TABLE IF NOT EXISTS book (
+    id BIGINT DEFAULT NEXT VALUE FOR book_seq PRIMARY KEY,
+    title VARCHAR(255),
+    author VARCHAR(255),
+    publication_year INTEGER NOT NULL,
+    isbn VARCHAR(255),
+    total_copies INTEGER NOT NULL,
+    available_copies INTEGER NOT NULL,
+    version BIGINT NOT NULL,
+    CHECK (available_copies >= 0 AND available_copies <= total_copies)
+);
+CREATE INDEX IF NOT EXISTS idx_book_author_id ON book (author, id);
+CREATE INDEX IF NOT EXISTS idx_book_publication_year_id ON book (publication_year, id);
+
+CREATE TABLE IF NOT EXISTS patron (
+    id BIGINT DEFAULT NEXT VALUE FOR patron_seq PRIMARY KEY,
+    name VARCHAR(255),
+    contact_information VARCHAR(255),
+    version BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS borrowing_record (
+    id BIGINT DEFAULT NEXT VALUE FOR borrowing_record_seq PRIMARY KEY,
+    book_id BIGINT REFERENCES book (id),
+    patron_id BIGINT REFERENCES patron (id),
+    borrow_date DATE,
+    due_date DATE,
+    return_date DATE
+);
+CREATE INDEX IF NOT EXISTS idx_borrowing_record_return_due ON borrowing_record (return_date, due_date);
+CREATE INDEX IF NOT EXISTS idx_borrowing_record_patron_return ON borrowing_record (patron_id, return_date);
+CREATE INDEX IF NOT EXISTS idx_borrowing_record_book_return ON borrowing_record (book_id, return_date);
@@ -0,0 +1,116 @@
+package com.example.library.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void fastCompletionsRaiseTheLimitWhileAtLeastHalfIsUsed() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 12, SECOND, 0.5, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(AdaptiveConcurrencyLimit.Admission.ADMITTED, limit.acquire());
+        }
+        assertEquals(AdaptiveConcurrencyLimit.Admission.REJECTED, limit.acquire());
+
+        // Each fast completion at full use adds 1/limit: about one limit's worth of them adds one slot
+        for (int i = 0; i < 11; i++) {
+            limit.release(MILLISECOND);
+            assertEquals(AdaptiveConcurrencyLimit.Admission.ADMITTED, limit.acquire());
+        }
+        assertEquals(11, limit.getLimit());
+        assertEquals(AdaptiveConcurrencyLimit.Admission.ADMITTED, limit.acquire());
+
+        // Capped at the maximum
+        for (int i = 0; i < 100; i++) {
+            limit.release(MILLISECOND);
+            limit.acquire();
+        }
+        assertEquals(12, limit.getLimit());
+    }
+
+    @Test
+    void fastCompletionsAtLowUseLeaveTheLimitAlone() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, SECOND, 0.5, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            limit.acquire();
+            limit.release(MILLISECOND);
+        }
+        assertEquals(10, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void slowCompletionsCutTheLimitOncePerTargetLatency() throws InterruptedException {
+        long target = 20 * MILLISECOND;
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(40, 4, 100, target, 0.5, 0, 0);
+        TimeUnit.NANOSECONDS.sleep(2 * target);
+
+        limit.acquire();
+        limit.acquire();
+        limit.release(SECOND);
+        assertEquals(20, limit.getLimit());
+        // A second slow completion right after is part of the same signal
+        limit.release(SECOND);
+        assertEquals(20, limit.getLimit());
+
+        for (int expected : new int[]{10, 5, 4, 4}) {
+            TimeUnit.NANOSECONDS.sleep(2 * target);
+            limit.acquire();
+            limit.release(SECOND);
+            assertEquals(expected, limit.getLimit());
+        }
+    }
+
+    @Test
+    void aQueuedCallerGetsTheSlotAsSoonAsItIsReleased() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, SECOND, 0.5, 1, 10 * SECOND);
+        assertEquals(AdaptiveConcurrencyLimit.Admission.ADMITTED, limit.acquire());
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<AdaptiveConcurrencyLimit.Admission> waiter = pool.submit(limit::acquire);
+            long deadline = System.nanoTime() + 5 * SECOND;
+            while (limit.getQueued() == 0) {
+                assertTrue(System.nanoTime() < deadline, "Caller never queued");
+                Thread.sleep(1);
+            }
+            // The queue holds one caller; the next is turned away without waiting
+            assertEquals(AdaptiveConcurrencyLimit.Admission.REJECTED, limit.acquire());
+            assertFalse(waiter.isDone());
+
+            long released = System.nanoTime();
+            limit.release(MILLISECOND);
+            // Signalled, not woken by the 10 s wait running out
+            assertEquals(AdaptiveConcurrencyLimit.Admission.QUEUED, waiter.get(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - released < 5 * SECOND);
+            assertEquals(1, limit.getInFlight());
+            assertEquals(0, limit.getQueued());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void aQueuedCallerGivesUpAfterTheMaximumWait() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, SECOND, 0.5, 1, 50 * MILLISECOND);
+        limit.acquire();
+
+        long started = System.nanoTime();
+        assertEquals(AdaptiveConcurrencyLimit.Admission.REJECTED, limit.acquire());
+        assertTrue(System.nanoTime() - started >= 50 * MILLISECOND);
+        assertEquals(0, limit.getQueued());
+        assertEquals(1, limit.getInFlight());
+    }
+}
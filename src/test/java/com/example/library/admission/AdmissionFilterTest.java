@@ -0,0 +1,92 @@
+package com.example.library.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Buckets small and slow enough that a few requests in a row run them dry
+@SpringBootTest(properties = {
+        "library.admission.patron-burst=2",
+        "library.admission.patron-rate=0.01",
+        "library.admission.list-burst=2",
+        "library.admission.list-rate=0.01"
+})
+@AutoConfigureMockMvc
+class AdmissionFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void classifiesByMethodAndPath() {
+        assertEquals(AdmissionFilter.EndpointClass.CIRCULATION, AdmissionFilter.classify("POST", "/api/borrow/1/patron/2"));
+        assertEquals(AdmissionFilter.EndpointClass.CIRCULATION, AdmissionFilter.classify("PUT", "/api/return/1/patron/2"));
+        assertEquals(AdmissionFilter.EndpointClass.CIRCULATION, AdmissionFilter.classify("POST", "/api/borrow/batch"));
+        assertEquals(AdmissionFilter.EndpointClass.EXPORT, AdmissionFilter.classify("GET", "/api/export/books"));
+        assertEquals(AdmissionFilter.EndpointClass.LIST, AdmissionFilter.classify("GET", "/api/books"));
+        assertEquals(AdmissionFilter.EndpointClass.LIST, AdmissionFilter.classify("GET", "/api/patrons"));
+        assertEquals(AdmissionFilter.EndpointClass.LIST, AdmissionFilter.classify("GET", "/api/loans/overdue"));
+        assertEquals(AdmissionFilter.EndpointClass.LIST, AdmissionFilter.classify("GET", "/api/books/7/loans"));
+        assertEquals(AdmissionFilter.EndpointClass.LIST, AdmissionFilter.classify("GET", "/api/patrons/7/loans"));
+        // Writes to a list path and single-entity reads are not lists
+        assertEquals(AdmissionFilter.EndpointClass.OTHER, AdmissionFilter.classify("POST", "/api/books"));
+        assertEquals(AdmissionFilter.EndpointClass.OTHER, AdmissionFilter.classify("GET", "/api/books/7"));
+        assertEquals(AdmissionFilter.EndpointClass.OTHER, AdmissionFilter.classify("GET", "/api/books/7/loans/extra"));
+    }
+
+    @Test
+    void patronIdIsTakenFromSingleLoanPathsOnly() {
+        assertEquals(2L, AdmissionFilter.patronId("/api/borrow/1/patron/2"));
+        assertEquals(42L, AdmissionFilter.patronId("/api/return/10/patron/42"));
+        assertNull(AdmissionFilter.patronId("/api/borrow/batch"));
+        assertNull(AdmissionFilter.patronId("/api/borrow/1/reader/2"));
+        assertNull(AdmissionFilter.patronId("/api/borrow/1/patron/2/extra"));
+        assertNull(AdmissionFilter.patronId("/api/borrow/1/patron/abc"));
+        assertNull(AdmissionFilter.patronId("/api/borrow/1/patron/"));
+    }
+
+    @Test
+    void aPatronOverItsRateIsThrottledWithRetryAfter() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            int status = mockMvc.perform(post("/api/borrow/999/patron/999")).andReturn().getResponse().getStatus();
+            assertNotEquals(429, status);
+        }
+        mockMvc.perform(post("/api/borrow/999/patron/999"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(content().string("Too many borrow and return requests for patron 999, please retry later."));
+
+        // Other patrons have their own bucket
+        int status = mockMvc.perform(post("/api/borrow/999/patron/998")).andReturn().getResponse().getStatus();
+        assertNotEquals(429, status);
+    }
+
+    @Test
+    void listsOverTheirRateAreShedWithRetryAfter() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/books")).andExpect(status().isOk());
+        }
+        String retryAfter = mockMvc.perform(get("/api/books"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("The library is busy, please retry later."))
+                .andReturn().getResponse().getHeader(HttpHeaders.RETRY_AFTER);
+        // One token at 0.01 per second is 100 seconds away
+        assertEquals("100", retryAfter);
+
+        // Single-entity reads are not lists and still get through
+        int status = mockMvc.perform(get("/api/books/999")).andReturn().getResponse().getStatus();
+        assertNotEquals(503, status);
+    }
+}
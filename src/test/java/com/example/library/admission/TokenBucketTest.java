@@ -0,0 +1,44 @@
+package com.example.library.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void admitsTheBurstThenTheSustainedRate() {
+        long start = 1_000 * SECOND;
+        TokenBucket bucket = new TokenBucket(2, 3, start);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(start));
+        }
+        assertEquals(SECOND / 2, bucket.tryAcquire(start));
+
+        // One token every half second
+        assertEquals(0, bucket.tryAcquire(start + SECOND / 2));
+        assertTrue(bucket.tryAcquire(start + SECOND / 2) > 0);
+    }
+
+    @Test
+    void refillsToTheBurstAfterIdling() {
+        long start = -5 * SECOND;
+        TokenBucket bucket = new TokenBucket(10, 5, start);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(start);
+        }
+
+        long later = start + 60 * SECOND;
+        int admitted = 0;
+        while (bucket.tryAcquire(later) == 0) {
+            admitted++;
+        }
+        assertEquals(5, admitted);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.library.config;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Boots the whole application on a primary and two replicas that are separate
+// H2 databases. Each replica gets the primary's schema and a single book
+// naming it, so a list page shows which database served it.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-routing-primary;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica-urls=" + ReadReplicaConfigTest.REPLICA_0 + "," + ReadReplicaConfigTest.REPLICA_1,
+        "library.datasource.replica-check-interval=1h"
+})
+@AutoConfigureMockMvc
+class ReadReplicaConfigTest {
+
+    static final String REPLICA_0 = "jdbc:h2:mem:replica-routing-0;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_1 = "jdbc:h2:mem:replica-routing-1;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate primary;
+
+    @BeforeEach
+    void setUp() {
+        // Outside a request, the routing data source hands out primary connections
+        primary = new JdbcTemplate(dataSource);
+        List<String> schema = new ArrayList<>();
+        for (String statement : primary.queryForList("SCRIPT NODATA", String.class)) {
+            if (!statement.startsWith("CREATE USER")) {
+                schema.add(statement);
+            }
+        }
+        replica(REPLICA_0, schema);
+        replica(REPLICA_1, schema);
+    }
+
+    @Test
+    void listPagesAreReadFromTheReplicasThroughJpa() throws Exception {
+        assertInstanceOf(ReadReplicaConfig.RoutingDataSource.class, dataSource);
+        assertInstanceOf(JpaTransactionManager.class, transactionManager);
+
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            served.add(firstTitle());
+        }
+        served.sort(null);
+        assertEquals(List.of("replica-routing-0", "replica-routing-0", "replica-routing-1", "replica-routing-1"), served);
+    }
+
+    @Test
+    void writesGoToThePrimary() throws Exception {
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Written Title\",\"author\":\"Primary Author\",\"isbn\":\"9780000000001\","
+                                + "\"publicationYear\":2020,\"totalCopies\":1}"))
+                .andExpect(status().is2xxSuccessful());
+
+        assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM book WHERE title = 'Written Title'", Integer.class));
+        assertEquals(0, replicaJdbc(REPLICA_0).queryForObject("SELECT COUNT(*) FROM book WHERE title = 'Written Title'", Integer.class));
+        assertEquals(0, replicaJdbc(REPLICA_1).queryForObject("SELECT COUNT(*) FROM book WHERE title = 'Written Title'", Integer.class));
+    }
+
+    private String firstTitle() throws Exception {
+        String body = mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.items[0].title");
+    }
+
+    private static void replica(String url, List<String> schema) {
+        JdbcTemplate jdbc = replicaJdbc(url);
+        jdbc.execute("DROP ALL OBJECTS");
+        schema.forEach(jdbc::execute);
+        String name = url.substring("jdbc:h2:mem:".length(), url.indexOf(';'));
+        jdbc.update("INSERT INTO book (id, title, author, isbn, publication_year, total_copies, available_copies, version)"
+                + " VALUES (1, ?, 'Replica Author', '9780000000000', 2000, 1, 1, 0)", name);
+    }
+
+    private static JdbcTemplate replicaJdbc(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url, "sa", "password"));
+    }
+}
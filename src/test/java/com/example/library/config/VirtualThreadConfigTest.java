@@ -0,0 +1,67 @@
+package com.example.library.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Virtual threads with a replica: the pools are guarded one by one, and the
+// routing data source in front of them is not guarded a second time.
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:virtual-guard-primary;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica-urls=jdbc:h2:mem:virtual-guard-replica;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica-check-interval=1h",
+        "library.virtual-threads.max-db-connections=2",
+        "library.virtual-threads.max-db-wait=50ms"
+})
+class VirtualThreadConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void eachPoolIsGuardedOnce() throws Exception {
+        assertInstanceOf(ReadReplicaConfig.RoutingDataSource.class, dataSource);
+        Set<String> pools = meterRegistry.get("library.db.guard.waiting").gauges().stream()
+                .map(gauge -> gauge.getId().getTag("pool"))
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("primary", "replica-0"), pools);
+
+        // Outside a request every connection comes from the primary; its guard lets two through
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            select(first);
+            select(second);
+            assertThrows(SQLTransientConnectionException.class, () -> {
+                try (Connection third = dataSource.getConnection()) {
+                    select(third);
+                }
+            });
+        }
+        // Closing them handed the permits back
+        try (Connection again = dataSource.getConnection()) {
+            select(again);
+        }
+    }
+
+    // The routing data source is lazy: a connection is only fetched for the first statement
+    private static void select(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.library.controller;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.PatronRepository;
+import com.example.library.service.CatalogService;
+import com.example.library.service.CirculationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BatchCirculationTest {
+
+    private static final long UNKNOWN_BOOK = Long.MAX_VALUE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private CirculationService circulationService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Test
+    void borrowBatchReportsEveryBookInRequestOrder() throws Exception {
+        Patron reader = patron("Batch Reader");
+        Patron other = patron("Other Batch Reader");
+        Book free = book("Batch Free", 1);
+        Book lentOut = book("Batch Lent Out", 1);
+        Book alreadyHeld = book("Batch Already Held", 2);
+        circulationService.borrow(lentOut.getId(), other.getId());
+        circulationService.borrow(alreadyHeld.getId(), reader.getId());
+
+        mockMvc.perform(post("/api/borrow/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(reader, free.getId(), lentOut.getId(), alreadyHeld.getId(), UNKNOWN_BOOK, free.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.patronId").value(reader.getId()))
+                .andExpect(jsonPath("$.results.length()").value(5))
+                .andExpect(jsonPath("$.results[0].bookId").value(free.getId()))
+                .andExpect(jsonPath("$.results[0].status").value("BORROWED"))
+                .andExpect(jsonPath("$.results[0].borrowingRecordId").isNumber())
+                .andExpect(jsonPath("$.results[1].status").value("NO_COPIES_AVAILABLE"))
+                .andExpect(jsonPath("$.results[2].status").value("ALREADY_BORROWED"))
+                .andExpect(jsonPath("$.results[3].status").value("BOOK_NOT_FOUND"))
+                .andExpect(jsonPath("$.results[4].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$.results[4].borrowingRecordId").doesNotExist());
+
+        assertEquals(0, bookRepository.findById(free.getId()).get().getAvailableCopies());
+        assertEquals(0, bookRepository.findById(lentOut.getId()).get().getAvailableCopies());
+        // The copy taken for the book already on loan to the reader was put back
+        assertEquals(1, bookRepository.findById(alreadyHeld.getId()).get().getAvailableCopies());
+    }
+
+    @Test
+    void returnBatchReportsEveryBookInRequestOrder() throws Exception {
+        Patron reader = patron("Returning Reader");
+        Book held = book("Return Held", 1);
+        Book notHeld = book("Return Not Held", 1);
+        circulationService.borrow(held.getId(), reader.getId());
+
+        mockMvc.perform(put("/api/return/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(reader, held.getId(), notHeld.getId(), UNKNOWN_BOOK, held.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(4))
+                .andExpect(jsonPath("$.results[0].status").value("RETURNED"))
+                .andExpect(jsonPath("$.results[0].borrowingRecordId").isNumber())
+                .andExpect(jsonPath("$.results[1].status").value("NOT_BORROWED"))
+                .andExpect(jsonPath("$.results[2].status").value("BOOK_NOT_FOUND"))
+                .andExpect(jsonPath("$.results[3].status").value("DUPLICATE"));
+        assertEquals(1, bookRepository.findById(held.getId()).get().getAvailableCopies());
+
+        // Nothing left to return the second time
+        mockMvc.perform(put("/api/return/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(reader, held.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].status").value("NOT_BORROWED"));
+        assertEquals(1, bookRepository.findById(held.getId()).get().getAvailableCopies());
+    }
+
+    @Test
+    void unknownPatronIsNotFound() throws Exception {
+        Book book = book("Batch Unknown Patron", 1);
+        mockMvc.perform(post("/api/borrow/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patronId\": " + Long.MAX_VALUE + ", \"bookIds\": [" + book.getId() + "]}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/return/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patronId\": " + Long.MAX_VALUE + ", \"bookIds\": [" + book.getId() + "]}"))
+                .andExpect(status().isNotFound());
+        assertEquals(1, bookRepository.findById(book.getId()).get().getAvailableCopies());
+    }
+
+    private static String body(Patron patron, Long... bookIds) {
+        StringBuilder body = new StringBuilder("{\"patronId\": " + patron.getId() + ", \"bookIds\": [");
+        for (int i = 0; i < bookIds.length; i++) {
+            body.append(i == 0 ? "" : ", ").append(bookIds[i]);
+        }
+        return body.append("]}").toString();
+    }
+
+    private Book book(String title, int copies) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Batch Author");
+        book.setTotalCopies(copies);
+        return catalogService.addBook(book);
+    }
+
+    private Patron patron(String name) {
+        Patron patron = new Patron();
+        patron.setName(name);
+        patron.setContactInformation(name.toLowerCase().replace(' ', '.') + "@example.com");
+        return patronRepository.save(patron);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.library.controller;
+
+import com.example.library.entity.Book;
+import com.example.library.repository.BookRepository;
+import com.example.library.response.CursorPage;
+import com.example.library.service.CatalogService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookListingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void filtersPageThroughEveryMatchAndStopAtTheLastPage() throws Exception {
+        List<Long> all = new ArrayList<>();
+        for (int year = 2001; year <= 2005; year++) {
+            all.add(book("Listed Author", year));
+        }
+        book("Other Listed Author", 2003);
+
+        assertEquals(all, readAll("author", "Listed Author"));
+        assertEquals(all.subList(1, 4), readAll("author", "Listed Author", "yearFrom", "2002", "yearTo", "2004"));
+        assertEquals(all.subList(3, 5), readAll("author", "Listed Author", "yearFrom", "2004"));
+        assertEquals(all.subList(0, 2), readAll("author", "Listed Author", "yearTo", "2002"));
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() throws Exception {
+        book("Last Page Author", 1999);
+        book("Last Page Author", 2000);
+        // Ids come from pooled sequences, so the newest book need not have the highest id
+        List<Book> highest = bookRepository.findAll(PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"))).getContent();
+
+        mockMvc.perform(get("/api/books").param("cursor", CursorPage.encodeCursor(highest.get(1).getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(highest.get(0).getId()))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mockMvc.perform(get("/api/books").param("cursor", CursorPage.encodeCursor(highest.get(0).getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void rejectsATamperedCursor() throws Exception {
+        mockMvc.perform(get("/api/books").param("cursor", "aWQ6YWJj"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/books").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Follows nextCursor two books at a time and returns every id listed
+    private List<Long> readAll(String... filters) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/books").param("size", "2");
+            for (int i = 0; i < filters.length; i += 2) {
+                request.param(filters[i], filters[i + 1]);
+            }
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Number> page = JsonPath.read(body, "$.items[*].id");
+            page.forEach(id -> ids.add(id.longValue()));
+            cursor = JsonPath.read(body, "$.nextCursor");
+        } while (cursor != null);
+        return ids;
+    }
+
+    private long book(String author, int year) {
+        Book book = new Book();
+        book.setTitle("Listed Title " + year);
+        book.setAuthor(author);
+        book.setPublicationYear(year);
+        return catalogService.addBook(book).getId();
+    }
+}
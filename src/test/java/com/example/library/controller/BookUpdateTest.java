@@ -0,0 +1,97 @@
+package com.example.library.controller;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.PatronRepository;
+import com.example.library.service.CatalogService;
+import com.example.library.service.CirculationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Clients written before copy counts send books without totalCopies
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookUpdateTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private CirculationService circulationService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Test
+    void bookAddedWithoutCopiesHasOne() throws Exception {
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Single Copy\",\"author\":\"Old Client\"}"))
+                .andExpect(status().isCreated());
+
+        Book stored = bookRepository.findAll().stream()
+                .filter(book -> "Single Copy".equals(book.getTitle()))
+                .findFirst().get();
+        assertEquals(1, stored.getTotalCopies());
+        assertEquals(1, stored.getAvailableCopies());
+    }
+
+    @Test
+    void updateWithoutCopiesKeepsThem() throws Exception {
+        Book book = addBook(3);
+        Patron patron = new Patron();
+        patron.setName("Update Reader");
+        patron.setContactInformation("update.reader@example.com");
+        patron = patronRepository.save(patron);
+        circulationService.borrow(book.getId(), patron.getId());
+
+        mockMvc.perform(put("/api/books/" + book.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Renamed Copies\",\"author\":\"Old Client\",\"publicationYear\":1999}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Renamed Copies"))
+                .andExpect(jsonPath("$.totalCopies").value(3))
+                .andExpect(jsonPath("$.availableCopies").value(2));
+
+        Book stored = bookRepository.findById(book.getId()).get();
+        assertEquals(3, stored.getTotalCopies());
+        assertEquals(2, stored.getAvailableCopies());
+    }
+
+    @Test
+    void updateWithCopiesStillChangesThem() throws Exception {
+        Book book = addBook(3);
+
+        mockMvc.perform(put("/api/books/" + book.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"More Copies\",\"author\":\"New Client\",\"totalCopies\":5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCopies").value(5))
+                .andExpect(jsonPath("$.availableCopies").value(5));
+    }
+
+    private Book addBook(int copies) {
+        Book book = new Book();
+        book.setTitle("Copies Title");
+        book.setAuthor("New Client");
+        book.setTotalCopies(copies);
+        return catalogService.addBook(book);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.library.controller;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import com.example.library.repository.PatronRepository;
+import com.example.library.service.CatalogService;
+import com.example.library.service.CirculationService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private CirculationService circulationService;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void unchangedBookIsNotModifiedWithoutAQuery() throws Exception {
+        Book book = new Book();
+        book.setTitle("Conditional Title");
+        book.setAuthor("Some Author");
+        book.setTotalCopies(2);
+        Long bookId = catalogService.addBook(book).getId();
+
+        String etag = mockMvc.perform(get("/api/books/{id}", bookId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Conditional Title"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // A checkout changes the available copies, so the old ETag no longer matches
+        Patron patron = new Patron();
+        patron.setName("Conditional Reader");
+        patron.setContactInformation("conditional.reader@example.com");
+        circulationService.borrow(bookId, patronRepository.save(patron).getId());
+        String changed = mockMvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableCopies").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    void unchangedPageIsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/patrons").param("size", "5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/patrons").param("size", "5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+}
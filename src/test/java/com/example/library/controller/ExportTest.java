@@ -0,0 +1,150 @@
+package com.example.library.controller;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import com.example.library.repository.ArchivedLoanRepository;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.PatronRepository;
+import com.example.library.service.CatalogService;
+import com.example.library.service.CirculationResult;
+import com.example.library.service.CirculationService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private CirculationService circulationService;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void borrowingRecordsCoverLiveThenArchivedLoans() throws Exception {
+        Patron patron = new Patron();
+        patron.setName("Export Reader");
+        patron.setContactInformation("export.reader@example.com");
+        patron = patronRepository.save(patron);
+        Book archivedBook = book("Export Archived Title");
+        Book openBook = book("Export Open Title");
+
+        Long archivedId = borrow(archivedBook, patron);
+        circulationService.giveBack(archivedBook.getId(), patron.getId());
+        Long openId = borrow(openBook, patron);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            archivedLoanRepository.copyFromBorrowingRecords(List.of(archivedId));
+            borrowingRecordRepository.deleteByIdIn(List.of(archivedId));
+        });
+
+        List<JsonNode> rows = export("/api/export/borrowing-records.ndjson");
+
+        long live = borrowingRecordRepository.count();
+        assertEquals(live + archivedLoanRepository.count(), rows.size());
+        int open = indexOf(rows, openId);
+        int archived = indexOf(rows, archivedId);
+        // The archived loan has the lower id but comes after every live loan
+        assertTrue(archivedId < openId);
+        assertTrue(open < live);
+        assertTrue(archived >= live);
+        assertEquals("Export Open Title", rows.get(open).path("book").path("title").asText());
+        assertTrue(rows.get(open).path("returnDate").isNull());
+        assertEquals("Export Archived Title", rows.get(archived).path("book").path("title").asText());
+        assertEquals("Export Reader", rows.get(archived).path("patron").path("name").asText());
+        assertTrue(rows.get(archived).path("returnDate").isTextual());
+    }
+
+    @Test
+    void booksAreExportedInIdOrder() throws Exception {
+        book("Export Listed Title");
+
+        List<JsonNode> rows = export("/api/export/books.ndjson");
+
+        assertEquals(bookRepository.count(), rows.size());
+        for (int i = 1; i < rows.size(); i++) {
+            assertTrue(rows.get(i - 1).path("id").asLong() < rows.get(i).path("id").asLong());
+        }
+    }
+
+    // Reads the stream to its end and parses one object per line
+    private List<JsonNode> export(String path) throws Exception {
+        MvcResult started = mockMvc.perform(get(path))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.endsWith("\n"));
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+        return rows;
+    }
+
+    private static int indexOf(List<JsonNode> rows, Long id) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).path("id").asLong() == id) {
+                return i;
+            }
+        }
+        throw new AssertionError("Loan " + id + " was not exported");
+    }
+
+    private Long borrow(Book book, Patron patron) {
+        CirculationResult result = circulationService.borrow(book.getId(), patron.getId());
+        return result.getBorrowingRecord().getId();
+    }
+
+    private Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Export Author");
+        return catalogService.addBook(book);
+    }
+}
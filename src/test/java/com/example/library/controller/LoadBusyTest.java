@@ -0,0 +1,50 @@
+package com.example.library.controller;
+
+import com.example.library.service.ResponseBodyCache;
+import com.example.library.service.SingleFlight;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A read that gave up waiting for another request's load of the same id is
+// answered with 503 and Retry-After; SingleFlightTest covers the wait itself.
+@SpringBootTest
+@AutoConfigureMockMvc
+class LoadBusyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private ResponseBodyCache responseBodyCache;
+
+    @Test
+    void aBookStillLoadingIsBusy() throws Exception {
+        doThrow(new SingleFlight.WaitTimeoutException(4242L)).when(responseBodyCache).findBook(4242L);
+
+        mockMvc.perform(get("/api/books/4242"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(content().string("Book 4242 is busy, please retry."));
+    }
+
+    @Test
+    void aPatronStillLoadingIsBusy() throws Exception {
+        doThrow(new SingleFlight.WaitTimeoutException(4242L)).when(responseBodyCache).findPatron(4242L);
+
+        mockMvc.perform(get("/api/patrons/4242"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(content().string("Patron 4242 is busy, please retry."));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.library.controller;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import com.example.library.repository.ArchivedLoanRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.PatronRepository;
+import com.example.library.response.LoanSummary;
+import com.example.library.service.CatalogService;
+import com.example.library.service.CirculationService;
+import com.example.library.service.EntityCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Each loan history page must take one SQL statement per table, however many loans it holds
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class LoanHistoryQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private CirculationService circulationService;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private Patron reader;
+    private Book first;
+
+    @BeforeEach
+    void borrowAndReturn() {
+        reader = patron("History Reader");
+        Patron other = patron("Other Reader");
+        first = book("History One");
+        Book second = book("History Two");
+        Book third = book("History Three");
+
+        // reader: three loans, two returned; first: two loans, one still open
+        circulationService.borrow(first.getId(), reader.getId());
+        circulationService.borrow(second.getId(), reader.getId());
+        circulationService.borrow(third.getId(), reader.getId());
+        circulationService.giveBack(first.getId(), reader.getId());
+        circulationService.giveBack(second.getId(), reader.getId());
+        circulationService.borrow(first.getId(), other.getId());
+
+        // Move reader's first, returned loan to the archive; the pages must still show it
+        List<Long> returned = borrowingRecordRepository.findBookLoans(first.getId(), 0, PageRequest.of(0, 1))
+                .stream().map(LoanSummary::getId).collect(Collectors.toList());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            archivedLoanRepository.copyFromBorrowingRecords(returned);
+            borrowingRecordRepository.deleteByIdIn(returned);
+        });
+
+        // The existence checks are served from the cache, so only the history queries reach the database
+        entityCache.findPatron(reader.getId());
+        entityCache.findBook(first.getId());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void patronLoansTakeOneStatementPerTable() throws Exception {
+        mockMvc.perform(get("/api/patrons/{id}/loans", reader.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[0].bookTitle").value("History One"))
+                .andExpect(jsonPath("$.items[1].bookTitle").value("History Two"));
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        // Open loans are never archived, so only the live table is read
+        statistics.clear();
+        mockMvc.perform(get("/api/patrons/{id}/loans", reader.getId()).param("activeOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].bookTitle").value("History Three"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void bookLoansTakeOneStatementPerTable() throws Exception {
+        mockMvc.perform(get("/api/books/{id}/loans", first.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].patronName").value("History Reader"))
+                .andExpect(jsonPath("$.items[1].patronName").value("Other Reader"));
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        mockMvc.perform(get("/api/books/{id}/loans", first.getId()).param("activeOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].active").value(true));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Some Author");
+        book.setTotalCopies(2);
+        return catalogService.addBook(book);
+    }
+
+    private Patron patron(String name) {
+        Patron patron = new Patron();
+        patron.setName(name);
+        patron.setContactInformation(name.toLowerCase().replace(' ', '.') + "@example.com");
+        return patronRepository.save(patron);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.library.controller;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.BorrowingRecord;
+import com.example.library.entity.Patron;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.PatronRepository;
+import com.example.library.response.CursorPage;
+import com.example.library.service.CatalogService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OverdueLoansTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Test
+    void listsOpenLoansPastTheirDueDateInIdOrder() throws Exception {
+        Book book = new Book();
+        book.setTitle("Overdue Report Title");
+        book.setAuthor("Some Author");
+        book.setTotalCopies(5);
+        book = catalogService.addBook(book);
+        Patron patron = new Patron();
+        patron.setName("Overdue Reader");
+        patron.setContactInformation("overdue.reader@example.com");
+        patron = patronRepository.save(patron);
+
+        LocalDate today = LocalDate.now();
+        BorrowingRecord late = loan(book, patron, today.minusDays(10), null);
+        BorrowingRecord later = loan(book, patron, today.minusDays(1), null);
+        loan(book, patron, today.minusDays(3), today.minusDays(4));
+        loan(book, patron, today, null);
+        BorrowingRecord lastLate = loan(book, patron, today.minusDays(2), null);
+
+        // Start after the loans other tests created; page size 2 splits the three overdue loans
+        String cursor = CursorPage.encodeCursor(late.getId() - 1);
+        String next = CursorPage.encodeCursor(later.getId());
+        mockMvc.perform(get("/api/loans/overdue").param("cursor", cursor).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(late.getId()))
+                .andExpect(jsonPath("$.items[0].bookTitle").value("Overdue Report Title"))
+                .andExpect(jsonPath("$.items[0].patronName").value("Overdue Reader"))
+                .andExpect(jsonPath("$.items[0].dueDate").value(today.minusDays(10).toString()))
+                .andExpect(jsonPath("$.items[0].daysOverdue").value(10))
+                .andExpect(jsonPath("$.items[1].id").value(later.getId()))
+                .andExpect(jsonPath("$.nextCursor").value(next));
+
+        mockMvc.perform(get("/api/loans/overdue").param("cursor", next).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(lastLate.getId()))
+                .andExpect(jsonPath("$.items[0].daysOverdue").value(2))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void rejectsABadCursorOrSize() throws Exception {
+        mockMvc.perform(get("/api/loans/overdue").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/loans/overdue").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private BorrowingRecord loan(Book book, Patron patron, LocalDate dueDate, LocalDate returnDate) {
+        BorrowingRecord record = new BorrowingRecord();
+        record.setBook(book);
+        record.setPatron(patron);
+        record.setBorrowDate(dueDate.minusDays(14));
+        record.setDueDate(dueDate);
+        record.setReturnDate(returnDate);
+        return borrowingRecordRepository.save(record);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.library.feed;
+
+import com.example.library.entity.Book;
+import com.example.library.event.BookChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives the feed with emitters that record what they are sent, or block like a client that stopped reading
+@SpringBootTest(properties = {
+        "library.feed.buffer-size=8",
+        "library.feed.senders=1",
+        "library.feed.write-timeout=200ms",
+        "library.feed.heartbeat=1h"
+})
+class BookChangeFeedTest {
+
+    @Autowired
+    private BookChangeFeed bookChangeFeed;
+
+    @Test
+    void resumesRightAfterLastEventId() {
+        RecordingEmitter live = subscribe(null);
+        publish(1);
+        publish(2);
+        publish(3);
+        await(() -> live.events().size() == 3);
+
+        RecordingEmitter resumed = subscribe(live.id(0));
+        await(() -> resumed.events().size() == 2);
+
+        assertEquals(List.of(live.events().get(1), live.events().get(2)), resumed.events());
+        assertFalse(resumed.received("\"type\":\"reset\""));
+    }
+
+    @Test
+    void resetsWhenTheNextEventWasOverwritten() {
+        RecordingEmitter live = subscribe(null);
+        publish(1);
+        await(() -> live.events().size() == 1);
+        String first = live.id(0);
+        // Twice the buffer: the event after the first one is gone
+        for (int i = 2; i <= 17; i++) {
+            publish(i);
+        }
+
+        RecordingEmitter late = subscribe(first);
+        RecordingEmitter foreign = subscribe("someotherrun-1");
+        await(() -> late.events().size() == 1 && foreign.events().size() == 1);
+
+        assertTrue(late.events().get(0).contains("\"type\":\"reset\""));
+        assertTrue(foreign.events().get(0).contains("\"type\":\"reset\""));
+        publish(18);
+        await(() -> late.events().size() == 2);
+        assertTrue(late.events().get(1).contains("\"bookId\":18"));
+    }
+
+    @Test
+    void stalledSubscriberDoesNotHoldUpOthers() {
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(unblock);
+        bookChangeFeed.subscribe(null, stalled);
+        // Wait until the only sender is stuck in the stalled client's first write
+        await(() -> stalled.writing);
+
+        RecordingEmitter healthy = subscribe(null);
+        publish(1);
+        publish(2);
+        await(() -> healthy.events().size() == 2);
+
+        unblock.countDown();
+        await(() -> stalled.failed);
+        publish(3);
+        await(() -> healthy.events().size() == 3);
+        assertTrue(stalled.events().isEmpty());
+    }
+
+    private RecordingEmitter subscribe(String lastEventId) {
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        bookChangeFeed.subscribe(lastEventId, emitter);
+        return emitter;
+    }
+
+    private void publish(long bookId) {
+        Book book = new Book();
+        book.setId(bookId);
+        book.setTitle("Title " + bookId);
+        bookChangeFeed.onBookChanged(new BookChangedEvent(BookChangedEvent.Type.CREATED, null, book));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the feed");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    // Records the text of each event; with a latch, every write blocks until it opens
+    private static final class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch unblock;
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private volatile boolean writing;
+        private volatile boolean failed;
+
+        RecordingEmitter(CountDownLatch unblock) {
+            this.unblock = unblock;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (unblock != null) {
+                writing = true;
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                text.append(data.getData());
+            }
+            sent.add(text.toString());
+        }
+
+        @Override
+        public void completeWithError(Throwable error) {
+            failed = true;
+        }
+
+        // Sent events, without heartbeats
+        List<String> events() {
+            return sent.stream().filter(text -> text.startsWith("id:")).toList();
+        }
+
+        String id(int index) {
+            String event = events().get(index);
+            return event.substring(3, event.indexOf('\n'));
+        }
+
+        boolean received(String fragment) {
+            return sent.stream().anyMatch(text -> text.contains(fragment));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.library.feed;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ChangeRingTest {
+
+    @Test
+    void keepsTheLastCapacityEntriesBySequence() {
+        ChangeRing ring = new ChangeRing(4);
+        assertEquals(0, ring.head());
+        assertNull(ring.get(1));
+
+        for (int i = 1; i <= 6; i++) {
+            assertEquals(i, ring.append("{\"n\":" + i + "}"));
+        }
+
+        assertEquals(6, ring.head());
+        // 1 and 2 were overwritten by 5 and 6; a reader asking for them must not get those
+        assertNull(ring.get(1));
+        assertNull(ring.get(2));
+        assertEquals("{\"n\":3}", ring.get(3).json);
+        assertEquals("{\"n\":6}", ring.get(6).json);
+        assertNull(ring.get(7));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.library.journal;
+
+import com.example.library.LibraryManagementApplication;
+import com.example.library.entity.Book;
+import com.example.library.entity.BorrowingRecord;
+import com.example.library.entity.Patron;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.response.CirculationStatus;
+import com.example.library.service.CatalogService;
+import com.example.library.service.CirculationResult;
+import com.example.library.service.CirculationService;
+import com.example.library.service.PatronService;
+import com.example.library.snapshot.CatalogSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.NestedExceptionUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Borrows and returns in one run, "crashes" it, and checks the next run gets the loans back from the journal
+class JournalReplayTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loansSurviveACrash() throws IOException {
+        Path crashed = directory.resolve("crashed");
+        long keptLoanId;
+        long returnedLoanId;
+        long bookId;
+        try (ConfigurableApplicationContext first = start("first", directory.resolve("live"))) {
+            Book book = new Book();
+            book.setTitle("Journaled Title");
+            book.setAuthor("Some Author");
+            book.setTotalCopies(3);
+            book = first.getBean(CatalogService.class).addBook(book);
+            bookId = book.getId();
+            Patron keeper = patron(first, "Keeper");
+            Patron returner = patron(first, "Returner");
+            // The snapshot holds the catalog; the loans below exist only in the journal
+            first.getBean(CatalogSnapshot.class).write();
+
+            CirculationService circulationService = first.getBean(CirculationService.class);
+            keptLoanId = borrow(circulationService, bookId, keeper.getId());
+            returnedLoanId = borrow(circulationService, bookId, returner.getId());
+            assertEquals(CirculationStatus.RETURNED, circulationService.giveBack(bookId, returner.getId()).getStatus());
+
+            // A copy of the files as a crash would leave them, before the shutdown snapshot
+            copy(directory.resolve("live"), crashed);
+        }
+
+        try (ConfigurableApplicationContext second = start("second", crashed)) {
+            BorrowingRecordRepository borrowingRecordRepository = second.getBean(BorrowingRecordRepository.class);
+            BorrowingRecord kept = borrowingRecordRepository.findById(keptLoanId).orElse(null);
+            BorrowingRecord returned = borrowingRecordRepository.findById(returnedLoanId).orElse(null);
+            assertNotNull(kept);
+            assertNull(kept.getReturnDate());
+            assertNotNull(returned);
+            assertNotNull(returned.getReturnDate());
+            assertEquals(1, borrowingRecordRepository.countByBookIdAndReturnDateIsNull(bookId));
+            assertEquals(2, second.getBean(BookRepository.class).findById(bookId).get().getAvailableCopies());
+        }
+    }
+
+    @Test
+    void aFailedAppendRollsTheRequestBack() throws Exception {
+        try (ConfigurableApplicationContext context = start("broken", directory.resolve("broken"))) {
+            Book book = new Book();
+            book.setTitle("Unjournaled Title");
+            book.setAuthor("Some Author");
+            book = context.getBean(CatalogService.class).addBook(book);
+            long bookId = book.getId();
+            long patronId = patron(context, "Unlucky").getId();
+            // Appends to a closed segment fail
+            context.getBean(CirculationJournal.class).close();
+
+            CirculationService circulationService = context.getBean(CirculationService.class);
+            assertThrows(UncheckedIOException.class, () -> circulationService.borrow(bookId, patronId));
+            assertEquals(0, context.getBean(BorrowingRecordRepository.class).countByBookIdAndReturnDateIsNull(bookId));
+            assertEquals(1, context.getBean(BookRepository.class).findById(bookId).get().getAvailableCopies());
+
+            // The journal stays broken, so later requests fail before they change anything
+            assertThrows(UncheckedIOException.class, () -> circulationService.borrow(bookId, patronId));
+            assertEquals(0, context.getBean(BorrowingRecordRepository.class).countByBookIdAndReturnDateIsNull(bookId));
+        }
+    }
+
+    @Test
+    void refusesToStartWithoutTheSnapshot() {
+        Exception failure = assertThrows(Exception.class, () -> new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:journal-alone",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--library.journal.enabled=true",
+                        "--library.journal.directory=" + directory.resolve("journal"))
+                .close());
+
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(failure);
+        assertInstanceOf(IllegalStateException.class, cause);
+        assertTrue(cause.getMessage().contains("library.snapshot.enabled"));
+    }
+
+    // Command-line arguments, as application.properties would override default properties
+    private ConfigurableApplicationContext start(String name, Path files) {
+        return new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:journal-" + name + ";LOCK_TIMEOUT=10000",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--library.journal.enabled=true",
+                        "--library.journal.directory=" + files.resolve("journal"),
+                        "--library.snapshot.enabled=true",
+                        "--library.snapshot.file=" + files.resolve("catalog.snapshot"));
+    }
+
+    private static Patron patron(ConfigurableApplicationContext context, String name) {
+        Patron patron = new Patron();
+        patron.setName(name);
+        patron.setContactInformation(name.toLowerCase() + "@example.com");
+        return context.getBean(PatronService.class).addPatron(patron);
+    }
+
+    private static long borrow(CirculationService circulationService, long bookId, long patronId) {
+        CirculationResult result = circulationService.borrow(bookId, patronId);
+        assertEquals(CirculationStatus.BORROWED, result.getStatus());
+        return result.getBorrowingRecord().getId();
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.walk(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, to.resolve(from.relativize(file).toString()));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.library.journal;
+
+import com.example.library.event.CirculationEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalSegmentsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        Path segment = writeSegment(3);
+
+        List<JournalRecord> records = new ArrayList<>();
+        JournalSegments.ReadResult result = JournalSegments.read(segment, records::add);
+
+        assertEquals(3, result.getRecords());
+        assertEquals(3, result.getLastLsn());
+        assertFalse(result.isTorn());
+        JournalRecord second = records.get(1);
+        assertEquals(CirculationEvent.Type.RETURNED, second.getType());
+        assertEquals(102, second.getBorrowingRecordId());
+        assertEquals(LocalDate.of(2024, 3, 2), second.getDate());
+    }
+
+    @Test
+    void stopsAtATornLastRecord() throws IOException {
+        Path segment = writeSegment(3);
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 10));
+
+        JournalSegments.ReadResult result = JournalSegments.read(segment, record -> { });
+
+        assertEquals(2, result.getRecords());
+        assertEquals(2, result.getLastLsn());
+        assertTrue(result.isTorn());
+    }
+
+    @Test
+    void stopsAtARecordWithABadChecksum() throws IOException {
+        Path segment = writeSegment(3);
+        byte[] bytes = Files.readAllBytes(segment);
+        // Flip a payload byte of the second record
+        bytes[JournalSegments.HEADER_SIZE + JournalRecord.FRAME_SIZE + 20] ^= 1;
+        Files.write(segment, bytes);
+
+        JournalSegments.ReadResult result = JournalSegments.read(segment, record -> { });
+
+        assertEquals(1, result.getRecords());
+        assertTrue(result.isTorn());
+    }
+
+    private Path writeSegment(int records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(JournalSegments.HEADER_SIZE + records * JournalRecord.FRAME_SIZE);
+        buffer.put(JournalSegments.header());
+        CRC32C crc = new CRC32C();
+        for (int lsn = 1; lsn <= records; lsn++) {
+            CirculationEvent.Type type = lsn % 2 == 0 ? CirculationEvent.Type.RETURNED : CirculationEvent.Type.BORROWED;
+            JournalSegments.writeFrame(buffer, new JournalRecord(lsn, type, 100 + lsn, 7, 9, LocalDate.of(2024, 3, lsn)), crc);
+        }
+        Path segment = JournalSegments.path(directory, 1);
+        Files.write(segment, buffer.array());
+        return segment;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.library.response;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorPageTest {
+
+    @Test
+    void cursorRoundTrips() {
+        assertEquals(0L, CursorPage.decodeCursor(null));
+        assertEquals(0L, CursorPage.decodeCursor(""));
+        assertEquals(42L, CursorPage.decodeCursor(CursorPage.encodeCursor(42)));
+        assertEquals(Long.MAX_VALUE, CursorPage.decodeCursor(CursorPage.encodeCursor(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void tamperedCursorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CursorPage.decodeCursor("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> CursorPage.decodeCursor(encode("42")));
+        assertThrows(IllegalArgumentException.class, () -> CursorPage.decodeCursor(encode("id:abc")));
+        assertThrows(IllegalArgumentException.class, () -> CursorPage.decodeCursor(encode("id:-1")));
+        assertThrows(IllegalArgumentException.class, () -> CursorPage.decodeCursor(encode("id:")));
+    }
+
+    @Test
+    void extraRowSignalsAnotherPage() {
+        CursorPage<Long> page = CursorPage.of(List.of(1L, 2L, 3L), 2, Long::longValue);
+        assertEquals(List.of(1L, 2L), page.getItems());
+        assertEquals(2L, CursorPage.decodeCursor(page.getNextCursor()));
+
+        // The last page is the one without the extra row
+        CursorPage<Long> last = CursorPage.of(List.of(3L, 4L), 2, Long::longValue);
+        assertEquals(List.of(3L, 4L), last.getItems());
+        assertNull(last.getNextCursor());
+        assertNull(CursorPage.of(List.<Long>of(), 2, Long::longValue).getNextCursor());
+    }
+
+    private static String encode(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.library.search;
+
+import com.example.library.entity.Book;
+import com.example.library.response.BookSearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogSearchIndexTest {
+
+    private CatalogSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogSearchIndex();
+        index.add(book(1L, "The Hobbit", "J. R. R. Tolkien", "978-0-261-10221-7"));
+        index.add(book(2L, "The Lord of the Rings", "J. R. R. Tolkien", "978-0-261-10320-7"));
+        index.add(book(3L, "Tolkien: A Biography", "Humphrey Carpenter", null));
+        index.add(book(4L, "Hobbes and Republican Liberty", "Quentin Skinner", null));
+    }
+
+    @Test
+    void allTermsMustMatchAndPrefixesExpand() {
+        assertEquals(List.of(1L), ids(index.search("hobb tolk", 10)));
+        assertEquals(List.of(1L, 4L), ids(index.search("hobb", 10)));
+        assertTrue(index.search("hobbit carpenter", 10).isEmpty());
+    }
+
+    @Test
+    void titleMatchesOutrankAuthorMatches() {
+        assertEquals(List.of(3L, 1L, 2L), ids(index.search("tolkien", 10)));
+        assertEquals(List.of(3L), ids(index.search("tolkien", 1)));
+    }
+
+    @Test
+    void isbnMatchesWithOrWithoutSeparators() {
+        assertEquals(List.of(2L), ids(index.search("978-0-261-10320-7", 10)));
+        assertEquals(List.of(1L), ids(index.search("9780261102217", 10)));
+    }
+
+    @Test
+    void updatesReplaceOldTokensAndRemovalsDropTheBook() {
+        index.add(book(1L, "There and Back Again", "J. R. R. Tolkien", null));
+        assertEquals(List.of(4L), ids(index.search("hobb", 10)));
+        assertEquals(List.of(1L), ids(index.search("back again", 10)));
+
+        index.remove(4L);
+        assertTrue(index.search("hobbes", 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void prefixesCountEveryTokenTheyExpandTo() {
+        for (long id = 100; id < 200; id++) {
+            index.add(book(id, "Volume v" + id, "Common Writer", null));
+        }
+        // Sorts after the other expansions of "v1"
+        index.add(book(300L, "Volume v1999", "Rare Writer", null));
+
+        assertEquals(101, index.search("v1", 200).size());
+        // The rare author drives; the prefix is probed for that one candidate
+        assertEquals(List.of(300L), ids(index.search("v1 rare", 10)));
+        // Every candidate matches the prefix, so its postings are merged instead
+        assertEquals(100, index.search("v1 common", 200).size());
+    }
+
+    @Test
+    void aRebuildKeepsChangesMadeWhileItRuns() {
+        // The rows are read before the changes, as a long startup scan would
+        Stream<Book> rows = Stream.of(
+                book(1L, "The Hobbit", "J. R. R. Tolkien", null),
+                book(2L, "The Lord of the Rings", "J. R. R. Tolkien", null),
+                book(4L, "Hobbes and Republican Liberty", "Quentin Skinner", null));
+        index.loadAll(rows.peek(book -> {
+            if (book.getId() == 1L) {
+                index.remove(4L);
+                index.add(book(2L, "The Two Towers", "J. R. R. Tolkien", null));
+                index.add(book(5L, "The Silmarillion", "J. R. R. Tolkien", null));
+                // Searches are served from the old index until the build completes
+                assertEquals(List.of(3L), ids(index.search("carpenter", 10)));
+            }
+        }));
+
+        assertEquals(3, index.size());
+        assertTrue(index.search("hobbes", 10).isEmpty());
+        assertTrue(index.search("lord", 10).isEmpty());
+        assertTrue(index.search("carpenter", 10).isEmpty());
+        assertEquals(List.of(2L), ids(index.search("towers", 10)));
+        assertEquals(List.of(5L), ids(index.search("silmarillion", 10)));
+    }
+
+    private static List<Long> ids(List<BookSearchHit> hits) {
+        return hits.stream().map(BookSearchHit::getId).collect(Collectors.toList());
+    }
+
+    private static Book book(Long id, String title, String author, String isbn) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        return book;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.library.search;
+
+import com.example.library.entity.Patron;
+import com.example.library.event.PatronChangedEvent;
+import com.example.library.response.PatronSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatronNameIndexTest {
+
+    private PatronNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PatronNameIndex();
+        index.loadAll(Stream.of(
+                patron(3L, "Ada Lovelace"),
+                patron(1L, "Alan Turing"),
+                patron(2L, "Grace Hopper"),
+                patron(4L, "Ada Byron")));
+    }
+
+    @Test
+    void matchesAnyWordByPrefixOrderedByWordThenId() {
+        assertEquals(List.of(3L, 4L), ids(index.suggest("ada", 10)));
+        assertEquals(List.of(3L), ids(index.suggest("LOVE", 10)));
+        // Words starting with "a", in order: ada (3), ada (4), alan (1)
+        assertEquals(List.of(3L, 4L, 1L), ids(index.suggest("a", 10)));
+        assertTrue(index.suggest("x", 10).isEmpty());
+        assertTrue(index.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void extraWordsNarrowTheMatch() {
+        assertEquals(List.of(3L), ids(index.suggest("ada lov", 10)));
+        assertEquals(List.of(4L), ids(index.suggest("byr ada", 10)));
+        assertTrue(index.suggest("ada hop", 10).isEmpty());
+    }
+
+    @Test
+    void limitCapsDistinctPatrons() {
+        assertEquals(List.of(3L), ids(index.suggest("a", 1)));
+        assertEquals(List.of(3L, 4L), ids(index.suggest("a", 2)));
+        assertTrue(index.suggest("a", 0).isEmpty());
+    }
+
+    @Test
+    void duplicateNamesAndRepeatedWordsAreListedOncePerPatron() {
+        index.add(patron(5L, "Grace Hopper"));
+        index.add(patron(6L, "Hopper Hopper"));
+
+        assertEquals(List.of(2L, 5L), ids(index.suggest("grace", 10)));
+        assertEquals(List.of(2L, 5L, 6L), ids(index.suggest("hop", 10)));
+        // Patron 6 has a single entry for its repeated word
+        assertEquals(11, index.size());
+    }
+
+    @Test
+    void patronChangesKeepTheIndexInSync() {
+        Patron added = patron(5L, "Katherine Johnson");
+        index.onPatronChanged(new PatronChangedEvent(PatronChangedEvent.Type.CREATED, null, added));
+        assertEquals(List.of(5L), ids(index.suggest("kath", 10)));
+
+        Patron renamed = patron(5L, "Katherine Goble");
+        index.onPatronChanged(new PatronChangedEvent(PatronChangedEvent.Type.UPDATED, added, renamed));
+        assertTrue(index.suggest("johnson", 10).isEmpty());
+        assertEquals(List.of(5L), ids(index.suggest("gob", 10)));
+        assertEquals(List.of(5L, 2L), ids(index.suggest("g", 10)));
+
+        index.onPatronChanged(new PatronChangedEvent(PatronChangedEvent.Type.DELETED, renamed, null));
+        assertTrue(index.suggest("kath", 10).isEmpty());
+        assertEquals(8, index.size());
+    }
+
+    private static List<Long> ids(List<PatronSuggestion> suggestions) {
+        return suggestions.stream().map(PatronSuggestion::getId).collect(Collectors.toList());
+    }
+
+    private static Patron patron(Long id, String name) {
+        Patron patron = new Patron();
+        patron.setId(id);
+        patron.setName(name);
+        return patron;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.library.search;
+
+import com.example.library.entity.Book;
+import com.example.library.repository.LoanPair;
+import com.example.library.response.RelatedBook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RelatedBooksIndexTest {
+
+    // patron -> books borrowed, sorted by patron as the startup query returns them
+    private static final long[][] HISTORY = {
+            {10, 1, 2, 3},
+            {11, 1, 2},
+            {12, 1, 2, 4},
+            {13, 3, 4},
+            {14, 1, 4},
+    };
+
+    private CatalogSearchIndex catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new CatalogSearchIndex();
+        for (long id = 1; id <= 4; id++) {
+            Book book = new Book();
+            book.setId(id);
+            book.setTitle("Title " + id);
+            book.setAuthor("Author " + id);
+            catalog.add(book);
+        }
+    }
+
+    @Test
+    void startupBuildCountsSharedPatrons() {
+        RelatedBooksIndex index = index(10);
+        index.loadAll(pairs());
+
+        List<RelatedBook> related = index.related(1L, 10);
+        assertEquals(List.of(2L, 4L, 3L), ids(related));
+        assertEquals(List.of(3, 2, 1), related.stream().map(RelatedBook::getSharedPatrons).collect(Collectors.toList()));
+        assertEquals(List.of(2L), ids(index.related(1L, 1)));
+    }
+
+    @Test
+    void incrementalUpdatesMatchTheStartupBuild() {
+        RelatedBooksIndex built = index(10);
+        built.loadAll(pairs());
+        RelatedBooksIndex incremental = index(10);
+        for (long[] patron : HISTORY) {
+            for (int i = 1; i < patron.length; i++) {
+                incremental.record(patron[0], patron[i]);
+                // A repeat borrow must not count twice
+                incremental.record(patron[0], patron[i]);
+            }
+        }
+
+        for (long id = 1; id <= 4; id++) {
+            assertEquals(ids(built.related(id, 10)), ids(incremental.related(id, 10)));
+        }
+    }
+
+    @Test
+    void neighboursArePrunedToCapacity() {
+        RelatedBooksIndex index = index(2);
+        index.loadAll(pairs());
+        assertEquals(List.of(2L, 4L), ids(index.related(1L, 10)));
+    }
+
+    private RelatedBooksIndex index(int capacity) {
+        RelatedBooksIndex index = new RelatedBooksIndex(capacity);
+        ReflectionTestUtils.setField(index, "catalogSearchIndex", catalog);
+        return index;
+    }
+
+    private static Stream<LoanPair> pairs() {
+        Stream.Builder<LoanPair> pairs = Stream.builder();
+        for (long[] patron : HISTORY) {
+            for (int i = 1; i < patron.length; i++) {
+                long patronId = patron[0];
+                long bookId = patron[i];
+                pairs.add(new LoanPair() {
+                    @Override
+                    public Long getPatronId() {
+                        return patronId;
+                    }
+
+                    @Override
+                    public Long getBookId() {
+                        return bookId;
+                    }
+                });
+            }
+        }
+        return pairs.build();
+    }
+
+    private static List<Long> ids(List<RelatedBook> related) {
+        return related.stream().map(RelatedBook::getBookId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.Patron;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.PatronRepository;
+import com.example.library.response.BatchCirculationResponse;
+import com.example.library.response.CirculationStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Hammers one popular title from many threads and checks no copy is ever lent twice
+@SpringBootTest
+class CirculationServiceConcurrencyTest {
+
+    private static final int COPIES = 5;
+    private static final int PATRONS = 40;
+    private static final int THREADS = 16;
+    private static final int BATCH_BOOKS = 5;
+    private static final int BATCH_PATRONS = 8;
+    private static final int BATCH_ROUNDS = 10;
+
+    @Autowired
+    private CirculationService circulationService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Test
+    void concurrentBorrowsNeverExceedCopies() throws Exception {
+        Book book = popularBook();
+        List<Patron> patrons = patrons();
+
+        // Every patron tries twice at the same moment: copies and the per-patron rule are both contended
+        List<Long> attempts = new ArrayList<>();
+        for (Patron patron : patrons) {
+            attempts.add(patron.getId());
+            attempts.add(patron.getId());
+        }
+        Map<CirculationStatus, Integer> outcomes = runConcurrently(attempts,
+                patronId -> circulationService.borrow(book.getId(), patronId).getStatus());
+
+        assertEquals(COPIES, outcomes.getOrDefault(CirculationStatus.BORROWED, 0));
+        assertEquals(attempts.size(), outcomes.getOrDefault(CirculationStatus.BORROWED, 0)
+                + outcomes.getOrDefault(CirculationStatus.NO_COPIES_AVAILABLE, 0)
+                + outcomes.getOrDefault(CirculationStatus.ALREADY_BORROWED, 0));
+        assertEquals(COPIES, borrowingRecordRepository.countByBookIdAndReturnDateIsNull(book.getId()));
+        assertEquals(0, bookRepository.findById(book.getId()).get().getAvailableCopies());
+        assertEquals(0, availabilityIndex.availableCopies(book.getId()).getAsInt());
+    }
+
+    @Test
+    void concurrentBorrowAndReturnKeepCountsConsistent() throws Exception {
+        Book book = popularBook();
+        List<Patron> patrons = patrons();
+
+        List<Long> attempts = new ArrayList<>();
+        for (int round = 0; round < 5; round++) {
+            patrons.forEach(patron -> attempts.add(patron.getId()));
+        }
+        runConcurrently(attempts, patronId -> {
+            CirculationStatus status = circulationService.borrow(book.getId(), patronId).getStatus();
+            if (status == CirculationStatus.BORROWED) {
+                circulationService.giveBack(book.getId(), patronId);
+            }
+            return status;
+        });
+
+        long open = borrowingRecordRepository.countByBookIdAndReturnDateIsNull(book.getId());
+        int available = bookRepository.findById(book.getId()).get().getAvailableCopies();
+        assertEquals(0, open);
+        assertEquals(COPIES, available);
+        assertEquals(COPIES, availabilityIndex.availableCopies(book.getId()).getAsInt());
+    }
+
+    @Test
+    void overlappingBorrowAndReturnBatchesDoNotDeadlock() throws Exception {
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < BATCH_BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Batch Title " + i);
+            book.setAuthor("Some Author");
+            book.setTotalCopies(BATCH_PATRONS);
+            bookIds.add(catalogService.addBook(book).getId());
+        }
+        List<Long> descending = new ArrayList<>(bookIds);
+        Collections.reverse(descending);
+        List<Long> patronIds = new ArrayList<>();
+        patrons().subList(0, BATCH_PATRONS).forEach(patron -> patronIds.add(patron.getId()));
+
+        // Single borrows in descending book order give each patron loans whose ids run against the
+        // book ids; returning them while other patrons borrow the same books in one batch is the
+        // pattern that deadlocks when the two batches lock the book rows in different orders
+        Map<CirculationStatus, Integer> outcomes = runConcurrently(patronIds, patronId -> {
+            for (int round = 0; round < BATCH_ROUNDS; round++) {
+                for (Long bookId : descending) {
+                    expect(CirculationStatus.BORROWED, circulationService.borrow(bookId, patronId).getStatus());
+                }
+                expectAll(CirculationStatus.RETURNED, circulationService.returnBatch(patronId, descending).get());
+                expectAll(CirculationStatus.BORROWED, circulationService.borrowBatch(patronId, descending).get());
+                expectAll(CirculationStatus.RETURNED, circulationService.returnBatch(patronId, descending).get());
+            }
+            return CirculationStatus.RETURNED;
+        });
+
+        assertEquals(BATCH_PATRONS, outcomes.get(CirculationStatus.RETURNED));
+        for (Long bookId : bookIds) {
+            assertEquals(0, borrowingRecordRepository.countByBookIdAndReturnDateIsNull(bookId));
+            assertEquals(BATCH_PATRONS, bookRepository.findById(bookId).get().getAvailableCopies());
+        }
+    }
+
+    private static void expect(CirculationStatus expected, CirculationStatus actual) {
+        if (actual != expected) {
+            throw new AssertionError("Expected " + expected + " but got " + actual);
+        }
+    }
+
+    private static void expectAll(CirculationStatus expected, BatchCirculationResponse response) {
+        response.getResults().forEach(result -> expect(expected, result.getStatus()));
+    }
+
+    private Map<CirculationStatus, Integer> runConcurrently(List<Long> patronIds, Attempt attempt) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CirculationStatus>> futures = new ArrayList<>();
+        for (Long patronId : patronIds) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return attempt.run(patronId);
+            }));
+        }
+        start.countDown();
+
+        Map<CirculationStatus, Integer> outcomes = new EnumMap<>(CirculationStatus.class);
+        for (Future<CirculationStatus> future : futures) {
+            outcomes.merge(future.get(60, TimeUnit.SECONDS), 1, Integer::sum);
+        }
+        pool.shutdown();
+        return outcomes;
+    }
+
+    private Book popularBook() {
+        Book book = new Book();
+        book.setTitle("A Popular Title");
+        book.setAuthor("Some Author");
+        book.setTotalCopies(COPIES);
+        return catalogService.addBook(book);
+    }
+
+    private List<Patron> patrons() {
+        List<Patron> patrons = new ArrayList<>();
+        for (int i = 0; i < PATRONS; i++) {
+            Patron patron = new Patron();
+            patron.setName("Patron " + i);
+            patron.setContactInformation("patron" + i + "@example.com");
+            patrons.add(patron);
+        }
+        return patronRepository.saveAll(patrons);
+    }
+
+    private interface Attempt {
+        CirculationStatus run(Long patronId);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs on a primary and one replica so the test can tell which database a load
+// read. The cache is kept small enough for a handful of books to overflow it;
+// the eviction test runs last so it does not push out the other tests' entries.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:entity-cache-primary;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica-urls=" + EntityCacheTest.REPLICA,
+        "library.datasource.replica-check-interval=1h",
+        "library.cache.maximum-size=4"
+})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class EntityCacheTest {
+
+    static final String REPLICA = "jdbc:h2:mem:entity-cache-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @Order(1)
+    void bookChangesInvalidateTheCachedBook() {
+        Book book = addBook("Cached Title");
+
+        Book cached = entityCache.findBook(book.getId()).orElseThrow();
+        assertSame(cached, entityCache.findBook(book.getId()).orElseThrow());
+
+        Book update = new Book();
+        update.setTitle("Renamed Title");
+        update.setAuthor("Cache Author");
+        catalogService.updateBook(book.getId(), update);
+        Book renamed = entityCache.findBook(book.getId()).orElseThrow();
+        assertNotSame(cached, renamed);
+        assertEquals("Renamed Title", renamed.getTitle());
+        assertSame(renamed, entityCache.findBook(book.getId()).orElseThrow());
+
+        catalogService.deleteBook(book.getId());
+        assertTrue(entityCache.findBook(book.getId()).isEmpty());
+    }
+
+    @Test
+    @Order(2)
+    void loadsReadThePrimaryEvenOnARequestThread() {
+        Book book = addBook("Primary Title");
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA, "sa", "password"));
+        replica.execute("DROP ALL OBJECTS");
+        List<String> schema = new ArrayList<>();
+        for (String statement : new JdbcTemplate(dataSource).queryForList("SCRIPT NODATA", String.class)) {
+            if (!statement.startsWith("CREATE USER")) {
+                schema.add(statement);
+            }
+        }
+        schema.forEach(replica::execute);
+        // The replica lags behind: it still has the book under an older title
+        replica.update("INSERT INTO book (id, title, author, isbn, publication_year, total_copies, available_copies, version)"
+                + " VALUES (?, 'Lagging Title', 'Cache Author', NULL, 0, 1, 1, 0)", book.getId());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("Lagging Title", bookRepository.findById(book.getId()).orElseThrow().getTitle());
+        assertEquals("Primary Title", entityCache.findBook(book.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    @Order(3)
+    void theCacheStaysWithinItsMaximumSize() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            entityCache.findBook(addBook("Evicted Title " + i).getId());
+        }
+
+        // Eviction runs asynchronously after the writes
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((evictions() == 0 || cachedBooks() > 4) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(evictions() >= 16, "evictions: " + evictions());
+        assertTrue(cachedBooks() <= 4, "cached books: " + cachedBooks());
+    }
+
+    private Book addBook(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Cache Author");
+        return catalogService.addBook(book);
+    }
+
+    private double evictions() {
+        return meterRegistry.get("cache.evictions").tag("cache", "books").functionCounter().count();
+    }
+
+    private double cachedBooks() {
+        return meterRegistry.get("cache.size").tag("cache", "books").gauge().value();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.BorrowingRecord;
+import com.example.library.entity.Patron;
+import com.example.library.event.OverdueEvent;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BorrowingRecordRepository;
+import com.example.library.repository.PatronRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Loans are seeded by an ApplicationRunner, which runs before the startup
+// announcement, so the first run sees them; later runs are given their date.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:overdue-monitor-test")
+class OverdueMonitorTest {
+
+    @Autowired
+    private OverdueMonitor overdueMonitor;
+
+    @Autowired
+    private Loans loans;
+
+    @Test
+    void announcesEachLoanOnceAfterItsDueDate() {
+        LocalDate today = loans.today;
+
+        // First run, at startup: every open loan already past its due date
+        assertEquals(Set.of(loans.id("longOverdue"), loans.id("overdue")), loans.takeAnnounced());
+
+        // Another run the same day finds nothing new
+        overdueMonitor.announceOverdueLoans();
+        assertTrue(loans.takeAnnounced().isEmpty());
+
+        // The loan due today is announced the next day, once
+        overdueMonitor.announceOverdueLoans(today.plusDays(1));
+        assertEquals(Set.of(loans.id("dueToday")), loans.takeAnnounced());
+        overdueMonitor.announceOverdueLoans(today.plusDays(1));
+        assertTrue(loans.takeAnnounced().isEmpty());
+
+        // A run skipped over a few days catches up; a clock set back announces nothing
+        overdueMonitor.announceOverdueLoans(today.plusDays(3));
+        assertEquals(Set.of(loans.id("dueTomorrow")), loans.takeAnnounced());
+        overdueMonitor.announceOverdueLoans(today);
+        assertTrue(loans.takeAnnounced().isEmpty());
+    }
+
+    @TestConfiguration
+    static class Loans {
+
+        private final LocalDate today = LocalDate.now();
+        private final Map<String, Long> ids = new ConcurrentHashMap<>();
+        private final List<OverdueEvent> announced = new CopyOnWriteArrayList<>();
+
+        @Bean
+        ApplicationRunner seedLoans(BookRepository bookRepository, PatronRepository patronRepository,
+                                    BorrowingRecordRepository borrowingRecordRepository) {
+            return args -> {
+                Book book = new Book();
+                book.setTitle("Overdue Title");
+                book.setAuthor("Some Author");
+                book.setTotalCopies(5);
+                book = bookRepository.save(book);
+                Patron patron = new Patron();
+                patron.setName("Late Reader");
+                patron.setContactInformation("late.reader@example.com");
+                patron = patronRepository.save(patron);
+
+                loan("longOverdue", book, patron, today.minusDays(30), null, borrowingRecordRepository);
+                loan("overdue", book, patron, today.minusDays(1), null, borrowingRecordRepository);
+                loan("returned", book, patron, today.minusDays(5), today.minusDays(2), borrowingRecordRepository);
+                loan("dueToday", book, patron, today, null, borrowingRecordRepository);
+                loan("dueTomorrow", book, patron, today.plusDays(1), null, borrowingRecordRepository);
+            };
+        }
+
+        @EventListener
+        void onOverdue(OverdueEvent event) {
+            announced.add(event);
+        }
+
+        Long id(String name) {
+            return ids.get(name);
+        }
+
+        // The loans announced since the last call
+        Set<Long> takeAnnounced() {
+            Set<Long> taken = announced.stream().map(OverdueEvent::getBorrowingRecordId).collect(Collectors.toSet());
+            announced.clear();
+            return taken;
+        }
+
+        private void loan(String name, Book book, Patron patron, LocalDate dueDate, LocalDate returnDate,
+                          BorrowingRecordRepository borrowingRecordRepository) {
+            BorrowingRecord record = new BorrowingRecord();
+            record.setBook(book);
+            record.setPatron(patron);
+            record.setBorrowDate(dueDate.minusDays(14));
+            record.setDueDate(dueDate);
+            record.setReturnDate(returnDate);
+            ids.put(name, borrowingRecordRepository.save(record).getId());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.library.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<String> published = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10), 10, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> flight.load(1L, key -> {
+                loads.incrementAndGet();
+                await(release);
+                return "book " + key;
+            }, this::publish)));
+        }
+        // The leader holds the load until everyone else has joined it
+        awaitLoads("coalesced", CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("book 1", result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(List.of("1=book 1"), published);
+        assertEquals(1, flight.executedLoads(1L));
+    }
+
+    @Test
+    void aFailedLoadReachesEveryWaiterAndIsNotKept() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10), 10, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> flight.load(1L, key -> {
+                loads.incrementAndGet();
+                await(release);
+                throw failure;
+            }, this::publish)));
+        }
+        awaitLoads("coalesced", CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+            assertSame(failure, thrown.getCause());
+        }
+        assertEquals(1, loads.get());
+        assertTrue(published.isEmpty());
+
+        // The next caller loads again instead of getting the failure
+        assertEquals("book 1", flight.load(1L, key -> "book " + key, this::publish));
+        assertEquals(List.of("1=book 1"), published);
+    }
+
+    @Test
+    void aWaiterGivesUpAfterTheWaitLimit() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofMillis(50), 10, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = callers.submit(() -> flight.load(1L, key -> {
+            await(release);
+            return "book " + key;
+        }, this::publish));
+        awaitLoads("executed", 1);
+
+        assertThrows(SingleFlight.WaitTimeoutException.class, () -> flight.load(1L, key -> "never", this::publish));
+        assertEquals(1, count("timeout"));
+
+        // The leader is unaffected
+        release.countDown();
+        assertEquals("book 1", leader.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void aPublishedKeyIsForgotten() {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10), 10, meterRegistry);
+
+        flight.load(1L, key -> "first", this::publish);
+        flight.load(1L, key -> "second", this::publish);
+
+        // Both calls ran their loader: nothing was left in flight to join
+        assertEquals(2, count("executed"));
+        assertEquals(0, count("coalesced"));
+        assertEquals(List.of("1=first", "1=second"), published);
+    }
+
+    @Test
+    void aLoadForgottenWhileInFlightIsNotPublished() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>("test", Duration.ofSeconds(10), 10, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stale = callers.submit(() -> flight.load(1L, key -> {
+            await(release);
+            return "stale";
+        }, this::publish));
+        awaitLoads("executed", 1);
+
+        flight.forget(1L, () -> { });
+        // A caller after the invalidation starts its own load rather than joining the stale one
+        assertEquals("fresh", flight.load(1L, key -> "fresh", this::publish));
+        release.countDown();
+
+        assertEquals("stale", stale.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of("1=fresh"), published);
+    }
+
+    private synchronized void publish(Long key, String value) {
+        published.add(key + "=" + value);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("library.cache.loads").tag("outcome", outcome).counter().count();
+    }
+
+    private void awaitLoads(String outcome, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (count(outcome) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, count(outcome));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
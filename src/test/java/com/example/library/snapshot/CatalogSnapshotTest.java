@@ -0,0 +1,148 @@
+package com.example.library.snapshot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Round trips through the current format, and sets a damaged or other-version file aside
+@SpringBootTest
+class CatalogSnapshotTest {
+
+    private static final LocalDate BORROWED = LocalDate.of(2024, 3, 1);
+    private static final LocalDate DUE = LocalDate.of(2024, 3, 15);
+    private static final LocalDate RETURNED = LocalDate.of(2024, 3, 10);
+
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void snapshotProperties(DynamicPropertyRegistry registry) {
+        // A database of its own: the snapshot covers whole tables
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:snapshot-test");
+        registry.add("library.snapshot.enabled", () -> "true");
+        registry.add("library.snapshot.file", () -> directory.resolve("catalog.snapshot").toString());
+    }
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Path file;
+
+    @BeforeEach
+    void emptyDatabase() throws IOException {
+        clear();
+        file = directory.resolve("catalog.snapshot");
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory.resolve("catalog.snapshot.unreadable"));
+    }
+
+    @Test
+    void loadsWhatWasWritten() throws IOException {
+        jdbcTemplate.update("INSERT INTO book (id, title, author, isbn, publication_year, total_copies, available_copies,"
+                + " version) VALUES (1, 'Snapshot Title', 'Some Author', '978-0000000001', 2001, 3, 1, 4)");
+        jdbcTemplate.update("INSERT INTO book (id, title, author, isbn, publication_year, total_copies, available_copies,"
+                + " version) VALUES (2, 'Untitled', NULL, NULL, 1999, 1, 1, 0)");
+        jdbcTemplate.update("INSERT INTO patron (id, name, contact_information, version) VALUES (1, 'Reader', 'reader@example.com', 0)");
+        jdbcTemplate.update("INSERT INTO patron (id, name, contact_information, version) VALUES (2, 'Other', 'other@example.com', 0)");
+        insertLoan("borrowing_record", 10, 1, 1, null);
+        insertLoan("borrowing_record", 11, 1, 2, null);
+        insertLoan("borrowing_record", 12, 2, 1, RETURNED);
+        insertLoan("loan_history", 5, 2, 2, RETURNED);
+
+        catalogSnapshot.write();
+        clear();
+        catalogSnapshot.load();
+
+        assertEquals("Snapshot Title", jdbcTemplate.queryForObject("SELECT title FROM book WHERE id = 1", String.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT author FROM book WHERE id = 2", String.class));
+        assertEquals(1, availableCopies(1));
+        assertEquals(1, availableCopies(2));
+        assertEquals("other@example.com",
+                jdbcTemplate.queryForObject("SELECT contact_information FROM patron WHERE id = 2", String.class));
+        assertEquals(2, count("SELECT COUNT(*) FROM borrowing_record WHERE return_date IS NULL"));
+        assertEquals(Date.valueOf(RETURNED), jdbcTemplate.queryForObject(
+                "SELECT return_date FROM borrowing_record WHERE id = 12", Date.class));
+        assertEquals(Date.valueOf(DUE), jdbcTemplate.queryForObject("SELECT due_date FROM loan_history WHERE id = 5", Date.class));
+    }
+
+    @Test
+    void setsACorruptedFileAside() throws IOException {
+        jdbcTemplate.update("INSERT INTO book (id, title, author, isbn, publication_year, total_copies, available_copies,"
+                + " version) VALUES (1, 'Snapshot Title', 'Some Author', NULL, 2001, 3, 3, 0)");
+        catalogSnapshot.write();
+        clear();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[SnapshotFormat.HEADER_SIZE + 3] ^= 0x40;
+        Files.write(file, bytes);
+
+        catalogSnapshot.load();
+
+        assertEquals(0, count("SELECT COUNT(*) FROM book"));
+        assertFalse(Files.exists(file));
+        assertTrue(Files.exists(directory.resolve("catalog.snapshot.unreadable")));
+    }
+
+    @Test
+    void setsAnotherVersionAside() throws IOException {
+        jdbcTemplate.update("INSERT INTO book (id, title, author, isbn, publication_year, total_copies, available_copies,"
+                + " version) VALUES (1, 'Snapshot Title', 'Some Author', NULL, 2001, 3, 3, 0)");
+        catalogSnapshot.write();
+        clear();
+        // An intact file, checksum included, that claims an older version
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        bytes.putInt(4, SnapshotFormat.VERSION - 1);
+        int bodySize = bytes.capacity() - SnapshotFormat.TRAILER_SIZE;
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.array(), 0, bodySize);
+        bytes.putInt(bodySize, (int) crc.getValue());
+        Files.write(file, bytes.array());
+
+        catalogSnapshot.load();
+
+        assertEquals(0, count("SELECT COUNT(*) FROM book"));
+        assertFalse(Files.exists(file));
+        assertTrue(Files.exists(directory.resolve("catalog.snapshot.unreadable")));
+    }
+
+    private void insertLoan(String table, long id, long bookId, long patronId, LocalDate returnDate) {
+        jdbcTemplate.update("INSERT INTO " + table + " (id, book_id, patron_id, borrow_date, due_date, return_date)"
+                + " VALUES (?, ?, ?, ?, ?, ?)", id, bookId, patronId, Date.valueOf(BORROWED), Date.valueOf(DUE),
+                returnDate == null ? null : Date.valueOf(returnDate));
+    }
+
+    private int availableCopies(long bookId) {
+        return jdbcTemplate.queryForObject("SELECT available_copies FROM book WHERE id = ?", Integer.class, bookId);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private void clear() {
+        jdbcTemplate.execute("DELETE FROM loan_history");
+        jdbcTemplate.execute("DELETE FROM borrowing_record");
+        jdbcTemplate.execute("DELETE FROM patron");
+        jdbcTemplate.execute("DELETE FROM book");
+    }
+}
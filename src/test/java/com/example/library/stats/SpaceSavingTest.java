@@ -0,0 +1,100 @@
+package com.example.library.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void exactWhileUnderCapacity() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(4);
+        sketch.add("a", 3);
+        sketch.add("b", 1);
+        sketch.add("c", 5);
+        sketch.add("b", 3);
+
+        List<SpaceSaving.Counter<String>> top = sketch.top(10);
+        assertEquals(List.of("c", "b", "a"), keys(top));
+        assertEquals(4, top.get(1).getCount());
+        assertEquals(4, top.get(1).getGuaranteedCount());
+    }
+
+    @Test
+    void heavyHittersSurviveALongTail() {
+        SpaceSaving<Long> sketch = new SpaceSaving<>(50);
+        Random random = new Random(42);
+        long[] hot = new long[5];
+        for (int i = 0; i < 100_000; i++) {
+            // Half the stream is five hot keys, the rest is spread over 10 000 cold ones
+            long key = random.nextBoolean() ? random.nextInt(5) : 1_000 + random.nextInt(10_000);
+            if (key < 5) {
+                hot[(int) key]++;
+            }
+            sketch.add(key, 1);
+        }
+
+        List<SpaceSaving.Counter<Long>> top = sketch.top(5);
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), keys(top).stream().sorted().collect(Collectors.toList()));
+        for (SpaceSaving.Counter<Long> counter : top) {
+            long actual = hot[counter.getKey().intValue()];
+            assertTrue(counter.getGuaranteedCount() <= actual && actual <= counter.getCount());
+        }
+    }
+
+    @Test
+    void errorsStayWithinTheirBoundsOnASkewedStream() {
+        int capacity = 100;
+        int events = 200_000;
+        SpaceSaving<Integer> sketch = new SpaceSaving<>(capacity);
+        Map<Integer, Long> actual = new HashMap<>();
+        // Zipf with exponent 1.1 over 50 000 keys, like borrows of a catalog with a few bestsellers
+        double[] cumulative = new double[50_000];
+        double sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += 1 / Math.pow(i + 1, 1.1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < events; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            int key = index >= 0 ? index : -index - 1;
+            actual.merge(key, 1L, Long::sum);
+            sketch.add(key, 1);
+        }
+
+        long maxError = events / capacity;
+        for (SpaceSaving.Counter<Integer> counter : sketch.top(capacity)) {
+            long frequency = actual.get(counter.getKey());
+            assertTrue(counter.getGuaranteedCount() <= frequency && frequency <= counter.getCount(),
+                    "key " + counter.getKey() + ": " + frequency + " outside its bounds");
+            assertTrue(counter.getCount() - counter.getGuaranteedCount() <= maxError,
+                    "key " + counter.getKey() + " has an error above " + maxError);
+        }
+        // Every key seen more than events / capacity times is monitored
+        actual.forEach((key, frequency) -> {
+            if (frequency > maxError) {
+                assertTrue(sketch.count(key) >= frequency, "key " + key + " seen " + frequency + " times was dropped");
+            }
+        });
+        // The true top ten are reported in order
+        List<Integer> trueTop = actual.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        assertEquals(trueTop, keys(sketch.top(10)));
+    }
+
+    private static <K> List<K> keys(List<SpaceSaving.Counter<K>> counters) {
+        return counters.stream().map(SpaceSaving.Counter::getKey).collect(Collectors.toList());
+    }
+}